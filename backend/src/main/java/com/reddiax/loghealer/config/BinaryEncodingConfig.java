@@ -0,0 +1,28 @@
+package com.reddiax.loghealer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Lets clients post (and receive) Smile or CBOR instead of JSON by setting Content-Type / Accept.
+ * The converters are appended after the JSON one, so JSON stays the default for {@code *}{@code /*}.
+ */
+@Configuration
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+            JacksonConfig.configure(new ObjectMapper(new SmileFactory()))));
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+            JacksonConfig.configure(new ObjectMapper(new CBORFactory()))));
+    }
+}
@@ -6,6 +6,7 @@ import co.elastic.clients.elasticsearch.indices.PutIndexTemplateRequest;
 import co.elastic.clients.elasticsearch.indices.put_index_template.IndexTemplateMapping;
 import co.elastic.clients.elasticsearch._types.mapping.*;
 import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.document.StackTraceDocument;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -30,6 +31,9 @@ public class ElasticsearchIndexInitializer {
     public void initializeIndices() {
         createLogIndexTemplate();
         createIndexIfNotExists(LogEntryDocument.class);
+        createIndexIfNotExists(StackTraceDocument.class);
+        // Adds the project and lastSeen fields to trace indices created before they were mapped
+        elasticsearchOperations.indexOps(StackTraceDocument.class).putMapping();
         log.info("Elasticsearch indices initialized");
     }
 
@@ -48,17 +52,23 @@ public class ElasticsearchIndexInitializer {
                 properties.put("logger", Property.of(p -> p.keyword(k -> k)));
                 properties.put("message", Property.of(p -> p.text(tx -> tx.analyzer("standard"))));
                 properties.put("stackTrace", Property.of(p -> p.text(tx -> tx)));
+                properties.put("stackTraceHash", Property.of(p -> p.keyword(k -> k)));
                 properties.put("exceptionClass", Property.of(p -> p.keyword(k -> k)));
                 properties.put("fingerprint", Property.of(p -> p.keyword(k -> k)));
                 properties.put("threadName", Property.of(p -> p.keyword(k -> k)));
                 properties.put("metadata", Property.of(p -> p.flattened(f -> f)));
                 properties.put("timestamp", Property.of(p -> p.date(d -> d.format("epoch_millis"))));
+                properties.put("eventId", Property.of(p -> p.keyword(k -> k)));
                 properties.put("traceId", Property.of(p -> p.keyword(k -> k)));
                 properties.put("spanId", Property.of(p -> p.keyword(k -> k)));
                 properties.put("parentSpanId", Property.of(p -> p.keyword(k -> k)));
                 properties.put("serviceName", Property.of(p -> p.keyword(k -> k)));
                 properties.put("hostName", Property.of(p -> p.keyword(k -> k)));
                 properties.put("environment", Property.of(p -> p.keyword(k -> k)));
+                properties.put("repeatCount", Property.of(p -> p.integer(i -> i)));
+                properties.put("firstTimestamp", Property.of(p -> p.date(d -> d.format("epoch_millis"))));
+                properties.put("lastTimestamp", Property.of(p -> p.date(d -> d.format("epoch_millis"))));
+                properties.put("repeatTraceIds", Property.of(p -> p.keyword(k -> k)));
 
                 elasticsearchClient.indices().putIndexTemplate(PutIndexTemplateRequest.of(r -> r
                     .name("loghealer-logs-template")
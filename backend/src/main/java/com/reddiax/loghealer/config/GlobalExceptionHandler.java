@@ -1,8 +1,12 @@
 package com.reddiax.loghealer.config;
 
+import com.reddiax.loghealer.service.ingestion.IngestionQueueFullException;
+import com.reddiax.loghealer.service.ingestion.StreamIngestionInterruptedException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,6 +27,45 @@ public class GlobalExceptionHandler {
             .body(errorResponse(HttpStatus.BAD_REQUEST, ex.getMessage()));
     }
 
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<Map<String, Object>> handleIngestionQueueFull(IngestionQueueFullException ex) {
+        log.warn("Ingestion rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(errorResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage()));
+    }
+
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> handlePayloadTooLarge(PayloadTooLargeException ex) {
+        log.warn("Payload too large: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+            .body(errorResponse(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage()));
+    }
+
+    @ExceptionHandler(StreamIngestionInterruptedException.class)
+    public ResponseEntity<Map<String, Object>> handleStreamInterrupted(StreamIngestionInterruptedException ex) {
+        ResponseEntity<Map<String, Object>> response = ex.getCause() instanceof IngestionQueueFullException queueFull
+            ? handleIngestionQueueFull(queueFull)
+            : handlePayloadTooLarge((PayloadTooLargeException) ex.getCause());
+        // Records up to processedRecords were handled; resending them would store them twice
+        response.getBody().put("accepted", ex.getAccepted());
+        response.getBody().put("rejected", ex.getRejected());
+        response.getBody().put("processedRecords", ex.getProcessedRecords());
+        return response;
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> handleUnreadableMessage(HttpMessageNotReadableException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof PayloadTooLargeException tooLarge) {
+                return handlePayloadTooLarge(tooLarge);
+            }
+        }
+        log.warn("Unreadable request body: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body(errorResponse(HttpStatus.BAD_REQUEST, "Malformed request body"));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationErrors(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
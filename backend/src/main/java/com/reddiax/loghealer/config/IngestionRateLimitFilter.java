@@ -0,0 +1,157 @@
+package com.reddiax.loghealer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reddiax.loghealer.service.ingestion.IngestionRateLimiter;
+import com.reddiax.loghealer.service.ingestion.ProjectContext;
+import com.reddiax.loghealer.service.ingestion.ProjectContextCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rejects ingestion requests from rate-limited projects with 429 before the body is read, and charges
+ * the bytes each admitted request actually delivered against the project's daily byte quota.
+ * Runs after {@link RequestDecompressionFilter} so quotas apply to decoded bytes.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 50)
+@RequiredArgsConstructor
+public class IngestionRateLimitFilter extends OncePerRequestFilter {
+
+    private final ProjectContextCache projectContextCache;
+    private final IngestionRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !"POST".equals(request.getMethod())
+            || request.getHeader("X-API-Key") == null
+            || !(uri.startsWith("/api/v1/logs") || uri.startsWith("/api/v1/events") || uri.startsWith("/api/v1/otlp"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ProjectContext project;
+        try {
+            project = projectContextCache.resolve(request.getHeader("X-API-Key"));
+        } catch (IllegalArgumentException e) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = rateLimiter.admit(project);
+        if (retryAfterSeconds > 0) {
+            reject(response, retryAfterSeconds);
+            return;
+        }
+
+        CountingRequest counting = new CountingRequest(request);
+        try {
+            chain.doFilter(counting, response);
+        } finally {
+            rateLimiter.recordBytes(project.projectId(), counting.bytesRead());
+        }
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", Instant.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", "Ingestion rate limit or quota exceeded, retry later");
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static class CountingRequest extends HttpServletRequestWrapper {
+
+        private CountingInputStream body;
+
+        CountingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                body = new CountingInputStream(super.getInputStream());
+            }
+            return body;
+        }
+
+        long bytesRead() {
+            return body != null ? body.count : 0;
+        }
+    }
+
+    private static class CountingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private long count;
+
+        CountingInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.reddiax.loghealer.config;
+
+import java.io.IOException;
+
+public class PayloadTooLargeException extends IOException {
+
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,197 @@
+package com.reddiax.loghealer.config;
+
+import com.github.luben.zstd.ZstdInputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Transparently decompresses gzip or zstd encoded ingestion request bodies. Decompression is streamed,
+ * and reading more than max-decompressed-bytes fails with {@link PayloadTooLargeException}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+@Slf4j
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    @Value("${loghealer.ingestion.max-decompressed-bytes:104857600}")
+    private long maxDecompressedBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return request.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+            || !(uri.startsWith("/api/v1/logs") || uri.startsWith("/api/v1/events") || uri.startsWith("/api/v1/otlp"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase();
+
+        InputStream decoded;
+        try {
+            decoded = switch (encoding) {
+                case "gzip", "x-gzip" -> new GZIPInputStream(request.getInputStream(), 8192);
+                case "zstd" -> new ZstdInputStream(request.getInputStream());
+                case "identity" -> request.getInputStream();
+                default -> null;
+            };
+        } catch (IOException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Malformed " + encoding + " request body");
+            return;
+        }
+
+        if (decoded == null) {
+            log.warn("Rejected request with unsupported Content-Encoding: {}", encoding);
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported Content-Encoding: " + encoding);
+            return;
+        }
+
+        chain.doFilter(new DecompressedRequest(request, new LimitedInputStream(decoded, maxDecompressedBytes)), response);
+    }
+
+    private static class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream body;
+
+        DecompressedRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.body = new DelegatingServletInputStream(body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isStrippedHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isStrippedHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        private boolean isStrippedHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static class LimitedInputStream extends InputStream {
+
+        private final InputStream delegate;
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                checkLimit(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n > 0) {
+                checkLimit(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        private void checkLimit(int n) throws PayloadTooLargeException {
+            count += n;
+            if (count > limit) {
+                throw new PayloadTooLargeException("Decompressed request body exceeds " + limit + " bytes");
+            }
+        }
+    }
+
+    private static class DelegatingServletInputStream extends ServletInputStream {
+
+        private final InputStream delegate;
+        private boolean finished;
+
+        DelegatingServletInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new IllegalStateException("Async reads are not supported for compressed bodies");
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
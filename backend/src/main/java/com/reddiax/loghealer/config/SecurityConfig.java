@@ -40,9 +40,11 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/health").permitAll()
                 .requestMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 // Log ingestion - API key auth (handled separately)
-                .requestMatchers(HttpMethod.POST, "/api/v1/logs", "/api/v1/logs/batch").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/v1/logs", "/api/v1/logs/batch", "/api/v1/logs/stream").permitAll()
                 // Event ingestion - API key auth
                 .requestMatchers(HttpMethod.POST, "/api/v1/events/**").permitAll()
+                // OTLP/HTTP receivers - API key auth
+                .requestMatchers(HttpMethod.POST, "/api/v1/otlp/v1/logs", "/api/v1/otlp/v1/traces").permitAll()
                 // Protected endpoints - require authentication (role check temporarily disabled for debugging)
                 .requestMatchers("/api/v1/dashboard/**").authenticated()
                 .requestMatchers("/api/v1/logs/search").authenticated()
@@ -1,6 +1,7 @@
 package com.reddiax.loghealer.controller;
 
 import com.reddiax.loghealer.dto.DashboardStatsResponse;
+import com.reddiax.loghealer.service.detection.ExceptionHeavyHitters;
 import com.reddiax.loghealer.service.search.LogSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -8,6 +9,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/dashboard")
 @RequiredArgsConstructor
@@ -15,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 public class DashboardController {
 
     private final LogSearchService logSearchService;
+    private final ExceptionHeavyHitters exceptionHeavyHitters;
 
     @GetMapping("/stats")
     @Operation(summary = "Get dashboard statistics")
@@ -24,4 +28,17 @@ public class DashboardController {
         
         return ResponseEntity.ok(logSearchService.getDashboardStats(projectId, timeRange));
     }
+
+    @GetMapping("/top-exceptions")
+    @Operation(summary = "Get the most frequent exceptions of a recent time window, by fingerprint or exception class")
+    public ResponseEntity<List<ExceptionHeavyHitters.HeavyHitter>> getTopExceptions(
+            @RequestParam(required = false) String projectId,
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "FINGERPRINT") ExceptionHeavyHitters.Dimension by,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return exceptionHeavyHitters.top(projectId, window, by, Math.max(1, Math.min(limit, 100)))
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.badRequest().build());
+    }
 }
@@ -0,0 +1,126 @@
+package com.reddiax.loghealer.controller;
+
+import com.reddiax.loghealer.dto.IngestionRuleRequest;
+import com.reddiax.loghealer.dto.IngestionRuleResponse;
+import com.reddiax.loghealer.entity.IngestionRule;
+import com.reddiax.loghealer.entity.Project;
+import com.reddiax.loghealer.repository.jpa.IngestionRuleRepository;
+import com.reddiax.loghealer.repository.jpa.ProjectRepository;
+import com.reddiax.loghealer.service.ingestion.IngestionRuleEngine;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/projects/{projectId}/ingestion-rules")
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionRuleController {
+
+    private final IngestionRuleRepository ingestionRuleRepository;
+    private final ProjectRepository projectRepository;
+    private final IngestionRuleEngine ingestionRuleEngine;
+
+    @GetMapping
+    public ResponseEntity<List<IngestionRuleResponse>> getRules(@PathVariable UUID projectId) {
+        log.info("Getting ingestion rules for project: {}", projectId);
+        return ResponseEntity.ok(ingestionRuleRepository.findByProjectId(projectId).stream()
+                .map(this::toResponse)
+                .toList());
+    }
+
+    @GetMapping("/filtered")
+    public ResponseEntity<Map<String, Map<String, Long>>> getFilteredCounts(@PathVariable UUID projectId) {
+        return ResponseEntity.ok(ingestionRuleEngine.filteredCounts(projectId.toString()));
+    }
+
+    @PostMapping
+    public ResponseEntity<IngestionRuleResponse> createRule(
+            @PathVariable UUID projectId,
+            @Valid @RequestBody IngestionRuleRequest request) {
+        log.info("Creating {} ingestion rule for project: {}", request.getAction(), projectId);
+        Project project = projectRepository.findById(projectId)
+                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
+
+        IngestionRule rule = IngestionRule.builder().project(project).build();
+        apply(rule, request);
+        rule = ingestionRuleRepository.save(rule);
+        ingestionRuleEngine.refresh();
+        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(rule));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<IngestionRuleResponse> updateRule(
+            @PathVariable UUID projectId,
+            @PathVariable UUID id,
+            @Valid @RequestBody IngestionRuleRequest request) {
+        log.info("Updating ingestion rule: {}", id);
+        IngestionRule rule = findRule(projectId, id);
+        apply(rule, request);
+        rule = ingestionRuleRepository.save(rule);
+        ingestionRuleEngine.refresh();
+        return ResponseEntity.ok(toResponse(rule));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable UUID projectId, @PathVariable UUID id) {
+        log.info("Deleting ingestion rule: {}", id);
+        ingestionRuleRepository.delete(findRule(projectId, id));
+        ingestionRuleEngine.refresh();
+        return ResponseEntity.noContent().build();
+    }
+
+    private IngestionRule findRule(UUID projectId, UUID id) {
+        return ingestionRuleRepository.findById(id)
+                .filter(rule -> rule.getProject().getId().equals(projectId))
+                .orElseThrow(() -> new RuntimeException("Ingestion rule not found: " + id));
+    }
+
+    private void apply(IngestionRule rule, IngestionRuleRequest request) {
+        IngestionRule.Action action;
+        try {
+            action = IngestionRule.Action.valueOf(request.getAction().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Action must be DROP or SAMPLE");
+        }
+        String level = request.getLevel() != null && !request.getLevel().isBlank()
+                ? request.getLevel().toUpperCase() : null;
+        if (action == IngestionRule.Action.SAMPLE) {
+            if (request.getSampleRate() == null) {
+                throw new IllegalArgumentException("sampleRate is required for SAMPLE rules");
+            }
+            if ("ERROR".equals(level) || "FATAL".equals(level)) {
+                throw new IllegalArgumentException("ERROR events cannot be sampled");
+            }
+        }
+
+        rule.setLoggerPrefix(request.getLoggerPrefix());
+        rule.setLevel(level);
+        rule.setAction(action);
+        rule.setSampleRate(action == IngestionRule.Action.SAMPLE ? request.getSampleRate() : null);
+        rule.setPriority(request.getPriority() != null ? request.getPriority() : 0);
+        rule.setActive(request.getActive() == null || request.getActive());
+    }
+
+    private IngestionRuleResponse toResponse(IngestionRule rule) {
+        return IngestionRuleResponse.builder()
+                .id(rule.getId())
+                .projectId(rule.getProject().getId())
+                .loggerPrefix(rule.getLoggerPrefix())
+                .level(rule.getLevel())
+                .action(rule.getAction().name())
+                .sampleRate(rule.getSampleRate())
+                .priority(rule.getPriority())
+                .active(rule.isActive())
+                .createdAt(rule.getCreatedAt())
+                .updatedAt(rule.getUpdatedAt())
+                .build();
+    }
+}
@@ -7,11 +7,14 @@ import com.reddiax.loghealer.service.ingestion.LogIngestionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/v1/logs")
 @RequiredArgsConstructor
@@ -41,4 +44,15 @@ public class LogIngestionController {
         int count = logIngestionService.ingestBatch(apiKey, request.getLogs());
         return ResponseEntity.accepted().body(LogIngestionResponse.success(count));
     }
+
+    @PostMapping("/stream")
+    @Operation(summary = "Ingest newline-delimited JSON (or concatenated Smile/CBOR) log entries as a stream")
+    public ResponseEntity<LogIngestionResponse> ingestLogStream(
+            @Parameter(description = "Project API key", required = true)
+            @RequestHeader("X-API-Key") String apiKey,
+            HttpServletRequest request) throws IOException {
+
+        LogIngestionResponse response = logIngestionService.ingestStream(apiKey, request.getContentType(), request.getInputStream());
+        return ResponseEntity.accepted().body(response);
+    }
 }
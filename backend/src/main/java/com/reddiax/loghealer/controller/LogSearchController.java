@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/logs")
@@ -40,7 +41,8 @@ public class LogSearchController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size,
             @RequestParam(defaultValue = "timestamp") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortOrder) {
+            @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(defaultValue = "false") boolean includeStackTraces) {
 
         LogSearchRequest request = LogSearchRequest.builder()
             .query(query)
@@ -55,8 +57,17 @@ public class LogSearchController {
             .size(size)
             .sortBy(sortBy)
             .sortOrder(sortOrder)
+            .includeStackTraces(includeStackTraces)
             .build();
 
         return ResponseEntity.ok(logSearchService.search(request));
     }
+
+    @PostMapping("/stack-traces")
+    @Operation(summary = "Resolve a project's stack traces by hash, for log entries fetched without them")
+    public ResponseEntity<Map<String, String>> getStackTraces(
+            @RequestParam String projectId,
+            @RequestBody List<String> hashes) {
+        return ResponseEntity.ok(logSearchService.getStackTraces(projectId, hashes));
+    }
 }
@@ -0,0 +1,62 @@
+package com.reddiax.loghealer.controller;
+
+import com.reddiax.loghealer.service.ingestion.OtlpIngestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * OTLP/HTTP receiver. Point an OpenTelemetry exporter at {@code <host>/api/v1/otlp} with an
+ * {@code X-API-Key} header; it appends the standard {@code /v1/logs} and {@code /v1/traces} paths.
+ */
+@RestController
+@RequestMapping("/api/v1/otlp/v1")
+@RequiredArgsConstructor
+@Tag(name = "OTLP Ingestion", description = "OpenTelemetry OTLP/HTTP receivers for logs and traces")
+public class OtlpIngestionController {
+
+    private static final String PROTOBUF = "application/x-protobuf";
+
+    private final OtlpIngestionService otlpIngestionService;
+
+    @PostMapping(value = "/logs", consumes = {PROTOBUF, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Export logs over OTLP/HTTP")
+    public ResponseEntity<byte[]> exportLogs(
+            @Parameter(description = "Project API key", required = true)
+            @RequestHeader("X-API-Key") String apiKey,
+            @RequestHeader("Content-Type") String contentType,
+            @RequestBody byte[] body) {
+
+        boolean json = isJson(contentType);
+        otlpIngestionService.ingestLogs(apiKey, body, json);
+        return emptyExportResponse(json);
+    }
+
+    @PostMapping(value = "/traces", consumes = {PROTOBUF, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Export spans over OTLP/HTTP")
+    public ResponseEntity<byte[]> exportTraces(
+            @Parameter(description = "Project API key", required = true)
+            @RequestHeader("X-API-Key") String apiKey,
+            @RequestHeader("Content-Type") String contentType,
+            @RequestBody byte[] body) {
+
+        boolean json = isJson(contentType);
+        otlpIngestionService.ingestTraces(apiKey, body, json);
+        return emptyExportResponse(json);
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType.startsWith(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    // An empty Export*ServiceResponse means full success; it encodes to zero bytes in protobuf
+    private static ResponseEntity<byte[]> emptyExportResponse(boolean json) {
+        return json
+            ? ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body("{}".getBytes())
+            : ResponseEntity.ok().contentType(MediaType.parseMediaType(PROTOBUF)).body(new byte[0]);
+    }
+}
@@ -5,6 +5,7 @@ import com.reddiax.loghealer.entity.Tenant;
 import com.reddiax.loghealer.repository.jpa.ProjectRepository;
 import com.reddiax.loghealer.repository.jpa.TenantRepository;
 import com.reddiax.loghealer.service.ProjectDiscoveryService;
+import com.reddiax.loghealer.service.ingestion.ProjectContextCache;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
@@ -27,6 +28,7 @@ public class ProjectController {
     private final ProjectRepository projectRepository;
     private final TenantRepository tenantRepository;
     private final ProjectDiscoveryService discoveryService;
+    private final ProjectContextCache projectContextCache;
 
     private static final String DEFAULT_TENANT_NAME = "reddia-x";
 
@@ -106,6 +108,7 @@ public class ProjectController {
         project.setPackagePrefix(request.getPackagePrefix());
 
         project = projectRepository.save(project);
+        projectContextCache.invalidate(project.getApiKey());
         return ResponseEntity.ok(toResponse(project));
     }
 
@@ -117,6 +120,7 @@ public class ProjectController {
         
         project.setActive(false);
         projectRepository.save(project);
+        projectContextCache.invalidate(project.getApiKey());
         return ResponseEntity.noContent().build();
     }
 
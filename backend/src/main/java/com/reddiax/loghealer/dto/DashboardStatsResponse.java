@@ -18,6 +18,13 @@ public class DashboardStatsResponse {
     private long totalExceptionGroups;
     private long newExceptions;
     private long resolvedExceptions;
+
+    // Events not stored because of ingestion rules (dropped) or sampling and load shedding (sampledOut)
+    private long droppedLogs;
+    private long sampledOutLogs;
+    private List<LogLevelCount> filteredByLevel;
+    // Values masked by PII scrubbing on the serving node, keyed by rule
+    private Map<String, Long> scrubbedByRule;
     
     private List<LogLevelCount> logsByLevel;
     private List<TimeSeriesPoint> logsOverTime;
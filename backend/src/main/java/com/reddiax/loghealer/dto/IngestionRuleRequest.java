@@ -0,0 +1,34 @@
+package com.reddiax.loghealer.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionRuleRequest {
+
+    @Size(max = 255)
+    private String loggerPrefix;
+
+    @Size(max = 20)
+    private String level;
+
+    @NotBlank(message = "Action is required")
+    private String action;
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private Double sampleRate;
+
+    private Integer priority;
+
+    private Boolean active;
+}
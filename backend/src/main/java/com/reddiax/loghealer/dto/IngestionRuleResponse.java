@@ -0,0 +1,27 @@
+package com.reddiax.loghealer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionRuleResponse {
+
+    private UUID id;
+    private UUID projectId;
+    private String loggerPrefix;
+    private String level;
+    private String action;
+    private Double sampleRate;
+    private int priority;
+    private boolean active;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
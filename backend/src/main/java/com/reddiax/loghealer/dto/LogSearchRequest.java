@@ -41,4 +41,7 @@ public class LogSearchRequest {
     
     @Builder.Default
     private String sortOrder = "desc";
+
+    // Lists only carry stackTraceHash; detail views resolve the traces they show
+    private boolean includeStackTraces;
 }
@@ -0,0 +1,71 @@
+package com.reddiax.loghealer.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Drops or samples a project's logs before they are indexed. A rule matches on an optional logger
+ * prefix and an optional level; rules are evaluated in ascending priority and the first match wins.
+ */
+@Entity
+@Table(name = "ingestion_rule")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestionRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    private Project project;
+
+    @Column(name = "logger_prefix")
+    private String loggerPrefix;
+
+    @Column(length = 20)
+    private String level;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Action action;
+
+    @Column(name = "sample_rate")
+    private Double sampleRate;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int priority = 0;
+
+    @Column(name = "is_active", nullable = false)
+    @Builder.Default
+    private boolean active = true;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+        updatedAt = Instant.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = Instant.now();
+    }
+
+    public enum Action {
+        DROP, SAMPLE
+    }
+}
@@ -4,6 +4,7 @@ import com.reddiax.loghealer.monitoring.dto.AlertHistoryDto;
 import com.reddiax.loghealer.monitoring.dto.AlertRuleCreateDto;
 import com.reddiax.loghealer.monitoring.dto.AlertRuleDto;
 import com.reddiax.loghealer.monitoring.entity.AlertRule;
+import com.reddiax.loghealer.monitoring.entity.AlertRuleType;
 import com.reddiax.loghealer.monitoring.entity.MonitoredService;
 import com.reddiax.loghealer.monitoring.mapper.MonitoringMapper;
 import com.reddiax.loghealer.monitoring.repository.AlertHistoryRepository;
@@ -64,7 +65,7 @@ public class MonitoringAlertController {
         MonitoredService service = serviceRepository.findById(dto.getServiceId())
                 .orElse(null);
         
-        if (service == null) {
+        if (service == null || !hasRequiredProject(dto)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -79,9 +80,13 @@ public class MonitoringAlertController {
     @PutMapping("/rules/{id}")
     @Operation(summary = "Update alert rule", description = "Updates an existing alert rule")
     public ResponseEntity<AlertRuleDto> updateRule(@PathVariable Long id, @Valid @RequestBody AlertRuleCreateDto dto) {
+        if (!hasRequiredProject(dto)) {
+            return ResponseEntity.badRequest().build();
+        }
         return alertRuleRepository.findById(id)
                 .map(rule -> {
                     rule.setName(dto.getName());
+                    rule.setProjectId(dto.getProjectId());
                     rule.setRuleType(dto.getRuleType());
                     rule.setThresholdValue(dto.getThresholdValue());
                     rule.setConsecutiveFailures(dto.getConsecutiveFailures());
@@ -93,6 +98,10 @@ public class MonitoringAlertController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private boolean hasRequiredProject(AlertRuleCreateDto dto) {
+        return dto.getRuleType() != AlertRuleType.EXCEPTION_SPIKE || dto.getProjectId() != null;
+    }
+
     @DeleteMapping("/rules/{id}")
     @Operation(summary = "Delete alert rule", description = "Deletes an alert rule")
     public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
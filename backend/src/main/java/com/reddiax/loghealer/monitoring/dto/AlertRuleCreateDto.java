@@ -11,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.UUID;
 
 @Data
 @Builder
@@ -20,6 +21,9 @@ public class AlertRuleCreateDto {
     
     @NotNull(message = "Service ID is required")
     private Long serviceId;
+
+    // Required for EXCEPTION_SPIKE rules
+    private UUID projectId;
     
     @NotBlank(message = "Name is required")
     private String name;
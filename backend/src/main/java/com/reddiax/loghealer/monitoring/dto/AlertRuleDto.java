@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 
 @Data
 @Builder
@@ -17,6 +18,7 @@ public class AlertRuleDto {
     private Long id;
     private Long serviceId;
     private String serviceName;
+    private UUID projectId;
     private String name;
     private AlertRuleType ruleType;
     private Integer thresholdValue;
@@ -6,6 +6,7 @@ import lombok.*;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 @Entity
 @Table(name = "alert_rule")
@@ -24,6 +25,10 @@ public class AlertRule {
     @JoinColumn(name = "service_id", nullable = false)
     private MonitoredService service;
 
+    // Project whose exceptions an EXCEPTION_SPIKE rule watches
+    @Column(name = "project_id")
+    private UUID projectId;
+
     @Column(nullable = false, length = 100)
     private String name;
 
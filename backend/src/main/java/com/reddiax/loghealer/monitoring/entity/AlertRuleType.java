@@ -3,5 +3,6 @@ package com.reddiax.loghealer.monitoring.entity;
 public enum AlertRuleType {
     DOWNTIME,
     SLOW_RESPONSE,
-    ERROR_RATE
+    ERROR_RATE,
+    EXCEPTION_SPIKE
 }
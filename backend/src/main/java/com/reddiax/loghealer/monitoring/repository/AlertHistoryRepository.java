@@ -15,8 +15,9 @@ import java.util.Optional;
 @Repository
 public interface AlertHistoryRepository extends JpaRepository<AlertHistory, Long> {
 
-    @Query("SELECT a FROM AlertHistory a WHERE a.rule.id = :ruleId AND a.resolvedAt IS NULL ORDER BY a.triggeredAt DESC")
-    Optional<AlertHistory> findActiveAlertByRuleId(@Param("ruleId") Long ruleId);
+    Optional<AlertHistory> findFirstByRuleIdAndResolvedAtIsNullOrderByTriggeredAtDesc(Long ruleId);
+
+    List<AlertHistory> findByRuleIdAndResolvedAtIsNullOrderByTriggeredAtDesc(Long ruleId);
 
     @Query("SELECT a FROM AlertHistory a WHERE a.service.id = :serviceId ORDER BY a.triggeredAt DESC")
     Page<AlertHistory> findByServiceId(@Param("serviceId") Long serviceId, Pageable pageable);
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
@@ -19,6 +20,11 @@ public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
             @Param("serviceId") Long serviceId,
             @Param("ruleType") AlertRuleType ruleType);
 
+    @Query("SELECT r FROM AlertRule r JOIN FETCH r.service WHERE r.projectId = :projectId AND r.ruleType = :ruleType AND r.isActive = true")
+    List<AlertRule> findActiveRulesByProjectIdAndType(
+            @Param("projectId") UUID projectId,
+            @Param("ruleType") AlertRuleType ruleType);
+
     @Query("SELECT r FROM AlertRule r JOIN FETCH r.service WHERE r.isActive = true")
     List<AlertRule> findAllActiveWithService();
 }
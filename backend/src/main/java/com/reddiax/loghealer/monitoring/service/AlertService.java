@@ -4,9 +4,12 @@ import com.reddiax.loghealer.monitoring.entity.*;
 import com.reddiax.loghealer.monitoring.repository.AlertHistoryRepository;
 import com.reddiax.loghealer.monitoring.repository.AlertRuleRepository;
 import com.reddiax.loghealer.monitoring.repository.HealthCheckRepository;
+import com.reddiax.loghealer.service.detection.ExceptionSpikeEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +17,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -35,10 +39,16 @@ public class AlertService {
     }
 
     private void evaluateRule(MonitoredService service, HealthCheck healthCheck, AlertRule rule) {
+        if (rule.getRuleType() == AlertRuleType.EXCEPTION_SPIKE) {
+            // Raised and resolved by exception spike events, not by health checks
+            return;
+        }
+
         boolean shouldTrigger = switch (rule.getRuleType()) {
             case DOWNTIME -> evaluateDowntimeRule(service, healthCheck, rule);
             case SLOW_RESPONSE -> evaluateSlowResponseRule(service, healthCheck, rule);
             case ERROR_RATE -> evaluateErrorRateRule(service, rule);
+            case EXCEPTION_SPIKE -> false;
         };
 
         if (shouldTrigger) {
@@ -95,9 +105,48 @@ public class AlertService {
         return errorRate >= rule.getThresholdValue();
     }
 
+    @Async
+    @EventListener
+    @Transactional
+    public void onExceptionSpike(ExceptionSpikeEvent event) {
+        List<AlertRule> rules = alertRuleRepository.findActiveRulesByProjectIdAndType(
+                UUID.fromString(event.projectId()), AlertRuleType.EXCEPTION_SPIKE);
+
+        for (AlertRule rule : rules) {
+            switch (event.kind()) {
+                case NEW_GROUP -> notifyNewGroup(rule.getService(), rule, String.format(
+                        "New exception in service '%s': %s",
+                        rule.getService().getName(),
+                        event.exceptionClass() != null ? event.exceptionClass() : event.fingerprint()
+                ));
+                case SPIKE -> {
+                    if (event.ratePerMinute() >= rule.getThresholdValue()) {
+                        triggerAlert(rule.getService(), rule, String.format(
+                                "Exception spike in service '%s': %s at %d/min (baseline: %.2f/min)",
+                                rule.getService().getName(),
+                                event.exceptionClass() != null ? event.exceptionClass() : event.fingerprint(),
+                                Math.round(event.ratePerMinute()),
+                                event.baselinePerMinute()
+                        ));
+                    }
+                }
+                case SUBSIDED -> {
+                    if (event.activeSpikes() == 0) {
+                        resolveAlert(rule);
+                    }
+                }
+            }
+        }
+    }
+
     @Transactional
     public void triggerAlert(MonitoredService service, HealthCheck healthCheck, AlertRule rule) {
-        Optional<AlertHistory> existingAlert = alertHistoryRepository.findActiveAlertByRuleId(rule.getId());
+        triggerAlert(service, rule, buildAlertMessage(service, healthCheck, rule));
+    }
+
+    private void triggerAlert(MonitoredService service, AlertRule rule, String message) {
+        Optional<AlertHistory> existingAlert =
+                alertHistoryRepository.findFirstByRuleIdAndResolvedAtIsNullOrderByTriggeredAtDesc(rule.getId());
 
         if (existingAlert.isPresent()) {
             AlertHistory alert = existingAlert.get();
@@ -107,16 +156,34 @@ public class AlertService {
                 log.debug("Alert for rule {} is in cooldown period", rule.getName());
                 return;
             }
+
+            // Superseded by the alert raised below, so a rule never has more than one active alert
+            alert.setResolvedAt(Instant.now());
+            alertHistoryRepository.save(alert);
+        }
+
+        raiseAlert(service, rule, message, null);
+    }
+
+    // A new group is news rather than a condition that ends, so its alert is resolved as it is raised
+    private void notifyNewGroup(MonitoredService service, AlertRule rule, String message) {
+        Instant cooldownStart = Instant.now().minus(rule.getCooldownMinutes(), ChronoUnit.MINUTES);
+        if (!alertHistoryRepository.findByRuleIdAndTriggeredAtAfter(rule.getId(), cooldownStart).isEmpty()) {
+            log.debug("Alert for rule {} is in cooldown period", rule.getName());
+            return;
         }
 
-        String message = buildAlertMessage(service, healthCheck, rule);
+        raiseAlert(service, rule, message, Instant.now());
+    }
 
+    private void raiseAlert(MonitoredService service, AlertRule rule, String message, Instant resolvedAt) {
         AlertHistory alert = AlertHistory.builder()
                 .rule(rule)
                 .service(service)
                 .alertType(rule.getRuleType())
                 .message(message)
-                .triggeredAt(Instant.now())
+                .triggeredAt(resolvedAt != null ? resolvedAt : Instant.now())
+                .resolvedAt(resolvedAt)
                 .build();
 
         alert = alertHistoryRepository.save(alert);
@@ -128,16 +195,18 @@ public class AlertService {
 
     @Transactional
     public void resolveAlert(AlertRule rule) {
-        Optional<AlertHistory> activeAlert = alertHistoryRepository.findActiveAlertByRuleId(rule.getId());
+        // Newest first; older rows are leftovers from before a rule was limited to one active alert
+        List<AlertHistory> activeAlerts = alertHistoryRepository.findByRuleIdAndResolvedAtIsNullOrderByTriggeredAtDesc(
+                rule.getId());
         
-        if (activeAlert.isPresent()) {
-            AlertHistory alert = activeAlert.get();
-            alert.setResolvedAt(Instant.now());
-            alertHistoryRepository.save(alert);
+        if (!activeAlerts.isEmpty()) {
+            Instant now = Instant.now();
+            activeAlerts.forEach(alert -> alert.setResolvedAt(now));
+            alertHistoryRepository.saveAll(activeAlerts);
             
             log.info("Alert resolved: {}", rule.getName());
 
-            sendResolutionNotification(alert, rule);
+            sendResolutionNotification(activeAlerts.get(0), rule);
         }
     }
 
@@ -160,6 +229,11 @@ public class AlertService {
                     service.getName(),
                     rule.getThresholdValue()
             );
+            case EXCEPTION_SPIKE -> String.format(
+                    "Exceptions in service '%s' are spiking above %d/min",
+                    service.getName(),
+                    rule.getThresholdValue()
+            );
         };
     }
 
@@ -2,6 +2,9 @@ package com.reddiax.loghealer.repository.jpa;
 
 import com.reddiax.loghealer.entity.AiAnalysis;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +16,8 @@ public interface AiAnalysisRepository extends JpaRepository<AiAnalysis, UUID> {
     List<AiAnalysis> findByExceptionGroupIdOrderByCreatedAtDesc(String exceptionGroupId);
 
     List<AiAnalysis> findByProjectIdOrderByCreatedAtDesc(UUID projectId);
+
+    @Modifying
+    @Query("UPDATE AiAnalysis a SET a.exceptionGroupId = :newId WHERE a.exceptionGroupId = :oldId")
+    int reassignExceptionGroup(@Param("oldId") String oldId, @Param("newId") String newId);
 }
@@ -2,6 +2,9 @@ package com.reddiax.loghealer.repository.jpa;
 
 import com.reddiax.loghealer.entity.CursorAgentTask;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,4 +21,8 @@ public interface CursorAgentTaskRepository extends JpaRepository<CursorAgentTask
     List<CursorAgentTask> findByProjectId(UUID projectId);
     
     List<CursorAgentTask> findByStatus(String status);
+
+    @Modifying
+    @Query("UPDATE CursorAgentTask t SET t.exceptionGroupId = :newId WHERE t.exceptionGroupId = :oldId")
+    int reassignExceptionGroup(@Param("oldId") String oldId, @Param("newId") String newId);
 }
@@ -4,6 +4,7 @@ import com.reddiax.loghealer.entity.FixConversation;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +22,8 @@ public interface FixConversationRepository extends JpaRepository<FixConversation
     Optional<FixConversation> findByIdWithMessages(@Param("id") UUID id);
 
     List<FixConversation> findByProjectIdOrderByCreatedAtDesc(String projectId);
+
+    @Modifying
+    @Query("UPDATE FixConversation c SET c.exceptionGroupId = :newId WHERE c.exceptionGroupId = :oldId")
+    int reassignExceptionGroup(@Param("oldId") String oldId, @Param("newId") String newId);
 }
@@ -0,0 +1,20 @@
+package com.reddiax.loghealer.repository.jpa;
+
+import com.reddiax.loghealer.entity.IngestionRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface IngestionRuleRepository extends JpaRepository<IngestionRule, UUID> {
+
+    @Query("SELECT r FROM IngestionRule r WHERE r.project.id = :projectId ORDER BY r.priority")
+    List<IngestionRule> findByProjectId(@Param("projectId") UUID projectId);
+
+    @Query("SELECT r FROM IngestionRule r JOIN FETCH r.project p WHERE r.active = true AND p.active = true")
+    List<IngestionRule> findAllActiveWithProject();
+}
@@ -10,6 +10,7 @@ import com.reddiax.loghealer.entity.Project;
 import com.reddiax.loghealer.repository.elasticsearch.ExceptionGroupRepository;
 import com.reddiax.loghealer.repository.jpa.FixConversationRepository;
 import com.reddiax.loghealer.repository.jpa.ProjectRepository;
+import com.reddiax.loghealer.service.detection.FrameworkPackages;
 import com.reddiax.loghealer.service.github.GitHubService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -305,20 +306,6 @@ public class CodeFixService {
         }
     }
 
-    private static final Set<String> FRAMEWORK_PACKAGE_PREFIXES = Set.of(
-            "java.", "javax.", "sun.", "jdk.", "com.sun.",
-            "org.springframework.", "org.apache.", "jakarta.",
-            "org.hibernate.", "com.fasterxml.", "io.netty.", "reactor.",
-            "org.slf4j.", "ch.qos.logback.", "org.aspectj.",
-            "com.zaxxer.", "org.postgresql.", "com.mysql.", "oracle.",
-            "io.micrometer.", "org.yaml.", "com.google.", "io.grpc.",
-            "org.junit.", "org.mockito.", "org.assertj."
-    );
-
-    private boolean isFrameworkPackage(String packageName) {
-        return FRAMEWORK_PACKAGE_PREFIXES.stream().anyMatch(packageName::startsWith);
-    }
-
     private List<String> extractAffectedFiles(String stackTrace, String packagePrefix) {
         List<String> files = new ArrayList<>();
         if (stackTrace == null) return files;
@@ -329,7 +316,7 @@ public class CodeFixService {
             String fileName = matcher.group(4);
 
             // Skip common framework packages
-            if (isFrameworkPackage(packageName)) {
+            if (FrameworkPackages.contains(packageName)) {
                 continue;
             }
 
@@ -1,17 +1,15 @@
 package com.reddiax.loghealer.service;
 
-import com.reddiax.loghealer.entity.Project;
-import com.reddiax.loghealer.repository.jpa.ProjectRepository;
+import com.reddiax.loghealer.service.ingestion.BulkIndexer;
+import com.reddiax.loghealer.service.ingestion.EventIndexRouter;
+import com.reddiax.loghealer.service.ingestion.EventIndexRouter.EventType;
+import com.reddiax.loghealer.service.ingestion.IngestionRateLimiter;
+import com.reddiax.loghealer.service.ingestion.ProjectContext;
+import com.reddiax.loghealer.service.ingestion.ProjectContextCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
-import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
-import org.springframework.data.elasticsearch.core.query.IndexQuery;
-import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Service
@@ -19,13 +17,19 @@ public class EventIngestionService {
 
     private static final Logger log = LoggerFactory.getLogger(EventIngestionService.class);
 
-    private final ProjectRepository projectRepository;
-    private final ElasticsearchOperations elasticsearchOperations;
-
-    public EventIngestionService(ProjectRepository projectRepository,
-                                  ElasticsearchOperations elasticsearchOperations) {
-        this.projectRepository = projectRepository;
-        this.elasticsearchOperations = elasticsearchOperations;
+    private final ProjectContextCache projectContextCache;
+    private final BulkIndexer bulkIndexer;
+    private final IngestionRateLimiter rateLimiter;
+    private final EventIndexRouter eventIndexRouter;
+
+    public EventIngestionService(ProjectContextCache projectContextCache,
+                                  BulkIndexer bulkIndexer,
+                                  IngestionRateLimiter rateLimiter,
+                                  EventIndexRouter eventIndexRouter) {
+        this.projectContextCache = projectContextCache;
+        this.bulkIndexer = bulkIndexer;
+        this.rateLimiter = rateLimiter;
+        this.eventIndexRouter = eventIndexRouter;
     }
 
     public int processEvents(String apiKey, List<Map<String, Object>> events) {
@@ -33,65 +37,42 @@ public class EventIngestionService {
             return 0;
         }
 
-        Optional<Project> projectOpt = projectRepository.findByApiKey(apiKey);
-        if (projectOpt.isEmpty()) {
-            log.warn("Invalid API key: {}", apiKey.substring(0, Math.min(8, apiKey.length())) + "...");
-            throw new IllegalArgumentException("Invalid or inactive API key");
-        }
-
-        Project project = projectOpt.get();
-        if (!project.isActive()) {
-            throw new IllegalArgumentException("Project is inactive");
-        }
-
-        List<IndexQuery> indexQueries = new ArrayList<>();
+        ProjectContext project = projectContextCache.resolve(apiKey);
+        long now = System.currentTimeMillis();
+        Date ingestedAt = new Date(now);
+        Map<String, List<Map<String, Object>>> eventsByIndex = new HashMap<>();
 
+        // Events are deserialized per request, so they are enriched in place rather than copied
         for (Map<String, Object> event : events) {
-            String type = (String) event.getOrDefault("type", "unknown");
-            String indexName = getIndexName(type);
+            EventType type = EventType.of(event.get("type"));
+            String indexName = eventIndexRouter.indexFor(type, EventIndexRouter.timestampOf(event, now));
 
-            Map<String, Object> document = new HashMap<>(event);
-            document.put("projectId", project.getId().toString());
-            document.put("projectName", project.getName());
-            document.put("tenantId", project.getTenant().getId().toString());
-            document.put("ingestedAt", new Date());
+            event.put("projectId", project.projectId());
+            event.put("projectName", project.name());
+            event.put("tenantId", project.tenantId());
+            event.put("ingestedAt", ingestedAt);
 
-            IndexQuery indexQuery = new IndexQueryBuilder()
-                    .withId(UUID.randomUUID().toString())
-                    .withObject(document)
-                    .build();
-
-            indexQueries.add(indexQuery);
-
-            if ("exception".equals(type)) {
+            if (type == EventType.EXCEPTION) {
                 log.info("Exception received: {} - {} [traceId={}, project={}]",
                         event.get("exceptionClass"),
                         event.get("exceptionMessage"),
                         event.get("traceId"),
-                        project.getName());
-            } else if ("slow_request".equals(type)) {
+                        project.name());
+            } else if (type == EventType.SLOW_REQUEST) {
                 log.info("Slow request: {} {} took {}ms [traceId={}, project={}]",
                         event.get("method"),
                         event.get("endpoint"),
                         event.get("durationMs"),
                         event.get("traceId"),
-                        project.getName());
+                        project.name());
             }
 
-            IndexCoordinates indexCoordinates = IndexCoordinates.of(indexName);
-            elasticsearchOperations.index(indexQuery, indexCoordinates);
+            eventsByIndex.computeIfAbsent(indexName, k -> new ArrayList<>()).add(event);
         }
 
-        log.debug("Indexed {} events for project {}", events.size(), project.getName());
+        eventsByIndex.forEach(bulkIndexer::addAll);
+        rateLimiter.recordEvents(project.projectId(), project.tenantId(), events.size());
+        log.debug("Queued {} events for project {} into {} indices", events.size(), project.name(), eventsByIndex.size());
         return events.size();
     }
-
-    private String getIndexName(String eventType) {
-        String dateStr = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd"));
-        return switch (eventType) {
-            case "exception" -> "loghealer-exceptions-" + dateStr;
-            case "slow_request" -> "loghealer-performance-" + dateStr;
-            default -> "loghealer-events-" + dateStr;
-        };
-    }
 }
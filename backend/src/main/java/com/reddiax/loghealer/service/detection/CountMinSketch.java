@@ -0,0 +1,58 @@
+package com.reddiax.loghealer.service.detection;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch: {@code depth} rows of {@code width} counters, each row indexed by its own mix of the key's
+ * hash. Estimates never undercount, and with conservative updates (only the smallest counters of a key are
+ * raised) they overcount by less than the plain sketch's bound of {@code 2N / width} with probability
+ * {@code 1 - 2^-depth}, N being the number of adds. Not thread-safe.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int[] counters;
+
+    CountMinSketch(int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two: " + width);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new int[depth * width];
+    }
+
+    void add(int hash) {
+        int estimate = estimate(hash);
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + index(hash, row);
+            if (counters[index] == estimate) {
+                counters[index] = estimate + 1;
+            }
+        }
+    }
+
+    int estimate(int hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    void clear() {
+        Arrays.fill(counters, 0);
+    }
+
+    // murmur3 fmix32 of the hash salted per row
+    private int index(int hash, int row) {
+        int h = hash ^ (row * 0x9e3779b9);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & (width - 1);
+    }
+}
@@ -0,0 +1,274 @@
+package com.reddiax.loghealer.service.detection;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Script;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reddiax.loghealer.document.ExceptionGroupDocument;
+import com.reddiax.loghealer.document.LogEntryDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Write-behind aggregation of exception occurrences into their groups. Occurrences are counted in a
+ * striped in-memory table keyed by project and fingerprint; every flush interval the table is swapped out
+ * and written as one {@code _bulk} request of scripted upserts. An exception storm on one fingerprint
+ * therefore costs one update per interval, and concurrent nodes add their counts instead of overwriting
+ * each other's read-modify-write.
+ * <p>
+ * Group IDs are derived from the project and fingerprint ({@link ExceptionGroupIds}), so no lookup is
+ * needed to decide between create and update: the upsert script fills in a new group, or adds the count,
+ * raises lastSeen and reopens RESOLVED groups on an existing one, atomically on the shard.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExceptionGroupAggregator {
+
+    static final String EXCEPTION_INDEX = "loghealer-exception-groups";
+    private static final int STRIPES = 16;
+
+    // Counts and dates may have been stored as strings by Spring Data (epoch millis) or as numbers by this script
+    static final String LONG_FUNCTION = """
+        long asLong(def value) {
+            return value == null ? 0L
+                : (value instanceof String ? Long.parseLong((String) value) : ((Number) value).longValue());
+        }
+        """;
+
+    private static final String UPSERT_SCRIPT = LONG_FUNCTION + """
+        if (ctx._source.isEmpty()) {
+            ctx._source.putAll(params.group);
+            ctx._source.count = 0L;
+            ctx._source.firstSeen = params.firstSeen;
+        }
+        ctx._source.count = asLong(ctx._source.count) + params.count;
+        if (params.lastSeen > asLong(ctx._source.lastSeen)) {
+            ctx._source.lastSeen = params.lastSeen;
+        }
+        if (ctx._source.status == 'RESOLVED') {
+            ctx._source.status = 'NEW';
+        }
+        """;
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ObjectMapper objectMapper;
+    private final ExceptionSpikeDetector exceptionSpikeDetector;
+
+    private final Stripe[] stripes = newStripes();
+    private final Object flushLock = new Object();
+
+    /**
+     * Counts one occurrence of the exception in {@code logEntry}, whose fingerprint is already set.
+     */
+    public void record(LogEntryDocument logEntry) {
+        String key = key(logEntry.getProjectId(), logEntry.getFingerprint());
+        long seenAt = System.currentTimeMillis();
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (stripe) {
+            Pending pending = stripe.pending.get(key);
+            if (pending == null) {
+                stripe.pending.put(key, new Pending(logEntry, seenAt));
+            } else {
+                pending.count++;
+                pending.lastSeen = Math.max(pending.lastSeen, seenAt);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${loghealer.detection.groups.flush-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, Pending> drained = drain();
+            if (drained.isEmpty()) {
+                return;
+            }
+            try {
+                write(drained);
+            } catch (Exception e) {
+                log.warn("Could not flush {} exception groups, retrying next interval: {}", drained.size(),
+                    e.getMessage());
+                drained.forEach(this::restore);
+            }
+        }
+    }
+
+    private Map<String, Pending> drain() {
+        Map<String, Pending> drained = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<String, Pending> pending;
+            synchronized (stripe) {
+                if (stripe.pending.isEmpty()) {
+                    continue;
+                }
+                pending = stripe.pending;
+                stripe.pending = new HashMap<>();
+            }
+            drained.putAll(pending);
+        }
+        return drained;
+    }
+
+    private void write(Map<String, Pending> drained) throws Exception {
+        List<String> keys = new ArrayList<>(drained.size());
+        BulkRequest.Builder request = new BulkRequest.Builder();
+        for (Map.Entry<String, Pending> entry : drained.entrySet()) {
+            Pending pending = entry.getValue();
+            String id = ExceptionGroupIds.of(pending.projectId, pending.fingerprint);
+            Script script = upsertScript(id, pending);
+            keys.add(entry.getKey());
+            request.operations(op -> op.update(u -> u.index(EXCEPTION_INDEX).id(id).retryOnConflict(3)
+                .action(a -> a.script(script).scriptedUpsert(true).upsert(Map.of()))));
+        }
+
+        BulkResponse response = elasticsearchClient.bulk(request.build());
+        int failed = 0;
+        int dropped = 0;
+        int created = 0;
+        for (int i = 0; i < response.items().size(); i++) {
+            BulkResponseItem item = response.items().get(i);
+            String key = keys.get(i);
+            if (item.error() != null) {
+                if (isRetryable(item.status())) {
+                    failed++;
+                    restore(key, drained.get(key));
+                } else {
+                    // A script or mapping error fails the same way every time; retrying would only grow the backlog
+                    dropped++;
+                    log.error("Dropping {} occurrences of exception group {}: {} {}", drained.get(key).count,
+                        item.id(), item.error().type(), item.error().reason());
+                }
+            } else if ("created".equals(item.result())) {
+                created++;
+                Pending pending = drained.get(key);
+                log.info("Created new exception group: {} (class: {})", item.id(), pending.exceptionClass);
+                exceptionSpikeDetector.groupCreated(pending.projectId, pending.fingerprint, pending.exceptionClass);
+            }
+        }
+        if (failed > 0) {
+            log.warn("Exception group flush failed for {} of {} groups, retrying next interval", failed, keys.size());
+        }
+        if (dropped > 0) {
+            log.error("Exception group flush rejected {} of {} groups", dropped, keys.size());
+        }
+        log.debug("Flushed {} exception groups ({} new)", keys.size(), created);
+    }
+
+    private Script upsertScript(String id, Pending pending) {
+        Map<String, Object> params = Map.of(
+            "group", pending.fields(id),
+            "firstSeen", pending.firstSeen,
+            "count", pending.count,
+            "lastSeen", pending.lastSeen);
+        return script(objectMapper, UPSERT_SCRIPT, params);
+    }
+
+    // Built from JSON so the request does not depend on the client's Script builder API
+    static Script script(ObjectMapper objectMapper, String source, Map<String, Object> params) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(Map.of("source", source, "params", params));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return Script.of(s -> s.withJson(new StringReader(json)));
+    }
+
+    // Rejected by load (429), a version conflict that outlasted retryOnConflict (409) or a cluster error
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 409 || status >= 500;
+    }
+
+    // Puts undelivered counts back so they are retried with the next flush
+    private void restore(String key, Pending undelivered) {
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (stripe) {
+            Pending pending = stripe.pending.get(key);
+            if (pending == null) {
+                stripe.pending.put(key, undelivered);
+            } else {
+                pending.count += undelivered.count;
+                pending.lastSeen = Math.max(pending.lastSeen, undelivered.lastSeen);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    private static String key(String projectId, String fingerprint) {
+        return projectId + ":" + fingerprint;
+    }
+
+    private static Stripe[] newStripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static final class Stripe {
+        Map<String, Pending> pending = new HashMap<>();
+    }
+
+    /**
+     * Occurrences of one group since the last flush. The first occurrence supplies the fields of a new group.
+     */
+    private static final class Pending {
+
+        final String projectId;
+        final String tenantId;
+        final String fingerprint;
+        final String exceptionClass;
+        final String message;
+        final String stackTrace;
+        final String environment;
+        final long firstSeen;
+        long count = 1;
+        long lastSeen;
+
+        Pending(LogEntryDocument logEntry, long seenAt) {
+            this.projectId = logEntry.getProjectId();
+            this.tenantId = logEntry.getTenantId();
+            this.fingerprint = logEntry.getFingerprint();
+            this.exceptionClass = logEntry.getExceptionClass();
+            this.message = ExceptionMessages.firstLine(logEntry.getMessage());
+            this.stackTrace = logEntry.getStackTrace();
+            this.environment = logEntry.getEnvironment();
+            this.firstSeen = seenAt;
+            this.lastSeen = seenAt;
+        }
+
+        // Source of a group created by this flush; counts and dates are set by the script
+        Map<String, Object> fields(String id) {
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("id", id);
+            fields.put("projectId", projectId);
+            fields.put("tenantId", tenantId);
+            fields.put("fingerprint", fingerprint);
+            fields.put("exceptionClass", exceptionClass);
+            fields.put("message", message);
+            fields.put("sampleStackTrace", stackTrace);
+            fields.put("status", ExceptionGroupDocument.ExceptionStatus.NEW.name());
+            fields.put("environment", environment);
+            fields.values().removeIf(Objects::isNull);
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.reddiax.loghealer.service.detection;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch._types.Script;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reddiax.loghealer.document.ExceptionGroupDocument;
+import com.reddiax.loghealer.repository.jpa.AiAnalysisRepository;
+import com.reddiax.loghealer.repository.jpa.CursorAgentTaskRepository;
+import com.reddiax.loghealer.repository.jpa.FixConversationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves exception groups to the {@link ExceptionGroupIds} ID new occurrences of them go to: groups created
+ * with random UUIDs, and groups whose fingerprint changed with the way fingerprints are computed. The
+ * fingerprint is recomputed from the group's sample stack trace. Each group is merged into the group at
+ * its current ID (counts added, first/last seen widened, which also folds duplicates created by racing
+ * nodes together), the AI analyses, fix conversations and agent tasks pointing at it are re-pointed, and
+ * it is deleted. Runs in the background after startup; a Redis marker per
+ * {@link StackTraceFingerprints#VERSION} makes sure only one node runs it and that it runs once per version.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExceptionGroupIdMigration {
+
+    static final String MARKER_KEY = "loghealer:migrations:exception-group-ids:v" + StackTraceFingerprints.VERSION;
+    static final String DONE = "done";
+    private static final int PAGE_SIZE = 500;
+
+    private static final String MERGE_SCRIPT = ExceptionGroupAggregator.LONG_FUNCTION + """
+        ctx._source.count = asLong(ctx._source.count) + params.count;
+        if (params.firstSeen > 0 && (ctx._source.firstSeen == null || params.firstSeen < asLong(ctx._source.firstSeen))) {
+            ctx._source.firstSeen = params.firstSeen;
+        }
+        if (params.lastSeen > asLong(ctx._source.lastSeen)) {
+            ctx._source.lastSeen = params.lastSeen;
+        }
+        if (ctx._source.lastAnalysisId == null && params.lastAnalysisId != null) {
+            ctx._source.lastAnalysisId = params.lastAnalysisId;
+        }
+        """;
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ObjectMapper objectMapper;
+    private final ExceptionDetectorService exceptionDetectorService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AiAnalysisRepository aiAnalysisRepository;
+    private final FixConversationRepository fixConversationRepository;
+    private final CursorAgentTaskRepository cursorAgentTaskRepository;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(MARKER_KEY, "running", Duration.ofHours(1));
+            if (!Boolean.TRUE.equals(acquired)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Skipping exception group ID migration, Redis unavailable: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            int moved = run();
+            stringRedisTemplate.opsForValue().set(MARKER_KEY, DONE);
+            if (moved > 0) {
+                log.info("Moved {} exception groups to their current fingerprint-derived IDs", moved);
+            }
+        } catch (Exception e) {
+            log.error("Exception group ID migration failed, it will be retried on the next start", e);
+            stringRedisTemplate.delete(MARKER_KEY);
+        }
+    }
+
+    private int run() throws IOException {
+        boolean indexExists = elasticsearchClient.indices()
+            .exists(e -> e.index(ExceptionGroupAggregator.EXCEPTION_INDEX))
+            .value();
+        if (!indexExists) {
+            return 0;
+        }
+
+        int moved = 0;
+        ResponseBody<ExceptionGroupDocument> page = elasticsearchClient.search(s -> s
+            .index(ExceptionGroupAggregator.EXCEPTION_INDEX)
+            .scroll(t -> t.time("5m"))
+            .size(PAGE_SIZE),
+            ExceptionGroupDocument.class
+        );
+        String scrollId = page.scrollId();
+        try {
+            while (!page.hits().hits().isEmpty()) {
+                moved += movePage(page.hits().hits());
+                String currentScrollId = scrollId;
+                page = elasticsearchClient.scroll(s -> s.scrollId(currentScrollId).scroll(t -> t.time("5m")),
+                    ExceptionGroupDocument.class);
+                scrollId = page.scrollId();
+            }
+        } finally {
+            String lastScrollId = scrollId;
+            if (lastScrollId != null) {
+                elasticsearchClient.clearScroll(c -> c.scrollId(lastScrollId));
+            }
+        }
+        return moved;
+    }
+
+    private int movePage(List<Hit<ExceptionGroupDocument>> hits) throws IOException {
+        Map<String, String> targets = new LinkedHashMap<>();
+        BulkRequest.Builder merges = new BulkRequest.Builder();
+        for (Hit<ExceptionGroupDocument> hit : hits) {
+            ExceptionGroupDocument group = hit.source();
+            if (group == null || group.getProjectId() == null) {
+                continue;
+            }
+            String fingerprint = group.getSampleStackTrace() != null
+                ? exceptionDetectorService.fingerprint(group.getProjectId(), group.getExceptionClass(),
+                    group.getSampleStackTrace())
+                : group.getFingerprint();
+            if (fingerprint == null) {
+                continue;
+            }
+            String target = ExceptionGroupIds.of(group.getProjectId(), fingerprint);
+            if (target.equals(hit.id())) {
+                continue;
+            }
+            targets.put(hit.id(), target);
+            Script script = mergeScript(group);
+            ExceptionGroupDocument upsert = group.toBuilder().id(target).fingerprint(fingerprint).build();
+            merges.operations(op -> op.update(u -> u.index(ExceptionGroupAggregator.EXCEPTION_INDEX).id(target)
+                .retryOnConflict(3)
+                .action(a -> a.script(script).upsert(upsert))));
+        }
+        if (targets.isEmpty()) {
+            return 0;
+        }
+
+        List<String> sources = new ArrayList<>(targets.keySet());
+        BulkResponse merged = elasticsearchClient.bulk(merges.build());
+        List<String> mergedSources = new ArrayList<>(sources.size());
+        for (int i = 0; i < merged.items().size(); i++) {
+            if (merged.items().get(i).error() == null) {
+                mergedSources.add(sources.get(i));
+            } else {
+                log.warn("Could not merge exception group {}: {}", sources.get(i), merged.items().get(i).error().reason());
+            }
+        }
+        if (mergedSources.isEmpty()) {
+            return 0;
+        }
+
+        // References move before the old groups go, so nothing ever points at a deleted group
+        transactionTemplate.executeWithoutResult(status -> mergedSources.forEach(id -> {
+            String target = targets.get(id);
+            aiAnalysisRepository.reassignExceptionGroup(id, target);
+            fixConversationRepository.reassignExceptionGroup(id, target);
+            cursorAgentTaskRepository.reassignExceptionGroup(id, target);
+        }));
+
+        // Old groups go only once their counts live on in the target
+        BulkRequest.Builder deletes = new BulkRequest.Builder();
+        mergedSources.forEach(id -> deletes.operations(op -> op.delete(d -> d
+            .index(ExceptionGroupAggregator.EXCEPTION_INDEX)
+            .id(id))));
+        BulkResponse deleted = elasticsearchClient.bulk(deletes.build());
+        for (int i = 0; i < deleted.items().size(); i++) {
+            ErrorCause error = deleted.items().get(i).error();
+            if (error != null) {
+                // Not retried: merging the group again on the next run would count its occurrences twice
+                String source = mergedSources.get(i);
+                log.error("Merged exception group {} into {} but could not delete it, delete it manually: {}",
+                    source, targets.get(source), error.reason());
+            }
+        }
+        return mergedSources.size();
+    }
+
+    private Script mergeScript(ExceptionGroupDocument group) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("count", group.getCount() != null ? group.getCount() : 0L);
+        params.put("firstSeen", group.getFirstSeen() != null ? group.getFirstSeen().toEpochMilli() : 0L);
+        params.put("lastSeen", group.getLastSeen() != null ? group.getLastSeen().toEpochMilli() : 0L);
+        params.put("lastAnalysisId", group.getLastAnalysisId());
+        return ExceptionGroupAggregator.script(objectMapper, MERGE_SCRIPT, params);
+    }
+}
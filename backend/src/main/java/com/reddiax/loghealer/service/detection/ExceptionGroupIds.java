@@ -0,0 +1,19 @@
+package com.reddiax.loghealer.service.detection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Exception group document IDs derived from the project and fingerprint, so every node addresses the
+ * same group without looking it up first. The IDs are name-based UUIDs and keep the shape of the random
+ * UUIDs earlier groups were created with.
+ */
+final class ExceptionGroupIds {
+
+    private ExceptionGroupIds() {
+    }
+
+    static String of(String projectId, String fingerprint) {
+        return UUID.nameUUIDFromBytes((projectId + ":" + fingerprint).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
@@ -0,0 +1,325 @@
+package com.reddiax.loghealer.service.detection;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The most frequent exceptions of each project over sliding windows, by fingerprint and by exception class,
+ * kept in memory so top-N queries need no index sort. Each window is a ring of panes (a window of 1h with
+ * six panes has 10-minute panes); every pane holds a Space-Saving summary per dimension for the candidates
+ * and a Count-Min sketch shared by both dimensions for the counts. A window is answered from its current
+ * pane and the full panes before it, so it covers up to one pane more than its length. Counts are the
+ * smaller of the two sketches' upper bounds, summed over the panes.
+ * <p>
+ * Panes are recycled when the first occurrence of their time slot reaches them and queries skip stale ones,
+ * so recording is O(1) per window and nothing needs to rotate in the background.
+ * <p>
+ * The sketches only see the occurrences processed by this node. Nodes that count occurrences announce it in
+ * Redis, and a window is only answered once this node has been the only one counting for all of it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExceptionHeavyHitters {
+
+    private static final String COUNTING_NODES_KEY = "loghealer:detection:top-nodes";
+
+    public enum Dimension {
+        FINGERPRINT,
+        EXCEPTION_CLASS
+    }
+
+    /**
+     * One entry of a top-N list. {@code key} is the fingerprint or the exception class; the project is null
+     * for exception classes counted over all projects.
+     */
+    public record HeavyHitter(String projectId, String key, String exceptionClass, String message, long count,
+                              Instant lastSeen) {
+    }
+
+    @Value("${loghealer.detection.top.windows:5m,1h,6h,24h}")
+    private List<String> windowNames;
+
+    @Value("${loghealer.detection.top.panes:6}")
+    private int panes;
+
+    @Value("${loghealer.detection.top.capacity:32}")
+    private int capacity;
+
+    @Value("${loghealer.detection.top.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${loghealer.detection.top.sketch-width:256}")
+    private int sketchWidth;
+
+    @Value("${loghealer.detection.top.details-size:512}")
+    private int detailsSize;
+
+    @Value("${loghealer.detection.top.max-projects:1000}")
+    private int maxProjects;
+
+    @Value("${loghealer.detection.top.heartbeat-ms:30000}")
+    private long heartbeatMs;
+
+    @Value("${loghealer.detection.node-name:}")
+    private String nodeName;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Map<String, Integer> windowIndexes = new HashMap<>();
+    private long[] paneMillis;
+    private final Map<String, ProjectSketches> projects = new ConcurrentHashMap<>();
+    private volatile boolean fullReported;
+    private long startedAt;
+    // Since when the sketches have seen every occurrence; unknown until the first heartbeat
+    private volatile long completeSince = Long.MAX_VALUE;
+    private volatile boolean recordedSinceHeartbeat;
+    private boolean othersSeen;
+
+    @PostConstruct
+    void init() {
+        nodeName = NodeNames.of(nodeName);
+        startedAt = System.currentTimeMillis();
+        paneMillis = new long[windowNames.size()];
+        for (int i = 0; i < windowNames.size(); i++) {
+            String name = windowNames.get(i).trim();
+            paneMillis[i] = Math.max(1, DurationStyle.detectAndParse(name).toMillis() / panes);
+            windowIndexes.put(name, i);
+        }
+    }
+
+    /**
+     * Counts one occurrence of the exception in {@code logEntry}, whose fingerprint is already set.
+     */
+    public void record(LogEntryDocument logEntry) {
+        record(logEntry, System.currentTimeMillis());
+    }
+
+    void record(LogEntryDocument logEntry, long now) {
+        if (!recordedSinceHeartbeat) {
+            recordedSinceHeartbeat = true;
+        }
+        ProjectSketches project = projects.get(logEntry.getProjectId());
+        if (project == null) {
+            if (projects.size() >= maxProjects) {
+                if (!fullReported) {
+                    fullReported = true;
+                    log.warn("Top exception sketches cover {} projects, new projects are not counted", projects.size());
+                }
+                return;
+            }
+            project = projects.computeIfAbsent(logEntry.getProjectId(), id -> new ProjectSketches());
+        }
+        // Only the first line is shown, and keeping just that stops the details maps from holding whole messages
+        project.record(logEntry.getFingerprint(), logEntry.getExceptionClass(),
+            ExceptionMessages.firstLine(logEntry.getMessage()), now);
+    }
+
+    /**
+     * The {@code limit} most frequent exceptions in the window named like the dashboard's time range
+     * ({@code 1h}), for one project or all of them; empty if no such window is kept or the sketches have not
+     * seen all of its occurrences.
+     */
+    public Optional<List<HeavyHitter>> top(String projectId, String window, Dimension dimension, int limit) {
+        return top(projectId, window, dimension, limit, System.currentTimeMillis());
+    }
+
+    Optional<List<HeavyHitter>> top(String projectId, String window, Dimension dimension, int limit, long now) {
+        Integer windowIndex = windowIndexes.get(window);
+        if (windowIndex == null || now - completeSince < paneMillis[windowIndex] * panes) {
+            return Optional.empty();
+        }
+        List<HeavyHitter> counted = new ArrayList<>();
+        if (projectId != null) {
+            ProjectSketches project = projects.get(projectId);
+            if (project != null) {
+                project.top(projectId, windowIndex, dimension, now, counted);
+            }
+        } else {
+            projects.forEach((id, project) -> project.top(id, windowIndex, dimension, now, counted));
+        }
+        List<HeavyHitter> hitters = projectId == null && dimension == Dimension.EXCEPTION_CLASS
+            ? mergeProjects(counted)
+            : counted;
+        hitters.sort(Comparator.comparingLong(HeavyHitter::count).reversed());
+        return Optional.of(List.copyOf(hitters.subList(0, Math.min(limit, hitters.size()))));
+    }
+
+    private static List<HeavyHitter> mergeProjects(List<HeavyHitter> hitters) {
+        Map<String, HeavyHitter> merged = new HashMap<>();
+        for (HeavyHitter hitter : hitters) {
+            merged.merge(hitter.key(), hitter, (a, b) -> {
+                HeavyHitter latest = a.lastSeen().isAfter(b.lastSeen()) ? a : b;
+                return new HeavyHitter(null, a.key(), a.exceptionClass(), latest.message(), a.count() + b.count(),
+                    latest.lastSeen());
+            });
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    // Announces that this node counts occurrences, and checks whether any other node does
+    @Scheduled(fixedDelayString = "${loghealer.detection.top.heartbeat-ms:30000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        try {
+            ZSetOperations<String, String> nodes = stringRedisTemplate.opsForZSet();
+            if (recordedSinceHeartbeat) {
+                recordedSinceHeartbeat = false;
+                nodes.add(COUNTING_NODES_KEY, nodeName, now);
+            }
+            // A node that missed two heartbeats has stopped counting
+            long liveSince = now - 3 * heartbeatMs;
+            nodes.removeRangeByScore(COUNTING_NODES_KEY, 0, liveSince - 1);
+            Set<String> live = nodes.rangeByScore(COUNTING_NODES_KEY, liveSince, Double.POSITIVE_INFINITY);
+            boolean alone = live == null || live.stream().allMatch(nodeName::equals);
+            if (!alone) {
+                othersSeen = true;
+                completeSince = Long.MAX_VALUE;
+            } else if (completeSince == Long.MAX_VALUE) {
+                // Complete since startup, or since the other nodes stopped counting
+                completeSince = othersSeen ? now : startedAt;
+            }
+        } catch (Exception e) {
+            log.debug("Could not exchange top exception heartbeats: {}", e.getMessage());
+        }
+    }
+
+    // Drops projects with no occurrences in any window
+    @Scheduled(fixedDelayString = "${loghealer.detection.top.cleanup-ms:600000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        long longest = 0;
+        for (long pane : paneMillis) {
+            longest = Math.max(longest, pane * (panes + 1));
+        }
+        long idleSince = now - longest;
+        projects.values().removeIf(project -> project.lastRecorded < idleSince);
+        if (projects.size() < maxProjects) {
+            fullReported = false;
+        }
+    }
+
+    private static int hash(String key, Dimension dimension) {
+        return key.hashCode() ^ (dimension.ordinal() * 0x9e3779b9);
+    }
+
+    private record Details(String exceptionClass, String message, long lastSeen) {
+    }
+
+    private final class ProjectSketches {
+
+        private final Pane[][] rings = new Pane[paneMillis.length][panes + 1];
+        private final Map<String, Details> fingerprintDetails = lruMap();
+        private final Map<String, Details> classDetails = lruMap();
+        volatile long lastRecorded;
+
+        synchronized void record(String fingerprint, String exceptionClass, String message, long now) {
+            String className = exceptionClass != null ? exceptionClass : "unknown";
+            for (int window = 0; window < rings.length; window++) {
+                pane(window, now / paneMillis[window]).add(fingerprint, className);
+            }
+            Details details = new Details(className, message, now);
+            fingerprintDetails.put(fingerprint, details);
+            classDetails.put(className, details);
+            lastRecorded = now;
+        }
+
+        synchronized void top(String projectId, int window, Dimension dimension, long now, List<HeavyHitter> into) {
+            long current = now / paneMillis[window];
+            List<Pane> live = new ArrayList<>(panes + 1);
+            for (Pane pane : rings[window]) {
+                if (pane != null && pane.index > current - panes - 1 && pane.index <= current) {
+                    live.add(pane);
+                }
+            }
+            Set<String> candidates = new HashSet<>();
+            live.forEach(pane -> pane.summary(dimension).forEachKey(candidates::add));
+
+            Map<String, Details> details = dimension == Dimension.FINGERPRINT ? fingerprintDetails : classDetails;
+            for (String key : candidates) {
+                int hash = hash(key, dimension);
+                long sketched = 0;
+                long summarized = 0;
+                for (Pane pane : live) {
+                    sketched += pane.counts.estimate(hash);
+                    summarized += pane.summary(dimension).upperBound(key);
+                }
+                Details detail = details.get(key);
+                into.add(new HeavyHitter(projectId, key,
+                    detail != null ? detail.exceptionClass() : (dimension == Dimension.EXCEPTION_CLASS ? key : null),
+                    detail != null ? detail.message() : null,
+                    Math.min(sketched, summarized),
+                    detail != null ? Instant.ofEpochMilli(detail.lastSeen()) : Instant.EPOCH));
+            }
+        }
+
+        private Pane pane(int window, long index) {
+            Pane[] ring = rings[window];
+            int slot = (int) (index % ring.length);
+            Pane pane = ring[slot];
+            if (pane == null) {
+                pane = new Pane();
+                ring[slot] = pane;
+            }
+            if (pane.index != index) {
+                pane.reset(index);
+            }
+            return pane;
+        }
+
+        private Map<String, Details> lruMap() {
+            return new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Details> eldest) {
+                    return size() > detailsSize;
+                }
+            };
+        }
+    }
+
+    private final class Pane {
+
+        long index = -1;
+        final SpaceSaving fingerprints = new SpaceSaving(capacity);
+        final SpaceSaving exceptionClasses = new SpaceSaving(capacity);
+        final CountMinSketch counts = new CountMinSketch(sketchDepth, sketchWidth);
+
+        void add(String fingerprint, String exceptionClass) {
+            fingerprints.add(fingerprint);
+            exceptionClasses.add(exceptionClass);
+            counts.add(hash(fingerprint, Dimension.FINGERPRINT));
+            counts.add(hash(exceptionClass, Dimension.EXCEPTION_CLASS));
+        }
+
+        SpaceSaving summary(Dimension dimension) {
+            return dimension == Dimension.FINGERPRINT ? fingerprints : exceptionClasses;
+        }
+
+        void reset(long index) {
+            this.index = index;
+            fingerprints.clear();
+            exceptionClasses.clear();
+            counts.clear();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.reddiax.loghealer.service.detection;
+
+/**
+ * The part of an exception message shown next to its group; the rest of a multi-line message is usually the
+ * stack trace or a dump of the failing input.
+ */
+public final class ExceptionMessages {
+
+    private ExceptionMessages() {
+    }
+
+    public static String firstLine(String message) {
+        if (message == null) return null;
+        int newlineIndex = message.indexOf('\n');
+        return newlineIndex > 0 ? message.substring(0, newlineIndex) : message;
+    }
+}
@@ -0,0 +1,558 @@
+package com.reddiax.loghealer.service.detection;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming spike detection over exception occurrences. Every group keeps an exponentially weighted mean
+ * and variance of its occurrences per time bucket in parallel primitive arrays, addressed by an
+ * open-addressing table on the leading 64 bits of its fingerprint, so counting an occurrence is one probe
+ * and an increment. Finished buckets are folded into the baseline as time moves on; runs of empty buckets
+ * are folded in closed form, so a group that was quiet for a day costs the same as one seen a second ago.
+ * <p>
+ * A group spikes when its current bucket reaches the minimum count, a multiple of its baseline and a number
+ * of standard deviations above it. This is checked on every occurrence, so a spike is reported while its
+ * first bucket is still filling, and again with the rate of every further bucket of the spike. The baseline is
+ * frozen during a spike (for at most one half-life, after which the new rate starts becoming the baseline), and
+ * the spike subsides with the first bucket that is not one.
+ * New groups are reported when {@link ExceptionGroupAggregator} creates them, once the
+ * {@link ExceptionGroupIdMigration} of the current fingerprint version has finished: until then, most groups
+ * created are known exceptions whose old group has not been merged into them yet.
+ * <p>
+ * Baselines are those of the occurrences processed by this node. They are snapshotted to Redis under the
+ * node's name and restored on startup, so node names should survive restarts; without a snapshot no spikes
+ * are reported until the warm-up has passed, as every group would start from a baseline of zero.
+ * <p>
+ * Nodes share their spiking groups in Redis, and published events carry the rates and baselines summed over
+ * every node the group is spiking on, and the number of groups of the project spiking on any node. A spike
+ * therefore only counts as subsided once it has on all nodes. Entries of a node that stops refreshing them
+ * expire after two buckets and ticks.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExceptionSpikeDetector {
+
+    static final String SNAPSHOT_KEY = "loghealer:detection:spike-baselines";
+    static final String SPIKING_KEY = "loghealer:detection:spiking";
+    private static final int SNAPSHOT_VERSION = 1;
+    // Snapshots of nodes that are gone expire; a baseline this old has decayed to nothing anyway
+    private static final Duration SNAPSHOT_TTL = Duration.ofDays(1);
+    private static final long EMPTY = 0L;
+    // Groups whose baseline decayed below this are dropped once idle
+    private static final double FORGOTTEN_RATE_PER_MINUTE = 0.001;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${loghealer.detection.spikes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${loghealer.detection.spikes.bucket-seconds:10}")
+    private int bucketSeconds;
+
+    @Value("${loghealer.detection.spikes.half-life-minutes:60}")
+    private double halfLifeMinutes;
+
+    @Value("${loghealer.detection.spikes.min-rate-per-minute:30}")
+    private double minRatePerMinute;
+
+    @Value("${loghealer.detection.spikes.ratio:10}")
+    private double ratio;
+
+    @Value("${loghealer.detection.spikes.z-score:6}")
+    private double zScore;
+
+    @Value("${loghealer.detection.spikes.warmup-minutes:30}")
+    private int warmupMinutes;
+
+    @Value("${loghealer.detection.spikes.max-groups:65536}")
+    private int maxGroups;
+
+    @Value("${loghealer.detection.spikes.tick-ms:5000}")
+    private long tickMs;
+
+    @Value("${loghealer.detection.node-name:}")
+    private String nodeName;
+
+    private String snapshotKey;
+    private volatile boolean groupsMigrated;
+
+    private long bucketMillis;
+    private double perMinute;
+    private double alpha;
+    private double minCount;
+    private double forgottenMean;
+    private long halfLifeBuckets;
+    private long reportSpikesFrom;
+
+    private int mask;
+    private int size;
+    private long[] keys;
+    private String[] projectIds;
+    private String[] fingerprints;
+    private String[] exceptionClasses;
+    private long[] buckets;
+    private int[] counts;
+    private double[] means;
+    private double[] variances;
+    private boolean[] spiking;
+    private long[] spikeStarts;
+    private final Map<String, Integer> activeSpikes = new HashMap<>();
+    private boolean fullReported;
+
+    @PostConstruct
+    void init() {
+        bucketMillis = bucketSeconds * 1000L;
+        perMinute = 60.0 / bucketSeconds;
+        halfLifeBuckets = Math.max(1, Math.round(halfLifeMinutes * perMinute));
+        alpha = 1 - Math.pow(0.5, 1.0 / halfLifeBuckets);
+        minCount = minRatePerMinute / perMinute;
+        forgottenMean = FORGOTTEN_RATE_PER_MINUTE / perMinute;
+        nodeName = NodeNames.of(nodeName);
+        snapshotKey = SNAPSHOT_KEY + ":" + nodeName;
+
+        int capacity = Integer.highestOneBit(Math.max(16, maxGroups * 4 / 3)) << 1;
+        mask = capacity - 1;
+        keys = new long[capacity];
+        projectIds = new String[capacity];
+        fingerprints = new String[capacity];
+        exceptionClasses = new String[capacity];
+        buckets = new long[capacity];
+        counts = new int[capacity];
+        means = new double[capacity];
+        variances = new double[capacity];
+        spiking = new boolean[capacity];
+        spikeStarts = new long[capacity];
+
+        long bucket = currentBucket();
+        reportSpikesFrom = restore() ? bucket : bucket + Math.round(warmupMinutes * perMinute);
+    }
+
+    /**
+     * Counts one occurrence of the exception in {@code logEntry}, whose fingerprint is already set.
+     */
+    public void record(LogEntryDocument logEntry) {
+        if (!enabled) {
+            return;
+        }
+        long bucket = currentBucket();
+        ExceptionSpikeEvent subsided;
+        ExceptionSpikeEvent spike = null;
+        synchronized (this) {
+            int slot = find(key(logEntry.getFingerprint()));
+            if (slot < 0) {
+                slot = insert(-slot - 1, logEntry.getProjectId(), logEntry.getFingerprint(), bucket);
+                if (slot < 0) {
+                    return;
+                }
+            }
+            if (exceptionClasses[slot] == null) {
+                exceptionClasses[slot] = logEntry.getExceptionClass();
+            }
+            subsided = advance(slot, bucket);
+            int count = ++counts[slot];
+            if (!spiking[slot] && bucket >= reportSpikesFrom && isSpike(slot, count)) {
+                spike = startSpike(slot, bucket, count);
+            }
+        }
+        publish(subsided);
+        publish(spike);
+    }
+
+    /**
+     * Reports a group seen for the first time by any node.
+     */
+    public void groupCreated(String projectId, String fingerprint, String exceptionClass) {
+        if (!enabled || !groupsMigrated()) {
+            return;
+        }
+        ExceptionSpikeEvent event;
+        synchronized (this) {
+            int slot = find(key(fingerprint));
+            double rate = slot >= 0 ? counts[slot] * perMinute : 0;
+            event = new ExceptionSpikeEvent(ExceptionSpikeEvent.Kind.NEW_GROUP, projectId, fingerprint,
+                exceptionClass, rate, 0, activeSpikes.getOrDefault(projectId, 0), Instant.now());
+        }
+        publish(event);
+    }
+
+    private boolean groupsMigrated() {
+        if (!groupsMigrated) {
+            try {
+                groupsMigrated = ExceptionGroupIdMigration.DONE.equals(
+                    stringRedisTemplate.opsForValue().get(ExceptionGroupIdMigration.MARKER_KEY));
+            } catch (Exception e) {
+                log.debug("Could not check the exception group ID migration: {}", e.getMessage());
+            }
+        }
+        return groupsMigrated;
+    }
+
+    // Moves idle groups to the current bucket, so spikes subside without further occurrences
+    @Scheduled(fixedDelayString = "${loghealer.detection.spikes.tick-ms:5000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        long bucket = currentBucket();
+        List<ExceptionSpikeEvent> events = new ArrayList<>();
+        synchronized (this) {
+            List<Long> forgotten = new ArrayList<>();
+            for (int slot = 0; slot <= mask; slot++) {
+                if (keys[slot] == EMPTY) {
+                    continue;
+                }
+                ExceptionSpikeEvent event = advance(slot, bucket);
+                if (event != null) {
+                    events.add(event);
+                }
+                if (!spiking[slot] && counts[slot] == 0 && means[slot] < forgottenMean) {
+                    forgotten.add(keys[slot]);
+                }
+            }
+            for (long key : forgotten) {
+                remove(find(key));
+            }
+        }
+        events.forEach(this::publish);
+    }
+
+    private ExceptionSpikeEvent advance(int slot, long bucket) {
+        long elapsed = bucket - buckets[slot];
+        if (elapsed <= 0) {
+            return null;
+        }
+        int count = counts[slot];
+        boolean spikeBucket = spiking[slot] && isSpike(slot, count);
+        ExceptionSpikeEvent event = null;
+        if (spiking[slot] && (!spikeBucket || elapsed > 1)) {
+            event = endSpike(slot, count);
+        } else if (spikeBucket) {
+            // The spike was reported while its first bucket filled; report the rate every bucket reaches
+            event = event(ExceptionSpikeEvent.Kind.SPIKE, slot, count);
+        }
+        if (!spikeBucket || buckets[slot] - spikeStarts[slot] >= halfLifeBuckets) {
+            fold(slot, count);
+        }
+        decay(slot, elapsed - 1);
+        buckets[slot] = bucket;
+        counts[slot] = 0;
+        return event;
+    }
+
+    private boolean isSpike(int slot, int count) {
+        if (count < minCount) {
+            return false;
+        }
+        double mean = means[slot];
+        return count >= ratio * mean && count > mean + zScore * Math.sqrt(variances[slot]);
+    }
+
+    private ExceptionSpikeEvent startSpike(int slot, long bucket, int count) {
+        spiking[slot] = true;
+        spikeStarts[slot] = bucket;
+        activeSpikes.merge(projectIds[slot], 1, Integer::sum);
+        log.warn("Exception spike in project {}: {} ({}/min, baseline {}/min)", projectIds[slot],
+            exceptionClasses[slot], Math.round(count * perMinute), String.format("%.2f", means[slot] * perMinute));
+        return event(ExceptionSpikeEvent.Kind.SPIKE, slot, count);
+    }
+
+    private ExceptionSpikeEvent endSpike(int slot, int count) {
+        spiking[slot] = false;
+        activeSpikes.computeIfPresent(projectIds[slot], (project, active) -> active > 1 ? active - 1 : null);
+        return event(ExceptionSpikeEvent.Kind.SUBSIDED, slot, count);
+    }
+
+    private ExceptionSpikeEvent event(ExceptionSpikeEvent.Kind kind, int slot, int count) {
+        return new ExceptionSpikeEvent(kind, projectIds[slot], fingerprints[slot], exceptionClasses[slot],
+            count * perMinute, means[slot] * perMinute, activeSpikes.getOrDefault(projectIds[slot], 0),
+            Instant.now());
+    }
+
+    // Exponentially weighted mean and variance update with one bucket's count
+    void fold(int slot, int count) {
+        double diff = count - means[slot];
+        double increment = alpha * diff;
+        means[slot] += increment;
+        variances[slot] = (1 - alpha) * (variances[slot] + diff * increment);
+    }
+
+    // The same as folding n empty buckets one by one
+    void decay(int slot, long n) {
+        if (n <= 0) {
+            return;
+        }
+        double keep = Math.pow(1 - alpha, n);
+        double mean = means[slot];
+        variances[slot] = keep * (variances[slot] + mean * mean * (1 - keep));
+        means[slot] = mean * keep;
+    }
+
+    private void publish(ExceptionSpikeEvent event) {
+        if (event == null) {
+            return;
+        }
+        eventPublisher.publishEvent(event.kind() == ExceptionSpikeEvent.Kind.NEW_GROUP ? event : clusterWide(event));
+    }
+
+    // Shares this node's part of the spike and returns the event as seen by all nodes together
+    private ExceptionSpikeEvent clusterWide(ExceptionSpikeEvent event) {
+        String key = SPIKING_KEY + ":" + event.projectId();
+        String field = event.fingerprint() + "|" + nodeName;
+        long now = System.currentTimeMillis();
+        try {
+            HashOperations<String, String, String> spikes = stringRedisTemplate.opsForHash();
+            if (event.kind() == ExceptionSpikeEvent.Kind.SUBSIDED) {
+                spikes.delete(key, field);
+            } else {
+                long expiresAt = now + 2 * (bucketMillis + tickMs);
+                spikes.put(key, field, event.ratePerMinute() + "|" + event.baselinePerMinute() + "|" + expiresAt);
+                stringRedisTemplate.expireAt(key, Instant.ofEpochMilli(expiresAt));
+            }
+
+            double rate = 0;
+            double baseline = 0;
+            Set<String> spiking = new HashSet<>();
+            List<Object> expired = new ArrayList<>();
+            for (Map.Entry<String, String> entry : spikes.entries(key).entrySet()) {
+                String[] values = entry.getValue().split("\\|");
+                if (Long.parseLong(values[2]) < now) {
+                    expired.add(entry.getKey());
+                    continue;
+                }
+                String fingerprint = entry.getKey().substring(0, entry.getKey().lastIndexOf('|'));
+                spiking.add(fingerprint);
+                if (fingerprint.equals(event.fingerprint())) {
+                    rate += Double.parseDouble(values[0]);
+                    baseline += Double.parseDouble(values[1]);
+                }
+            }
+            if (!expired.isEmpty()) {
+                spikes.delete(key, expired.toArray());
+            }
+            if (event.kind() == ExceptionSpikeEvent.Kind.SUBSIDED) {
+                rate = event.ratePerMinute();
+                baseline = event.baselinePerMinute();
+            }
+            return new ExceptionSpikeEvent(event.kind(), event.projectId(), event.fingerprint(),
+                event.exceptionClass(), rate, baseline, spiking.size(), event.detectedAt());
+        } catch (Exception e) {
+            log.warn("Could not share exception spike state, reporting this node's: {}", e.getMessage());
+            return event;
+        }
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    // Fingerprints are hex hashes; their first 16 digits are as good a key as the whole
+    static long key(String fingerprint) {
+        long key = 0;
+        int digits = Math.min(16, fingerprint.length());
+        for (int i = 0; i < digits; i++) {
+            char c = fingerprint.charAt(i);
+            int digit = Character.digit(c, 16);
+            key = (key << 4) | (digit >= 0 ? digit : c & 0xf);
+        }
+        return key == EMPTY ? 1 : key;
+    }
+
+    // The slot holding key, or -(free slot + 1) where it would go
+    int find(long key) {
+        int slot = (int) key & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    int insert(int slot, String projectId, String fingerprint, long bucket) {
+        if (size >= maxGroups) {
+            if (!fullReported) {
+                fullReported = true;
+                log.warn("Exception spike detector is tracking {} groups, new groups are not tracked", size);
+            }
+            return -1;
+        }
+        size++;
+        keys[slot] = key(fingerprint);
+        projectIds[slot] = projectId;
+        fingerprints[slot] = fingerprint;
+        buckets[slot] = bucket;
+        return slot;
+    }
+
+    // Linear-probing removal: later entries of the probe run are shifted back into the hole
+    void remove(int slot) {
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = (int) keys[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                move(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        projectIds[hole] = null;
+        fingerprints[hole] = null;
+        exceptionClasses[hole] = null;
+        buckets[hole] = 0;
+        counts[hole] = 0;
+        means[hole] = 0;
+        variances[hole] = 0;
+        spiking[hole] = false;
+        spikeStarts[hole] = 0;
+        size--;
+        fullReported = false;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        projectIds[to] = projectIds[from];
+        fingerprints[to] = fingerprints[from];
+        exceptionClasses[to] = exceptionClasses[from];
+        buckets[to] = buckets[from];
+        counts[to] = counts[from];
+        means[to] = means[from];
+        variances[to] = variances[from];
+        spiking[to] = spiking[from];
+        spikeStarts[to] = spikeStarts[from];
+    }
+
+    @Scheduled(fixedDelayString = "${loghealer.detection.spikes.snapshot-ms:60000}",
+        initialDelayString = "${loghealer.detection.spikes.snapshot-ms:60000}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        byte[] snapshot;
+        synchronized (this) {
+            snapshot = serialize();
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(snapshotKey, Base64.getEncoder().encodeToString(snapshot),
+                SNAPSHOT_TTL);
+        } catch (Exception e) {
+            log.warn("Could not snapshot exception rate baselines: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshot();
+    }
+
+    private byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + size * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(bucketSeconds);
+            out.writeInt(size);
+            for (int slot = 0; slot <= mask; slot++) {
+                if (keys[slot] == EMPTY) {
+                    continue;
+                }
+                out.writeUTF(projectIds[slot]);
+                out.writeUTF(fingerprints[slot]);
+                out.writeUTF(exceptionClasses[slot] != null ? exceptionClasses[slot] : "");
+                out.writeLong(buckets[slot]);
+                out.writeInt(counts[slot]);
+                out.writeDouble(means[slot]);
+                out.writeDouble(variances[slot]);
+                out.writeBoolean(spiking[slot]);
+                out.writeLong(spikeStarts[slot]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Whether baselines were restored from a snapshot
+    private boolean restore() {
+        if (!enabled) {
+            return false;
+        }
+        String encoded;
+        try {
+            encoded = stringRedisTemplate.opsForValue().get(snapshotKey);
+        } catch (Exception e) {
+            log.warn("Could not load exception rate baselines: {}", e.getMessage());
+            return false;
+        }
+        if (encoded == null) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))) {
+            if (in.readInt() != SNAPSHOT_VERSION || in.readInt() != bucketSeconds) {
+                log.info("Ignoring exception rate baselines snapshotted with other settings");
+                return false;
+            }
+            int entries = in.readInt();
+            synchronized (this) {
+                for (int i = 0; i < entries; i++) {
+                    String projectId = in.readUTF();
+                    String fingerprint = in.readUTF();
+                    String exceptionClass = in.readUTF();
+                    long bucket = in.readLong();
+                    int count = in.readInt();
+                    double mean = in.readDouble();
+                    double variance = in.readDouble();
+                    boolean wasSpiking = in.readBoolean();
+                    long spikeStart = in.readLong();
+
+                    int slot = find(key(fingerprint));
+                    if (slot >= 0 || (slot = insert(-slot - 1, projectId, fingerprint, bucket)) < 0) {
+                        continue;
+                    }
+                    exceptionClasses[slot] = exceptionClass.isEmpty() ? null : exceptionClass;
+                    counts[slot] = count;
+                    means[slot] = mean;
+                    variances[slot] = variance;
+                    spiking[slot] = wasSpiking;
+                    spikeStarts[slot] = spikeStart;
+                    if (wasSpiking) {
+                        activeSpikes.merge(projectId, 1, Integer::sum);
+                    }
+                }
+            }
+            log.info("Restored exception rate baselines of {} groups", size);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not read exception rate baselines snapshot: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.reddiax.loghealer.service.detection;
+
+import java.time.Instant;
+
+/**
+ * A change in how often an exception group occurs, published by {@link ExceptionSpikeDetector}. A spike is
+ * published when it starts and then once per bucket with that bucket's rate, so listeners comparing the rate
+ * to a threshold see the peak. Rates are occurrences per minute, summed over the nodes the group spikes on;
+ * {@code activeSpikes} is the number of groups of the project spiking on any node once this event has been
+ * applied.
+ */
+public record ExceptionSpikeEvent(
+    Kind kind,
+    String projectId,
+    String fingerprint,
+    String exceptionClass,
+    double ratePerMinute,
+    double baselinePerMinute,
+    int activeSpikes,
+    Instant detectedAt
+) {
+
+    public enum Kind {
+        NEW_GROUP,
+        SPIKE,
+        SUBSIDED
+    }
+}
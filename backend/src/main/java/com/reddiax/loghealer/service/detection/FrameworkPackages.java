@@ -0,0 +1,37 @@
+package com.reddiax.loghealer.service.detection;
+
+import java.util.List;
+
+/**
+ * Package prefixes of the JDK, common frameworks and libraries. Stack frames in these packages are not
+ * the application's own code: they are skipped when fingerprinting exceptions and when locating the files
+ * a fix has to touch.
+ */
+public final class FrameworkPackages {
+
+    private static final List<String> PREFIXES = List.of(
+        "java.", "javax.", "sun.", "jdk.", "com.sun.",
+        "org.springframework.", "org.apache.", "jakarta.",
+        "org.hibernate.", "com.fasterxml.", "io.netty.", "reactor.",
+        "org.slf4j.", "ch.qos.logback.", "org.aspectj.",
+        "com.zaxxer.", "org.postgresql.", "com.mysql.", "oracle.",
+        "io.micrometer.", "org.yaml.", "com.google.", "io.grpc.",
+        "org.junit.", "org.mockito.", "org.assertj.",
+        "kotlin.", "kotlinx.", "org.eclipse.jetty.", "io.undertow.", "io.opentelemetry."
+    );
+
+    private FrameworkPackages() {
+    }
+
+    /**
+     * Whether a package or fully qualified class name belongs to a framework package.
+     */
+    public static boolean contains(String qualifiedName) {
+        for (String prefix : PREFIXES) {
+            if (qualifiedName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package com.reddiax.loghealer.service.detection;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * The name detection state of this node is kept under in Redis: {@code loghealer.detection.node-name}, or
+ * the host name when that is not set.
+ */
+final class NodeNames {
+
+    private NodeNames() {
+    }
+
+    static String of(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "loghealer-" + ProcessHandle.current().pid();
+        }
+    }
+}
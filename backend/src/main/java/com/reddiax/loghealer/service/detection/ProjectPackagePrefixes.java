@@ -0,0 +1,52 @@
+package com.reddiax.loghealer.service.detection;
+
+import com.reddiax.loghealer.entity.Project;
+import com.reddiax.loghealer.repository.jpa.ProjectRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The package prefix of every project that has one, reloaded periodically so fingerprinting an exception
+ * needs no database lookup. They are loaded before ingestion starts, as exceptions fingerprinted without
+ * their project's prefix would start new groups. For the same reason, changing a project's prefix starts
+ * new groups for its exceptions.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectPackagePrefixes {
+
+    private final ProjectRepository projectRepository;
+
+    private volatile Map<String, String> prefixes = Map.of();
+
+    /**
+     * The project's package prefix, or null if it has none.
+     */
+    public String of(String projectId) {
+        return projectId != null ? prefixes.get(projectId) : null;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${loghealer.detection.fingerprint.package-prefix-refresh-ms:60000}")
+    public void refresh() {
+        try {
+            Map<String, String> loaded = new HashMap<>();
+            for (Project project : projectRepository.findAllWithPackagePrefix()) {
+                if (!project.getPackagePrefix().isBlank()) {
+                    loaded.put(project.getId().toString(), project.getPackagePrefix().strip());
+                }
+            }
+            prefixes = loaded;
+        } catch (Exception e) {
+            log.warn("Could not refresh project package prefixes, keeping {} cached: {}",
+                prefixes.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.reddiax.loghealer.service.detection;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Space-Saving summary of the most frequent keys of a stream, in {@code capacity} counters. Once full, a new
+ * key takes over the counter with the smallest count and adds to it, so every count is an upper bound and
+ * every key occurring more than {@code N / capacity} times is kept. A key that is not kept occurred at most as
+ * often as the smallest count. Not thread-safe.
+ */
+final class SpaceSaving {
+
+    private final String[] keys;
+    private final long[] counts;
+    private final Map<String, Integer> slots;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    void add(String key) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot]++;
+            return;
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = 1;
+            slots.put(key, size++);
+            return;
+        }
+        int min = minSlot();
+        slots.remove(keys[min]);
+        keys[min] = key;
+        counts[min]++;
+        slots.put(key, min);
+    }
+
+    /**
+     * The most {@code key} can have occurred: its count if kept, the smallest count if not.
+     */
+    long upperBound(String key) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            return counts[slot];
+        }
+        return size < keys.length ? 0 : counts[minSlot()];
+    }
+
+    void forEachKey(Consumer<String> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i]);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(counts, 0, size, 0);
+        slots.clear();
+        size = 0;
+    }
+
+    private int minSlot() {
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        return min;
+    }
+}
@@ -0,0 +1,220 @@
+package com.reddiax.loghealer.service.detection;
+
+/**
+ * Exception fingerprints: a 128-bit hash, as 32 hex digits. Java traces are fingerprinted by the project and
+ * their {@link StackTraceParser.Signature}. Traces without Java frames fall back to the project, the exception
+ * class and the first five lines of the trace with line numbers ({@code :123)} becomes {@code :X)}) and
+ * lowercase hex addresses ({@code @1a2b} becomes {@code @X}) masked, each line trimmed.
+ * <p>
+ * Everything is streamed straight into a MurmurHash3 x64 128-bit hasher; the line-based fallback normalizes
+ * the trace in a single scan, without splitting it into lines, running regexes or building the normalized text.
+ */
+public final class StackTraceFingerprints {
+
+    /**
+     * Raised whenever the same trace starts getting a different fingerprint, so that
+     * {@link ExceptionGroupIdMigration} merges existing groups into the groups new occurrences go to.
+     */
+    public static final int VERSION = 3;
+
+    private static final int FINGERPRINT_LINES = 5;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private StackTraceFingerprints() {
+    }
+
+    public static String of(String projectId, StackTraceParser.Signature signature) {
+        Murmur3 hash = new Murmur3();
+        hash.putChars(String.valueOf(projectId));
+        hash.putChar('\n');
+        hash.putChars(signature.rootCauseClass());
+        for (StackTraceParser.Frame frame : signature.frames()) {
+            hash.putChar('\n');
+            hash.putChars(frame.className());
+            hash.putChar('.');
+            hash.putChars(frame.method());
+        }
+        return hash.toHex();
+    }
+
+    public static String of(String projectId, String exceptionClass, String stackTrace) {
+        Murmur3 hash = new Murmur3();
+        hash.putChars(String.valueOf(projectId));
+        if (exceptionClass != null) {
+            hash.putChars(exceptionClass);
+        }
+        if (stackTrace != null) {
+            normalizeInto(stackTrace, hash);
+        }
+        return hash.toHex();
+    }
+
+    /**
+     * Hash of the raw trace text, for caching what was derived from it.
+     */
+    public static String rawHash(String stackTrace) {
+        Murmur3 hash = new Murmur3();
+        hash.putChars(stackTrace);
+        return hash.toHex();
+    }
+
+    private static void normalizeInto(String trace, Murmur3 hash) {
+        int length = trace.length();
+        int lineStart = 0;
+        for (int line = 0; line < FINGERPRINT_LINES && lineStart <= length; line++) {
+            int lineEnd = trace.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            int start = lineStart;
+            int end = lineEnd;
+            while (start < end && trace.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && trace.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            normalizeLine(trace, start, end, hash);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static void normalizeLine(String trace, int start, int end, Murmur3 hash) {
+        int i = start;
+        while (i < end) {
+            char c = trace.charAt(i);
+            if (c == ':') {
+                int j = i + 1;
+                while (j < end && isDigit(trace.charAt(j))) {
+                    j++;
+                }
+                if (j > i + 1 && j < end && trace.charAt(j) == ')') {
+                    hash.putChar(':');
+                    hash.putChar('X');
+                    hash.putChar(')');
+                    i = j + 1;
+                    continue;
+                }
+            } else if (c == '@') {
+                int j = i + 1;
+                while (j < end && isLowerHex(trace.charAt(j))) {
+                    j++;
+                }
+                if (j > i + 1) {
+                    hash.putChar('@');
+                    hash.putChar('X');
+                    i = j;
+                    continue;
+                }
+            }
+            hash.putChar(c);
+            i++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLowerHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+    }
+
+    /**
+     * Streaming MurmurHash3 x64 128-bit (seed 0) over UTF-16LE code units, so the result equals hashing
+     * the text's UTF-16LE bytes. Eight chars fill one 16-byte block.
+     */
+    private static final class Murmur3 {
+
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private long h1;
+        private long h2;
+        private long k1;
+        private long k2;
+        private int pending;
+        private long length;
+
+        void putChars(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                putChar(value.charAt(i));
+            }
+        }
+
+        void putChar(char c) {
+            if (pending < 4) {
+                k1 |= (long) c << (pending << 4);
+            } else {
+                k2 |= (long) c << ((pending - 4) << 4);
+            }
+            length += 2;
+            if (++pending == 8) {
+                mixBlock();
+                k1 = 0;
+                k2 = 0;
+                pending = 0;
+            }
+        }
+
+        private void mixBlock() {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        String toHex() {
+            if (pending > 0) {
+                h1 ^= mixK1(k1);
+                h2 ^= mixK2(k2);
+            }
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+
+            char[] hex = new char[32];
+            writeHex(hex, 0, h1);
+            writeHex(hex, 16, h2);
+            return new String(hex);
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            return k1 * C2;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            return k2 * C1;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private static void writeHex(char[] target, int offset, long value) {
+            for (int i = 15; i >= 0; i--) {
+                target[offset + i] = HEX[(int) (value & 0xf)];
+                value >>>= 4;
+            }
+        }
+    }
+}
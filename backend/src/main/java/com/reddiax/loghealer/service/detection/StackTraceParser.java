@@ -0,0 +1,223 @@
+package com.reddiax.loghealer.service.detection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Turns Java stack traces into the part of them that identifies a bug: the root cause's exception class and
+ * its top in-app frames. Traces are parsed into a cause chain of structured frames; suppressed exceptions
+ * and {@code ... n more} markers are skipped, generated class and method suffixes (CGLIB and ByteBuddy
+ * proxies, lambdas, {@code $Proxy123}, {@code lambda$ship$0}) are stripped. In-app frames are those under
+ * the project's package prefix when it has one and any appear, otherwise those outside
+ * {@link FrameworkPackages}. Frames are taken from the root cause first and then from the exceptions
+ * wrapping it, since a cause's frames shared with its wrapper are elided.
+ * <p>
+ * Signatures are cached by a hash of the raw trace, as the same trace tends to repeat many times.
+ */
+@Component
+public class StackTraceParser {
+
+    private static final String CAUSED_BY = "Caused by:";
+    private static final String[] GENERATED_CLASS_MARKERS = {"$$", "$HibernateProxy$", "$ByteBuddy$", "$MockitoMock$"};
+
+    @Value("${loghealer.detection.fingerprint.in-app-frames:5}")
+    private int inAppFrames;
+
+    @Value("${loghealer.detection.fingerprint.cache-size:4096}")
+    private int cacheSize;
+
+    private final Map<String, Optional<Signature>> signatures = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Optional<Signature>> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * The root cause class and top in-app frames of a trace, or empty when the trace has no Java frames.
+     * {@code packagePrefix} is the project's own package, or null if it has none.
+     */
+    public Optional<Signature> signature(String stackTrace, String packagePrefix) {
+        if (stackTrace == null || stackTrace.isBlank()) {
+            return Optional.empty();
+        }
+        String key = packagePrefix != null
+            ? StackTraceFingerprints.rawHash(stackTrace) + ':' + packagePrefix
+            : StackTraceFingerprints.rawHash(stackTrace);
+        synchronized (signatures) {
+            Optional<Signature> cached = signatures.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Optional<Signature> signature = select(parse(stackTrace), packagePrefix);
+        synchronized (signatures) {
+            signatures.put(key, signature);
+        }
+        return signature;
+    }
+
+    private Optional<Signature> select(List<Cause> causes, String packagePrefix) {
+        if (causes.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Frame> selected = packagePrefix != null
+            ? inAppFrames(causes, frame -> frame.className().startsWith(packagePrefix))
+            : List.of();
+        if (selected.isEmpty()) {
+            selected = inAppFrames(causes, frame -> !FrameworkPackages.contains(frame.className()));
+        }
+        Cause root = causes.get(causes.size() - 1);
+        // Failures entirely inside libraries are still told apart by where they happened
+        if (selected.isEmpty()) {
+            selected = root.frames().stream().limit(inAppFrames).toList();
+        }
+        if (selected.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Signature(root.exceptionClass(), List.copyOf(selected)));
+    }
+
+    private List<Frame> inAppFrames(List<Cause> causes, Predicate<Frame> inApp) {
+        List<Frame> selected = new ArrayList<>(inAppFrames);
+        for (int c = causes.size() - 1; c >= 0 && selected.size() < inAppFrames; c--) {
+            for (Frame frame : causes.get(c).frames()) {
+                if (selected.size() == inAppFrames) {
+                    break;
+                }
+                boolean repeated = !selected.isEmpty() && selected.get(selected.size() - 1).equals(frame);
+                if (!repeated && inApp.test(frame)) {
+                    selected.add(frame);
+                }
+            }
+        }
+        return selected;
+    }
+
+    static List<Cause> parse(String stackTrace) {
+        List<Cause> causes = new ArrayList<>();
+        List<Frame> frames = null;
+        boolean suppressed = false;
+        int length = stackTrace.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = stackTrace.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            String line = stackTrace.substring(lineStart, lineEnd);
+            boolean indented = !line.isEmpty() && line.charAt(0) <= ' ';
+            String text = line.strip();
+            lineStart = lineEnd + 1;
+
+            if (text.startsWith("at ")) {
+                if (frames != null && !suppressed) {
+                    Frame frame = frame(text.substring(3));
+                    if (frame != null) {
+                        frames.add(frame);
+                    }
+                }
+            } else if (text.startsWith(CAUSED_BY) && !indented) {
+                suppressed = false;
+                frames = new ArrayList<>();
+                causes.add(new Cause(exceptionClass(text.substring(CAUSED_BY.length()).strip()), frames));
+            } else if (text.startsWith("Suppressed:") || (text.startsWith(CAUSED_BY) && indented)) {
+                suppressed = true;
+            } else if (causes.isEmpty() && !text.isEmpty() && !text.startsWith("...")) {
+                // The first line that names a class heads the trace; loggers may put the message before it
+                String exceptionClass = exceptionClass(text);
+                if (isClassName(exceptionClass)) {
+                    frames = new ArrayList<>();
+                    causes.add(new Cause(exceptionClass, frames));
+                }
+            }
+        }
+        return causes;
+    }
+
+    // "java.base/pkg.Type$$SpringCGLIB$$0.method(Type.java:12)" -> pkg.Type, method
+    private static Frame frame(String location) {
+        int paren = location.indexOf('(');
+        String qualified = paren >= 0 ? location.substring(0, paren) : location;
+        // Module or class loader prefix ("java.base/", "app//"); a slash after a '$' belongs to a lambda class
+        int slash = qualified.indexOf('/');
+        if (slash >= 0 && qualified.lastIndexOf('$', slash) < 0) {
+            while (slash < qualified.length() && qualified.charAt(slash) == '/') {
+                slash++;
+            }
+            qualified = qualified.substring(slash);
+        }
+        int dot = qualified.lastIndexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        return new Frame(className(qualified.substring(0, dot)), methodName(qualified.substring(dot + 1)));
+    }
+
+    private static String className(String name) {
+        for (String marker : GENERATED_CLASS_MARKERS) {
+            int index = name.indexOf(marker);
+            if (index > 0) {
+                name = name.substring(0, index);
+            }
+        }
+        int simple = name.lastIndexOf('.') + 1;
+        if (name.startsWith("$Proxy", simple) || name.startsWith("GeneratedMethodAccessor", simple)) {
+            name = stripTrailingDigits(name);
+        }
+        return name;
+    }
+
+    // lambda$ship$0 -> lambda$ship, access$000 -> access
+    private static String methodName(String name) {
+        String stripped = stripTrailingDigits(name);
+        return stripped.length() < name.length() && stripped.endsWith("$")
+            ? stripped.substring(0, stripped.length() - 1)
+            : name;
+    }
+
+    private static String stripTrailingDigits(String name) {
+        int end = name.length();
+        while (end > 0 && Character.isDigit(name.charAt(end - 1))) {
+            end--;
+        }
+        return name.substring(0, end);
+    }
+
+    private static String exceptionClass(String header) {
+        int end = 0;
+        while (end < header.length() && header.charAt(end) != ':' && !Character.isWhitespace(header.charAt(end))) {
+            end++;
+        }
+        return header.substring(0, end);
+    }
+
+    private static boolean isClassName(String name) {
+        if (name.indexOf('.') <= 0 || name.endsWith(".")) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) && c != '.') {
+                return false;
+            }
+        }
+        return Character.isJavaIdentifierStart(name.charAt(0));
+    }
+
+    record Cause(String exceptionClass, List<Frame> frames) {
+    }
+
+    public record Frame(String className, String method) {
+    }
+
+    public record Signature(String rootCauseClass, List<Frame> frames) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the daily index for an event from the event's own timestamp (UTC), so late arrivals land in
+ * the day they happened. Timestamps more than a week old or more than a day ahead are treated as clock
+ * errors and routed to the current day, so a bad client clock cannot create indices for arbitrary dates.
+ * Index names are computed once per day and event type and then served from a table keyed by epoch day.
+ */
+@Component
+public class EventIndexRouter {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long MAX_PAST_DAYS = 7;
+    private static final long MAX_FUTURE_DAYS = 1;
+
+    private final Map<Long, String[]> indicesByDay = new ConcurrentHashMap<>();
+
+    public String indexFor(EventType type, long epochMillis) {
+        long today = Math.floorDiv(System.currentTimeMillis(), MILLIS_PER_DAY);
+        long epochDay = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        if (epochDay < today - MAX_PAST_DAYS || epochDay > today + MAX_FUTURE_DAYS) {
+            epochDay = today;
+        }
+        String[] indices = indicesByDay.get(epochDay);
+        if (indices == null) {
+            // Only the accepted range is ever cached; drop the days that have left it
+            indicesByDay.keySet().removeIf(day -> day < today - MAX_PAST_DAYS);
+            indices = indicesByDay.computeIfAbsent(epochDay, EventIndexRouter::indicesFor);
+        }
+        return indices[type.ordinal()];
+    }
+
+    /**
+     * Reads the event's {@code timestamp} (epoch millis, or an ISO-8601 string), falling back to {@code now}.
+     */
+    public static long timestampOf(Map<String, Object> event, long now) {
+        Object value = event.get("timestamp");
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text && !text.isEmpty()) {
+            try {
+                return Character.isDigit(text.charAt(0)) && text.indexOf('-') < 0
+                    ? Long.parseLong(text)
+                    : Instant.parse(text).toEpochMilli();
+            } catch (RuntimeException e) {
+                return now;
+            }
+        }
+        return now;
+    }
+
+    private static String[] indicesFor(long epochDay) {
+        String date = LocalDate.ofEpochDay(epochDay).format(DAY);
+        EventType[] types = EventType.values();
+        String[] indices = new String[types.length];
+        for (EventType type : types) {
+            indices[type.ordinal()] = type.indexPrefix() + date;
+        }
+        return indices;
+    }
+
+    public enum EventType {
+        EXCEPTION("exception", "loghealer-exceptions-"),
+        SLOW_REQUEST("slow_request", "loghealer-performance-"),
+        OTHER(null, "loghealer-events-");
+
+        private final String wireName;
+        private final String indexPrefix;
+
+        EventType(String wireName, String indexPrefix) {
+            this.wireName = wireName;
+            this.indexPrefix = indexPrefix;
+        }
+
+        public static EventType of(Object wireName) {
+            if (EXCEPTION.wireName.equals(wireName)) {
+                return EXCEPTION;
+            }
+            if (SLOW_REQUEST.wireName.equals(wireName)) {
+                return SLOW_REQUEST;
+            }
+            return OTHER;
+        }
+
+        String indexPrefix() {
+            return indexPrefix;
+        }
+    }
+}
@@ -0,0 +1,717 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.service.detection.ExceptionDetectorService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Staged log ingestion: accept (bounded admission) -> collapse repeats -> bulk index -> exception detection.
+ * Requests only pay for admission; indexing and detection run on dedicated worker pools. Detection still
+ * sees every event, including repeats folded into a single indexed document.
+ * Accepted documents are split into {@link IngestionLane}s with separate queues; workers pick lanes by
+ * weighted round robin and batches containing only exceptions and ERROR/WARN may use a reserved slice of
+ * the queue capacity, so detection and alerting are not stuck behind INFO volume.
+ * With the write-ahead log enabled, accepted batches are made durable on local disk first and a
+ * drainer replays them to Elasticsearch, so an unavailable cluster delays logs instead of losing them.
+ * With the Redis stream buffer enabled, accepting nodes only append batches to a Redis Stream and nodes
+ * running the consumer role index them through a consumer group, so accept rate and indexing capacity
+ * scale independently and batches in flight survive restarts of either side.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionPipeline {
+
+    private static final TypeReference<List<LogEntryDocument>> DOCUMENT_LIST = new TypeReference<>() {};
+    private static final int LANES = IngestionLane.values().length;
+
+    private final BulkIndexer bulkIndexer;
+    private final StackTraceStore stackTraceStore;
+    private final ExceptionDetectorService exceptionDetectorService;
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${loghealer.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${loghealer.ingestion.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${loghealer.ingestion.index-workers:2}")
+    private int indexWorkers;
+
+    @Value("${loghealer.ingestion.detect-workers:2}")
+    private int detectWorkers;
+
+    // Scheduling weights for EXCEPTION, ERROR_WARN, INFO and DEBUG lanes
+    @Value("${loghealer.ingestion.lanes.weights:8,4,2,1}")
+    private int[] laneWeights;
+
+    @Value("${loghealer.ingestion.lanes.priority-reserve:1000}")
+    private int priorityReserve;
+
+    @Value("${loghealer.ingestion.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${loghealer.ingestion.collapse.enabled:true}")
+    private boolean collapseEnabled;
+
+    @Value("${loghealer.ingestion.collapse.window-ms:5000}")
+    private long collapseWindowMs;
+
+    @Value("${loghealer.ingestion.collapse.max-windows:10000}")
+    private int collapseMaxWindows;
+
+    @Value("${loghealer.ingestion.collapse.trace-samples:5}")
+    private int collapseTraceSamples;
+
+    @Value("${loghealer.ingestion.wal.enabled:false}")
+    private boolean walEnabled;
+
+    @Value("${loghealer.ingestion.wal.dir:./data/wal}")
+    private String walDir;
+
+    @Value("${loghealer.ingestion.wal.segment-bytes:67108864}")
+    private int walSegmentBytes;
+
+    @Value("${loghealer.ingestion.wal.max-bytes:1073741824}")
+    private long walMaxBytes;
+
+    @Value("${loghealer.ingestion.wal.fsync:true}")
+    private boolean walFsync;
+
+    @Value("${loghealer.ingestion.wal.retry-backoff-ms:5000}")
+    private long walRetryBackoffMs;
+
+    @Value("${loghealer.ingestion.redis-stream.enabled:false}")
+    private boolean streamEnabled;
+
+    @Value("${loghealer.ingestion.redis-stream.consumer:true}")
+    private boolean streamConsumer;
+
+    @Value("${loghealer.ingestion.redis-stream.key:loghealer:ingest:batches}")
+    private String streamKey;
+
+    @Value("${loghealer.ingestion.redis-stream.group:loghealer-indexers}")
+    private String streamGroup;
+
+    // Stable across restarts so a worker picks up the batches it had not acknowledged; defaults to the host name
+    @Value("${loghealer.ingestion.redis-stream.consumer-name:}")
+    private String streamConsumerName;
+
+    @Value("${loghealer.ingestion.redis-stream.max-length:100000}")
+    private long streamMaxLength;
+
+    @Value("${loghealer.ingestion.redis-stream.read-count:10}")
+    private int streamReadCount;
+
+    @Value("${loghealer.ingestion.redis-stream.block-ms:2000}")
+    private long streamBlockMs;
+
+    @Value("${loghealer.ingestion.redis-stream.claim-idle-ms:60000}")
+    private long streamClaimIdleMs;
+
+    @Value("${loghealer.ingestion.redis-stream.max-deliveries:5}")
+    private int streamMaxDeliveries;
+
+    private final Queue<List<LogEntryDocument>>[] laneQueues = newLaneQueues();
+    // One permit per chunk in any lane queue
+    private final Semaphore queuedChunks = new Semaphore(0);
+
+    private Semaphore capacity;
+    private WriteAheadLog wal;
+    private RedisStreamBuffer streamBuffer;
+    private RepeatCollapser repeatCollapser;
+    private ExecutorService indexExecutor;
+    // Exceptions indexed by the standalone ingestion server, handed over here for detection
+    @Value("${loghealer.ingestion.detection-stream.enabled:false}")
+    private boolean detectionStreamEnabled;
+
+    @Value("${loghealer.ingestion.detection-stream.key:loghealer:ingest:exceptions}")
+    private String detectionStreamKey;
+
+    @Value("${loghealer.ingestion.detection-stream.group:loghealer-detectors}")
+    private String detectionStreamGroup;
+
+    private ThreadPoolExecutor detectExecutor;
+    private ExecutorService detectionStreamExecutor;
+    // Stream entries each consumer is working on, kept from going idle so that no other worker claims them
+    private final Map<RedisStreamBuffer, Set<RecordId>> streamInFlight = new ConcurrentHashMap<>();
+    private ScheduledExecutorService streamHeartbeat;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (laneWeights.length != LANES) {
+            throw new IllegalStateException("loghealer.ingestion.lanes.weights needs " + LANES + " values");
+        }
+        capacity = new Semaphore(queueCapacity + priorityReserve);
+        detectExecutor = new ThreadPoolExecutor(detectWorkers, detectWorkers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity / Math.max(1, batchSize) + detectWorkers),
+            IngestionThreads.named("loghealer-ingest-detect"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+        if (collapseEnabled) {
+            repeatCollapser = new RepeatCollapser(collapseWindowMs, collapseMaxWindows, collapseTraceSamples);
+        }
+
+        running = true;
+        if (streamEnabled) {
+            if (walEnabled) {
+                log.warn("Both the Redis stream buffer and the write-ahead log are enabled; using the stream");
+            }
+            startStreamWorkers();
+        } else if (walEnabled) {
+            wal = new WriteAheadLog(Path.of(walDir), walSegmentBytes, walFsync);
+            indexExecutor = Executors.newSingleThreadExecutor(IngestionThreads.named("loghealer-wal-drain"));
+            indexExecutor.execute(this::walDrainLoop);
+        } else {
+            indexExecutor = Executors.newFixedThreadPool(indexWorkers, IngestionThreads.named("loghealer-ingest-index"));
+            for (int i = 0; i < indexWorkers; i++) {
+                indexExecutor.execute(this::drainLoop);
+            }
+        }
+        if (detectionStreamEnabled) {
+            String consumerName = !streamConsumerName.isBlank() ? streamConsumerName : hostName();
+            RedisStreamBuffer detectionStream = new RedisStreamBuffer(stringRedisTemplate, detectionStreamKey,
+                detectionStreamGroup, consumerName, streamMaxDeliveries);
+            detectionStreamExecutor = Executors.newSingleThreadExecutor(IngestionThreads.named("loghealer-detect-stream"));
+            detectionStreamExecutor.execute(() -> streamDrainLoop(detectionStream, false));
+        }
+        if (detectionStreamEnabled || (streamEnabled && streamConsumer)) {
+            long period = Math.max(1000, streamClaimIdleMs / 3);
+            streamHeartbeat = Executors.newSingleThreadScheduledExecutor(
+                IngestionThreads.named("loghealer-stream-heartbeat"));
+            streamHeartbeat.scheduleWithFixedDelay(this::touchInFlight, period, period, TimeUnit.MILLISECONDS);
+        }
+        log.info("Ingestion pipeline started (stream={}, wal={}, capacity={}, batchSize={}, indexWorkers={}, detectWorkers={})",
+            streamEnabled, walEnabled && !streamEnabled, queueCapacity, batchSize, indexWorkers, detectWorkers);
+    }
+
+    private void startStreamWorkers() {
+        String consumerName = !streamConsumerName.isBlank() ? streamConsumerName : hostName();
+        streamBuffer = new RedisStreamBuffer(stringRedisTemplate, streamKey, streamGroup, consumerName);
+        if (!streamConsumer) {
+            return;
+        }
+        indexExecutor = Executors.newFixedThreadPool(indexWorkers, IngestionThreads.named("loghealer-stream-index"));
+        for (int i = 0; i < indexWorkers; i++) {
+            RedisStreamBuffer worker = new RedisStreamBuffer(stringRedisTemplate, streamKey, streamGroup,
+                consumerName + "-" + i, streamMaxDeliveries);
+            indexExecutor.execute(() -> streamDrainLoop(worker, true));
+        }
+    }
+
+    public void submit(List<LogEntryDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            throw new IngestionQueueFullException("Ingestion is shutting down, retry later", retryAfterSeconds);
+        }
+        if (streamBuffer != null) {
+            appendToStream(documents);
+            return;
+        }
+        if (wal != null) {
+            appendToWal(documents);
+            return;
+        }
+
+        List<LogEntryDocument>[] byLane = splitByLane(documents);
+        boolean priorityOnly = byLane[IngestionLane.INFO.ordinal()] == null
+            && byLane[IngestionLane.DEBUG.ordinal()] == null;
+        if (!admit(documents.size(), priorityOnly ? 0 : priorityReserve)) {
+            throw new IngestionQueueFullException("Ingestion queue is full, retry later", retryAfterSeconds);
+        }
+        for (int lane = 0; lane < LANES; lane++) {
+            if (byLane[lane] != null) {
+                laneQueues[lane].add(byLane[lane]);
+                queuedChunks.release();
+            }
+        }
+    }
+
+    // The reserve check is not atomic with the acquire; under contention normal lanes may dip into it slightly
+    private boolean admit(int documents, int keepFree) {
+        if (keepFree > 0 && capacity.availablePermits() - documents < keepFree) {
+            return false;
+        }
+        return capacity.tryAcquire(documents);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<LogEntryDocument>[] splitByLane(List<LogEntryDocument> documents) {
+        List<LogEntryDocument>[] byLane = new List[LANES];
+        IngestionLane first = IngestionLane.of(documents.get(0));
+        boolean uniform = true;
+        for (int i = 1; i < documents.size() && uniform; i++) {
+            uniform = IngestionLane.of(documents.get(i)) == first;
+        }
+        if (uniform) {
+            byLane[first.ordinal()] = documents;
+            return byLane;
+        }
+        for (LogEntryDocument document : documents) {
+            int lane = IngestionLane.of(document).ordinal();
+            if (byLane[lane] == null) {
+                byLane[lane] = new ArrayList<>();
+            }
+            byLane[lane].add(document);
+        }
+        return byLane;
+    }
+
+    /**
+     * Buffered batches awaiting indexing; in stream mode this counts stream entries (batches), not logs.
+     */
+    public int getQueueDepth() {
+        if (streamBuffer != null) {
+            return (int) Math.min(Integer.MAX_VALUE, streamBuffer.length());
+        }
+        return queueCapacity + priorityReserve - capacity.availablePermits();
+    }
+
+    public int getQueueCapacity() {
+        return streamBuffer != null ? (int) Math.min(Integer.MAX_VALUE, streamMaxLength) : queueCapacity;
+    }
+
+    private void appendToStream(List<LogEntryDocument> documents) {
+        if (streamBuffer.length() >= streamMaxLength) {
+            throw new IngestionQueueFullException("Ingestion buffer is full, retry later", retryAfterSeconds);
+        }
+        try {
+            streamBuffer.append(objectMapper.writeValueAsString(documents));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize logs for the ingestion stream", e);
+        } catch (DataAccessException e) {
+            log.warn("Could not append to ingestion stream: {}", e.getMessage());
+            throw new IngestionQueueFullException("Ingestion buffer is unavailable, retry later", retryAfterSeconds);
+        }
+    }
+
+    private void appendToWal(List<LogEntryDocument> documents) {
+        if (wal.sizeBytes() >= walMaxBytes) {
+            throw new IngestionQueueFullException("Ingestion spool is full, retry later", retryAfterSeconds);
+        }
+        try {
+            wal.append(objectMapper.writeValueAsBytes(documents));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to spool logs to write-ahead log", e);
+        }
+    }
+
+    private void drainLoop() {
+        List<LogEntryDocument> batch = new ArrayList<>(batchSize);
+        long[] credit = new long[LANES];
+        while (running || queuedChunks.availablePermits() > 0) {
+            try {
+                flushRepeats(System.currentTimeMillis());
+                if (!queuedChunks.tryAcquire(200, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                // The permit guarantees a chunk in some lane; another worker may have emptied the one picked
+                int lane = nextLane(credit);
+                List<LogEntryDocument> chunk = laneQueues[lane].poll();
+                for (int next = 0; chunk == null; next = (next + 1) % LANES) {
+                    lane = next;
+                    chunk = laneQueues[lane].poll();
+                }
+                batch.addAll(chunk);
+                while (batch.size() < batchSize && queuedChunks.tryAcquire()) {
+                    chunk = laneQueues[lane].poll();
+                    if (chunk == null) {
+                        queuedChunks.release();
+                        break;
+                    }
+                    batch.addAll(chunk);
+                }
+                for (int from = 0; from < batch.size(); from += batchSize) {
+                    List<LogEntryDocument> slice = batch.subList(from, Math.min(batch.size(), from + batchSize));
+                    String indexName = LogEntryDocuments.currentIndex();
+                    indexUnbuffered(indexName, collapse(indexName, slice));
+                    detectAsync(slice);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                capacity.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Smooth weighted round robin over the non-empty lanes: every pick adds each lane's weight to its
+     * credit and charges the winner the total, so lanes are served in proportion to their weights.
+     */
+    private int nextLane(long[] credit) {
+        int best = -1;
+        long total = 0;
+        for (int lane = 0; lane < LANES; lane++) {
+            if (laneQueues[lane].isEmpty()) {
+                continue;
+            }
+            credit[lane] += laneWeights[lane];
+            total += laneWeights[lane];
+            if (best < 0 || credit[lane] > credit[best]) {
+                best = lane;
+            }
+        }
+        if (best < 0) {
+            return 0;
+        }
+        credit[best] -= total;
+        return best;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Queue<List<LogEntryDocument>>[] newLaneQueues() {
+        Queue<List<LogEntryDocument>>[] queues = new Queue[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            queues[lane] = new ConcurrentLinkedQueue<>();
+        }
+        return queues;
+    }
+
+    /**
+     * Replays the write-ahead log in batches of up to batch-size logs, so the bulk indexer sees full
+     * requests rather than one record per linger period. The last record of a batch is committed once
+     * the whole batch is indexed; a restart before that replays the batch.
+     */
+    private void walDrainLoop() {
+        List<LogEntryDocument> documents = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                flushRepeats(System.currentTimeMillis());
+                WriteAheadLog.Record last = null;
+                while (documents.size() < batchSize) {
+                    WriteAheadLog.Record record = wal.readNext();
+                    if (record == null) {
+                        break;
+                    }
+                    last = record;
+                    try {
+                        documents.addAll(objectMapper.readValue(record.payload(), DOCUMENT_LIST));
+                    } catch (IOException e) {
+                        log.error("Skipping unreadable WAL record in segment {}", record.segment(), e);
+                    }
+                }
+                if (last == null) {
+                    Thread.sleep(50);
+                    continue;
+                }
+
+                if (!documents.isEmpty()) {
+                    if (!indexWithRetry(documents)) {
+                        return;
+                    }
+                    detectAsync(List.copyOf(documents));
+                }
+                wal.commit(last);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Write-ahead log drainer failed", e);
+            } finally {
+                documents.clear();
+            }
+        }
+    }
+
+    /**
+     * Consumes batches from a Redis stream. Batches from the ingestion buffer are indexed and then run
+     * through detection; batches on the detection stream were already indexed by the ingestion server.
+     */
+    private void streamDrainLoop(RedisStreamBuffer stream, boolean indexBatches) {
+        boolean replayOwn = true;
+        long nextClaimAt = 0;
+        Set<RecordId> inFlight = ConcurrentHashMap.newKeySet();
+        streamInFlight.put(stream, inFlight);
+        while (running) {
+            try {
+                flushRepeats(System.currentTimeMillis());
+                List<MapRecord<String, String, String>> records;
+                if (replayOwn) {
+                    stream.ensureGroup();
+                    records = stream.readOwnPending(streamReadCount);
+                    replayOwn = !records.isEmpty();
+                } else {
+                    records = List.of();
+                    if (System.currentTimeMillis() >= nextClaimAt) {
+                        nextClaimAt = System.currentTimeMillis() + streamClaimIdleMs / 2;
+                        records = stream.claimStale(Duration.ofMillis(streamClaimIdleMs), streamReadCount);
+                    }
+                    if (records.isEmpty()) {
+                        records = stream.readNew(streamReadCount, streamBlockMs);
+                    }
+                }
+
+                records.forEach(record -> inFlight.add(record.getId()));
+                for (MapRecord<String, String, String> record : records) {
+                    List<LogEntryDocument> documents;
+                    try {
+                        documents = objectMapper.readValue(RedisStreamBuffer.batch(record), DOCUMENT_LIST);
+                    } catch (IOException | IllegalArgumentException e) {
+                        log.error("Skipping unreadable ingestion stream entry {}", record.getId(), e);
+                        stream.complete(record);
+                        inFlight.remove(record.getId());
+                        continue;
+                    }
+                    if (indexBatches && !indexWithRetry(documents)) {
+                        return;
+                    }
+                    detectAsync(documents);
+                    stream.complete(record);
+                    inFlight.remove(record.getId());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                log.warn("Ingestion stream unavailable, retrying in {} ms: {}", walRetryBackoffMs, e.getMessage());
+                // Entries of the broken batch stay pending under this consumer: stop refreshing them and
+                // read them back once the stream is reachable again
+                inFlight.clear();
+                replayOwn = true;
+                try {
+                    Thread.sleep(walRetryBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void touchInFlight() {
+        streamInFlight.forEach((stream, inFlight) -> {
+            try {
+                stream.touch(List.copyOf(inFlight));
+            } catch (DataAccessException e) {
+                log.warn("Could not refresh in-flight ingestion stream entries: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Indexes a buffered batch and waits for Elasticsearch to acknowledge it. Documents that failed with
+     * a retryable error (429, 5xx or an I/O failure outlasting the bulk indexer's own retries) are indexed
+     * again until they succeed; documents Elasticsearch rejected outright are dead-lettered, since no
+     * retry would change the outcome. Returns {@code false} if the pipeline stopped first; the batch
+     * then stays in its buffer.
+     */
+    private boolean indexWithRetry(List<LogEntryDocument> documents) throws InterruptedException {
+        // Collapse once: a retry must not see its own first occurrences as repeats
+        String indexName = LogEntryDocuments.currentIndex();
+        List<LogEntryDocument> pending = collapse(indexName, documents);
+        while (running) {
+            List<CompletableFuture<Void>> results = indexEach(indexName, pending);
+            // The caller waits for the acknowledgement, so don't let the batch linger in the bulk buffers
+            bulkIndexer.flush();
+
+            List<LogEntryDocument> retry = new ArrayList<>();
+            Throwable retryCause = null;
+            for (int i = 0; i < pending.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof BulkItemRejectedException rejected) {
+                        deadLetter(indexName, pending.get(i), rejected);
+                    } else {
+                        retry.add(pending.get(i));
+                        retryCause = e.getCause();
+                    }
+                }
+            }
+            if (retry.isEmpty()) {
+                return true;
+            }
+            log.warn("Indexing {} of {} buffered logs failed, retrying in {} ms: {}",
+                retry.size(), pending.size(), walRetryBackoffMs, retryCause.getMessage());
+            pending = retry;
+            Thread.sleep(walRetryBackoffMs);
+        }
+        return false;
+    }
+
+    private void deadLetter(String indexName, LogEntryDocument document, BulkItemRejectedException rejected) {
+        log.error("Dropping log {} of project {} rejected by {} with status {}: {}", document.getId(),
+            document.getProjectId(), indexName, rejected.getStatus(), rejected.getMessage());
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "loghealer-" + ProcessHandle.current().pid();
+        }
+    }
+
+    private List<LogEntryDocument> collapse(String indexName, List<LogEntryDocument> documents) {
+        return repeatCollapser != null
+            ? repeatCollapser.collapse(indexName, documents, System.currentTimeMillis())
+            : documents;
+    }
+
+    /**
+     * Re-indexes the first document of each closed repeat window with its final count. These summaries
+     * are not written to the WAL; a crash loses at most one window's counts, never the first occurrence.
+     */
+    private void flushRepeats(long nowMillis) {
+        if (repeatCollapser == null) {
+            return;
+        }
+        for (Map.Entry<String, LogEntryDocument> summary : repeatCollapser.expire(nowMillis)) {
+            LogEntryDocument document = stackTraceStore.externalize(List.of(summary.getValue())).documents().get(0);
+            bulkIndexer.add(summary.getKey(), document.getId(), document);
+        }
+    }
+
+    /**
+     * Indexes a batch held only in memory without waiting for it. Nothing can replay it, so documents
+     * Elasticsearch rejected are dead-lettered like buffered ones, and the rest of the failures, which
+     * outlasted the bulk indexer's retries, are logged as lost.
+     */
+    private void indexUnbuffered(String indexName, List<LogEntryDocument> batch) {
+        List<CompletableFuture<Void>> results = indexEach(indexName, batch);
+        CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).whenComplete((ignored, error) -> {
+            if (error == null) {
+                return;
+            }
+            List<String> lost = new ArrayList<>();
+            Throwable lostCause = null;
+            for (int i = 0; i < batch.size(); i++) {
+                if (!results.get(i).isCompletedExceptionally()) {
+                    continue;
+                }
+                Throwable failure = results.get(i).exceptionNow();
+                if (failure instanceof CompletionException && failure.getCause() != null) {
+                    failure = failure.getCause();
+                }
+                if (failure instanceof BulkItemRejectedException rejected) {
+                    deadLetter(indexName, batch.get(i), rejected);
+                } else {
+                    lost.add(batch.get(i).getId());
+                    lostCause = failure;
+                }
+            }
+            if (!lost.isEmpty()) {
+                log.error("Lost {} logs that could not be indexed into {}: {} ({})", lost.size(), indexName,
+                    lostCause.getMessage(), lost);
+            }
+        });
+    }
+
+    // Each future covers the log entry and the write of its stack trace
+    private List<CompletableFuture<Void>> indexEach(String indexName, List<LogEntryDocument> batch) {
+        fingerprint(batch);
+        StackTraceStore.Externalized externalized = stackTraceStore.externalize(batch);
+        List<LogEntryDocument> documents = externalized.documents();
+        List<CompletableFuture<Void>> results = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            LogEntryDocument document = documents.get(i);
+            results.add(bulkIndexer.add(indexName, document.getId(), document, IngestionLane.of(batch.get(i)))
+                .thenCombine(externalized.traceWrites().get(i), (indexed, traced) -> null));
+        }
+        return results;
+    }
+
+    // Exceptions are indexed with their fingerprint, so the logs can be counted by exception group
+    private void fingerprint(List<LogEntryDocument> documents) {
+        for (LogEntryDocument document : documents) {
+            if (document.getFingerprint() != null || !isException(document)) {
+                continue;
+            }
+            try {
+                document.setFingerprint(exceptionDetectorService.fingerprint(document.getProjectId(),
+                    document.getExceptionClass(), document.getStackTrace()));
+            } catch (Exception e) {
+                log.error("Fingerprinting failed for log {}", document.getId(), e);
+            }
+        }
+    }
+
+    private void detectAsync(List<LogEntryDocument> documents) {
+        List<LogEntryDocument> exceptions = documents.stream()
+            .filter(this::isException)
+            .toList();
+        if (!exceptions.isEmpty()) {
+            detectExecutor.execute(() -> detect(exceptions));
+        }
+    }
+
+    private void detect(List<LogEntryDocument> exceptions) {
+        for (LogEntryDocument document : exceptions) {
+            try {
+                exceptionDetectorService.processException(document);
+            } catch (Exception e) {
+                log.error("Exception detection failed for log {}", document.getId(), e);
+            }
+        }
+    }
+
+    private boolean isException(LogEntryDocument document) {
+        return "ERROR".equalsIgnoreCase(document.getLevel())
+            && document.getStackTrace() != null
+            && !document.getStackTrace().isBlank();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (streamHeartbeat != null) {
+            streamHeartbeat.shutdownNow();
+        }
+        if (indexExecutor != null) {
+            shutdown(indexExecutor);
+        }
+        if (detectionStreamExecutor != null) {
+            shutdown(detectionStreamExecutor);
+        }
+        flushRepeats(Long.MAX_VALUE);
+        shutdown(detectExecutor);
+        if (wal != null) {
+            wal.close();
+        }
+        log.info("Ingestion pipeline stopped");
+    }
+
+    private void shutdown(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-project and per-tenant admission control for ingestion. Each project and tenant has an event
+ * token bucket (rate + burst) and each project has optional daily event and byte quotas.
+ * <p>
+ * Buckets are charged after a request has been read and may go into debt; the debt turns into a block
+ * that {@link #admit} checks with a single map lookup, so over-limit clients are rejected before their
+ * body is read or bound. In distributed mode buckets and quotas live in Redis so limits hold across
+ * backend nodes; if Redis is unavailable the node falls back to its local buckets.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionRateLimiter {
+
+    private static final String KEY_PREFIX = "loghealer:ingest:";
+
+    /**
+     * KEYS: bucket keys. ARGV[1]: cost, then (events per second, burst) for each key.
+     * Returns, per key, the milliseconds until that bucket is out of debt (0 if it is not in debt).
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>("""
+        local t = redis.call('TIME')
+        local now = t[1] * 1000 + math.floor(t[2] / 1000)
+        local cost = tonumber(ARGV[1])
+        local waits = {}
+        for i, key in ipairs(KEYS) do
+            local rate = tonumber(ARGV[i * 2])
+            local burst = tonumber(ARGV[i * 2 + 1])
+            local state = redis.call('HMGET', key, 'tokens', 'ts')
+            local tokens = tonumber(state[1]) or burst
+            local ts = tonumber(state[2]) or now
+            tokens = math.min(burst, tokens + math.max(0, now - ts) * rate / 1000) - cost
+            redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', key, math.ceil(burst * 1000 / rate) + 60000)
+            waits[i] = tokens < 0 and math.ceil(-tokens * 1000 / rate) or 0
+        end
+        return waits
+        """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${loghealer.ingestion.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${loghealer.ingestion.rate-limit.distributed:false}")
+    private boolean distributed;
+
+    @Value("${loghealer.ingestion.rate-limit.project.events-per-second:5000}")
+    private double projectEventsPerSecond;
+
+    @Value("${loghealer.ingestion.rate-limit.project.burst:20000}")
+    private double projectBurst;
+
+    @Value("${loghealer.ingestion.rate-limit.tenant.events-per-second:20000}")
+    private double tenantEventsPerSecond;
+
+    @Value("${loghealer.ingestion.rate-limit.tenant.burst:80000}")
+    private double tenantBurst;
+
+    @Value("${loghealer.ingestion.rate-limit.daily-event-quota:0}")
+    private long dailyEventQuota;
+
+    @Value("${loghealer.ingestion.rate-limit.daily-byte-quota:0}")
+    private long dailyByteQuota;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, DailyUsage> usage = new ConcurrentHashMap<>();
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Returns 0 if the project may send more data, otherwise the number of seconds to wait.
+     */
+    public long admit(ProjectContext project) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        Block block = blocks.get(projectKey(project.projectId()));
+        Block tenantBlock = blocks.get(tenantKey(project.tenantId()));
+        if (block == null || (tenantBlock != null && tenantBlock.untilNanos() - block.untilNanos() > 0)) {
+            block = tenantBlock;
+        }
+        if (block == null || block.untilNanos() - now <= 0) {
+            return 0;
+        }
+        meterRegistry.counter("loghealer.ingestion.rate_limited",
+            "project", project.projectId(), "reason", block.reason()).increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(block.untilNanos() - now + 999_999_999L));
+    }
+
+    public void recordEvents(String projectId, String tenantId, int events) {
+        if (!enabled || events <= 0) {
+            return;
+        }
+        long[] waitMillis = distributed
+            ? chargeRedisBuckets(projectId, tenantId, events)
+            : chargeLocalBuckets(projectId, tenantId, events);
+        if (waitMillis[0] > 0) {
+            block(projectKey(projectId), "rate", TimeUnit.MILLISECONDS.toNanos(waitMillis[0]));
+        }
+        if (waitMillis[1] > 0) {
+            block(tenantKey(tenantId), "tenant_rate", TimeUnit.MILLISECONDS.toNanos(waitMillis[1]));
+        }
+        if (dailyEventQuota > 0 && addUsage(projectId, "events", events) > dailyEventQuota) {
+            block(projectKey(projectId), "daily_events", nanosUntilMidnight());
+        }
+    }
+
+    public void recordBytes(String projectId, long bytes) {
+        if (!enabled || bytes <= 0 || dailyByteQuota <= 0) {
+            return;
+        }
+        if (addUsage(projectId, "bytes", bytes) > dailyByteQuota) {
+            block(projectKey(projectId), "daily_bytes", nanosUntilMidnight());
+        }
+    }
+
+    private long[] chargeRedisBuckets(String projectId, String tenantId, int events) {
+        try {
+            List<?> waits = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                List.of(KEY_PREFIX + projectKey(projectId), KEY_PREFIX + tenantKey(tenantId)),
+                String.valueOf(events),
+                String.valueOf(projectEventsPerSecond), String.valueOf(projectBurst),
+                String.valueOf(tenantEventsPerSecond), String.valueOf(tenantBurst));
+            if (waits != null && waits.size() == 2) {
+                return new long[] {((Number) waits.get(0)).longValue(), ((Number) waits.get(1)).longValue()};
+            }
+        } catch (Exception e) {
+            log.warn("Distributed rate limit unavailable, using local buckets: {}", e.getMessage());
+        }
+        return chargeLocalBuckets(projectId, tenantId, events);
+    }
+
+    private long[] chargeLocalBuckets(String projectId, String tenantId, int events) {
+        return new long[] {
+            buckets.computeIfAbsent(projectKey(projectId), k -> new TokenBucket(projectEventsPerSecond, projectBurst))
+                .charge(events),
+            buckets.computeIfAbsent(tenantKey(tenantId), k -> new TokenBucket(tenantEventsPerSecond, tenantBurst))
+                .charge(events)
+        };
+    }
+
+    private long addUsage(String projectId, String metric, long amount) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if (distributed) {
+            String key = KEY_PREFIX + "quota:" + projectId + ":" + metric + ":" + today;
+            try {
+                Long total = stringRedisTemplate.opsForValue().increment(key, amount);
+                stringRedisTemplate.expire(key, Duration.ofDays(2));
+                return total != null ? total : 0;
+            } catch (Exception e) {
+                log.warn("Distributed quota unavailable, using local counters: {}", e.getMessage());
+            }
+        }
+        return usage.computeIfAbsent(projectId + ":" + metric, k -> new DailyUsage()).add(today, amount);
+    }
+
+    private void block(String key, String reason, long nanos) {
+        long until = System.nanoTime() + nanos;
+        blocks.merge(key, new Block(until, reason),
+            (current, next) -> current.untilNanos() - next.untilNanos() >= 0 ? current : next);
+    }
+
+    private static long nanosUntilMidnight() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        return Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay(ZoneOffset.UTC)).toNanos();
+    }
+
+    private static String projectKey(String projectId) {
+        return "p:" + projectId;
+    }
+
+    private static String tenantKey(String tenantId) {
+        return "t:" + tenantId;
+    }
+
+    private record Block(long untilNanos, String reason) {
+    }
+
+    private static final class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double burst;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double eventsPerSecond, double burst) {
+            this.tokensPerNano = eventsPerSecond / 1_000_000_000d;
+            this.burst = burst;
+            this.tokens = burst;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Takes {@code events} tokens and returns the milliseconds until the bucket is out of debt.
+         */
+        synchronized long charge(int events) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano) - events;
+            lastRefillNanos = now;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano / 1_000_000d);
+        }
+    }
+
+    private static final class DailyUsage {
+
+        private LocalDate day;
+        private long total;
+
+        synchronized long add(LocalDate today, long amount) {
+            if (!today.equals(day)) {
+                day = today;
+                total = 0;
+            }
+            total += amount;
+            return total;
+        }
+    }
+}
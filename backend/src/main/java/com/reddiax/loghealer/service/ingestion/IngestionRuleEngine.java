@@ -0,0 +1,275 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.entity.IngestionRule;
+import com.reddiax.loghealer.repository.jpa.IngestionRuleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies per-project drop and sampling rules, plus automatic load shedding, to batches before they
+ * are admitted to the {@link IngestionPipeline}.
+ * <p>
+ * Sampling is deterministic: an event's position in [0, 1) is a hash of its trace ID (or of its document
+ * ID when it has none), so every node keeps or discards a whole trace together, and a trace kept at one
+ * rate is kept at every higher rate. When the accept queue fills past the configured fractions, DEBUG and
+ * TRACE (then INFO) events are shed. ERROR events are never sampled or shed; a drop rule only removes
+ * them when it names the level explicitly. Everything filtered out is counted per project and level, so
+ * dashboards can report what was not stored. Counts are recorded with {@link #recordFiltered} once the
+ * pipeline has admitted the batch, so a batch rejected with 429 and retried is only counted once.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionRuleEngine {
+
+    private static final String COUNTS_KEY = "loghealer:ingest:filtered";
+    private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+    private final IngestionRuleRepository ingestionRuleRepository;
+    private final IngestionPipeline ingestionPipeline;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${loghealer.ingestion.rules.enabled:true}")
+    private boolean enabled;
+
+    @Value("${loghealer.ingestion.rules.shed-debug-at:0.5}")
+    private double shedDebugAt;
+
+    @Value("${loghealer.ingestion.rules.shed-info-at:0.8}")
+    private double shedInfoAt;
+
+    private volatile Map<String, CompiledRule[]> rulesByProject = Map.of();
+
+    // "projectId:outcome:LEVEL" -> count; pending is flushed to Redis, totals back the local fallback
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> totals = new ConcurrentHashMap<>();
+
+    /**
+     * Documents that should be indexed, and what was filtered out of the batch.
+     */
+    public record Filtered(List<LogEntryDocument> kept, String projectId, Map<String, int[]> counts) {
+
+        static Filtered none(List<LogEntryDocument> documents) {
+            return new Filtered(documents, null, Map.of());
+        }
+    }
+
+    /**
+     * Filters a batch; {@link Filtered#kept()} is the input list itself when nothing is filtered, otherwise a
+     * new list. All documents must belong to the same project. Nothing is counted until
+     * {@link #recordFiltered} is called.
+     */
+    public Filtered apply(List<LogEntryDocument> documents) {
+        if (!enabled || documents.isEmpty()) {
+            return Filtered.none(documents);
+        }
+        String projectId = documents.get(0).getProjectId();
+        CompiledRule[] rules = rulesByProject.getOrDefault(projectId, NO_RULES);
+        int shedRank = shedRank();
+        if (rules.length == 0 && shedRank == 0) {
+            return Filtered.none(documents);
+        }
+
+        List<LogEntryDocument> kept = null;
+        Map<String, int[]> filtered = null;
+        for (int i = 0; i < documents.size(); i++) {
+            LogEntryDocument document = documents.get(i);
+            Outcome outcome = evaluate(document, rules, shedRank);
+            if (outcome == null) {
+                if (kept != null) {
+                    kept.add(document);
+                }
+                continue;
+            }
+            if (kept == null) {
+                kept = new ArrayList<>(documents.subList(0, i));
+                filtered = new HashMap<>();
+            }
+            filtered.computeIfAbsent(outcome.key + ":" + document.getLevel(), k -> new int[1])[0]++;
+        }
+
+        if (kept == null) {
+            return Filtered.none(documents);
+        }
+        return new Filtered(kept, projectId, filtered);
+    }
+
+    /**
+     * Counts what {@link #apply} filtered out of a batch the pipeline has admitted.
+     */
+    public void recordFiltered(Filtered filtered) {
+        filtered.counts().forEach((key, count) -> record(filtered.projectId(), key, count[0]));
+    }
+
+    private Outcome evaluate(LogEntryDocument document, CompiledRule[] rules, int shedRank) {
+        String level = document.getLevel();
+        int rank = rank(level);
+        for (CompiledRule rule : rules) {
+            if (!rule.matches(document.getLogger(), level, rank)) {
+                continue;
+            }
+            if (rule.action == IngestionRule.Action.DROP) {
+                return Outcome.DROPPED;
+            }
+            if (rank > 0 && samplePoint(document) >= rule.sampleRate) {
+                return Outcome.SAMPLED;
+            }
+            break;
+        }
+        return rank > 0 && rank <= shedRank ? Outcome.SHED : null;
+    }
+
+    /**
+     * 1 sheds DEBUG and TRACE, 2 also sheds INFO. Only the bounded accept queue reports depth; with the
+     * write-ahead log enabled nothing is shed.
+     */
+    private int shedRank() {
+        double fill = (double) ingestionPipeline.getQueueDepth() / Math.max(1, ingestionPipeline.getQueueCapacity());
+        if (fill >= shedInfoAt) {
+            return 2;
+        }
+        return fill >= shedDebugAt ? 1 : 0;
+    }
+
+    // 0 = ERROR, never sampled or shed; 1 = DEBUG/TRACE; 2 = INFO; 3 = WARN and others, sampled but never shed
+    private static int rank(String level) {
+        if (level == null) {
+            return 3;
+        }
+        return switch (level) {
+            case "ERROR", "FATAL" -> 0;
+            case "TRACE", "DEBUG" -> 1;
+            case "INFO" -> 2;
+            default -> 3;
+        };
+    }
+
+    private static double samplePoint(LogEntryDocument document) {
+        long hash = document.getTraceId() != null
+            ? DocumentIds.eventKey("trace", document.getTraceId())
+            : DocumentIds.eventKey(document.getProjectId(), document.getId());
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private void record(String projectId, String outcomeAndLevel, int count) {
+        String key = projectId + ":" + outcomeAndLevel;
+        pending.computeIfAbsent(key, k -> new LongAdder()).add(count);
+        totals.computeIfAbsent(key, k -> new LongAdder()).add(count);
+        meterRegistry.counter("loghealer.ingestion.filtered",
+            "project", projectId, "outcome", outcomeAndLevel.substring(0, outcomeAndLevel.indexOf(':')))
+            .increment(count);
+    }
+
+    @Scheduled(fixedDelayString = "${loghealer.ingestion.rules.refresh-ms:30000}")
+    public void refresh() {
+        try {
+            Map<String, List<CompiledRule>> byProject = new HashMap<>();
+            for (IngestionRule rule : ingestionRuleRepository.findAllActiveWithProject()) {
+                byProject.computeIfAbsent(rule.getProject().getId().toString(), k -> new ArrayList<>())
+                    .add(new CompiledRule(rule));
+            }
+            Map<String, CompiledRule[]> compiled = new HashMap<>();
+            byProject.forEach((projectId, rules) -> compiled.put(projectId, rules.stream()
+                .sorted(Comparator.comparingInt(CompiledRule::priority))
+                .toArray(CompiledRule[]::new)));
+            rulesByProject = compiled;
+        } catch (Exception e) {
+            log.warn("Could not refresh ingestion rules, keeping {} cached projects: {}",
+                rulesByProject.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${loghealer.ingestion.rules.counts-flush-ms:10000}")
+    public void flushCounts() {
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            try {
+                stringRedisTemplate.opsForHash().increment(COUNTS_KEY, entry.getKey(), count);
+            } catch (Exception e) {
+                entry.getValue().add(count);
+                log.debug("Could not flush filtered counts to Redis: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Events filtered out at ingestion since counting began, keyed by outcome ({@code dropped},
+     * {@code sampled}, {@code shed}) and then level. Cluster-wide when Redis is reachable, otherwise this
+     * node's counts. A {@code null} project sums all projects.
+     */
+    public Map<String, Map<String, Long>> filteredCounts(String projectId) {
+        Map<String, Long> counts = new HashMap<>();
+        try {
+            stringRedisTemplate.<String, String>opsForHash().entries(COUNTS_KEY)
+                .forEach((key, value) -> counts.put(key, Long.parseLong(value)));
+            pending.forEach((key, adder) -> counts.merge(key, adder.sum(), Long::sum));
+        } catch (Exception e) {
+            log.debug("Filtered counts unavailable from Redis, using local counts: {}", e.getMessage());
+            counts.clear();
+            totals.forEach((key, adder) -> counts.put(key, adder.sum()));
+        }
+
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        counts.forEach((key, count) -> {
+            String[] parts = key.split(":", 3);
+            if (parts.length == 3 && (projectId == null || projectId.equals(parts[0]))) {
+                result.computeIfAbsent(parts[1], k -> new TreeMap<>()).merge(parts[2], count, Long::sum);
+            }
+        });
+        return result;
+    }
+
+    private enum Outcome {
+        DROPPED("dropped"), SAMPLED("sampled"), SHED("shed");
+
+        final String key;
+
+        Outcome(String key) {
+            this.key = key;
+        }
+    }
+
+    private record CompiledRule(String loggerPrefix, String level, IngestionRule.Action action,
+                                double sampleRate, int priority) {
+
+        CompiledRule(IngestionRule rule) {
+            this(blankToNull(rule.getLoggerPrefix()),
+                rule.getLevel() != null && !rule.getLevel().isBlank() ? rule.getLevel().toUpperCase() : null,
+                rule.getAction(),
+                rule.getSampleRate() != null ? rule.getSampleRate() : 1.0,
+                rule.getPriority());
+        }
+
+        // Rules without a level never touch ERROR events; naming the level opts in
+        boolean matches(String logger, String eventLevel, int rank) {
+            if (level != null ? !level.equals(eventLevel) : rank == 0) {
+                return false;
+            }
+            return loggerPrefix == null || (logger != null && logger.startsWith(loggerPrefix));
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+    }
+}
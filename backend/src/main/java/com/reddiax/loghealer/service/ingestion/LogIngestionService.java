@@ -1,97 +1,231 @@
 package com.reddiax.loghealer.service.ingestion;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.reddiax.loghealer.config.PayloadTooLargeException;
 import com.reddiax.loghealer.document.LogEntryDocument;
 import com.reddiax.loghealer.dto.LogEntryRequest;
-import com.reddiax.loghealer.entity.Project;
-import com.reddiax.loghealer.repository.elasticsearch.LogEntryRepository;
-import com.reddiax.loghealer.repository.jpa.ProjectRepository;
-import com.reddiax.loghealer.service.detection.ExceptionDetectorService;
+import com.reddiax.loghealer.dto.LogIngestionResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class LogIngestionService {
 
-    private final ProjectRepository projectRepository;
-    private final LogEntryRepository logEntryRepository;
-    private final ExceptionDetectorService exceptionDetectorService;
+    private static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+    private static final String CBOR_CONTENT_TYPE = "application/cbor";
+
+    private final ProjectContextCache projectContextCache;
+    private final IngestionPipeline ingestionPipeline;
+    private final RecentEventIdFilter recentEventIds;
+    private final IngestionRuleEngine ingestionRuleEngine;
+    private final PiiScrubber piiScrubber;
+    private final IngestionRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${loghealer.ingestion.stream.chunk-size:500}")
+    private int streamChunkSize;
+
+    @Value("${loghealer.ingestion.stream.max-string-bytes:1048576}")
+    private int streamMaxStringBytes;
+
+    @Value("${loghealer.ingestion.max-message-length:32768}")
+    private int maxMessageLength;
+
+    @Value("${loghealer.ingestion.max-stack-trace-length:65536}")
+    private int maxStackTraceLength;
+
+    private JsonFactory streamJsonFactory;
+    private JsonFactory streamSmileFactory;
+    private JsonFactory streamCborFactory;
+    private ObjectReader logEntryReader;
+
+    @PostConstruct
+    public void initStreamReader() {
+        StreamReadConstraints constraints = StreamReadConstraints.builder()
+            .maxStringLength(streamMaxStringBytes)
+            .build();
+        streamJsonFactory = objectMapper.getFactory().copy().setStreamReadConstraints(constraints);
+        streamSmileFactory = new SmileFactory().setStreamReadConstraints(constraints);
+        streamCborFactory = new CBORFactory().setStreamReadConstraints(constraints);
+        logEntryReader = objectMapper.readerFor(LogEntryRequest.class);
+    }
 
     public void ingestSingle(String apiKey, LogEntryRequest request) {
-        Project project = validateApiKey(apiKey);
+        ProjectContext project = projectContextCache.resolve(apiKey);
         LogEntryDocument document = mapToDocument(request, project);
         
-        saveAndProcess(document);
-        log.debug("Ingested single log for project: {}", project.getName());
+        submit(List.of(document));
+        log.debug("Ingested single log for project: {}", project.name());
     }
 
     public int ingestBatch(String apiKey, List<LogEntryRequest> requests) {
-        Project project = validateApiKey(apiKey);
+        ProjectContext project = projectContextCache.resolve(apiKey);
         
         List<LogEntryDocument> documents = requests.stream()
             .map(req -> mapToDocument(req, project))
             .toList();
         
-        saveAndProcessBatch(documents);
-        log.info("Ingested {} logs for project: {}", documents.size(), project.getName());
+        submit(documents);
+        log.info("Ingested {} logs for project: {}", documents.size(), project.name());
         
         return documents.size();
     }
 
-    private Project validateApiKey(String apiKey) {
-        return projectRepository.findByApiKey(apiKey)
-            .filter(Project::isActive)
-            .orElseThrow(() -> new IllegalArgumentException("Invalid or inactive API key"));
+    /**
+     * Reads newline-delimited JSON records (or a sequence of root-level Smile/CBOR values, chosen by
+     * content type) one at a time and submits them in chunks, so memory stays bounded by the chunk
+     * size and the per-string cap regardless of the payload size. If the queue fills up or the body
+     * grows too large after chunks were already submitted, the error reports how far the stream got
+     * ({@link StreamIngestionInterruptedException}), so a client can resume instead of resending it all.
+     */
+    public LogIngestionResponse ingestStream(String apiKey, String contentType, InputStream body) throws IOException {
+        ProjectContext project = projectContextCache.resolve(apiKey);
+
+        int accepted = 0;
+        int rejected = 0;
+        int read = 0;
+        int processed = 0;
+        boolean truncated = false;
+        List<LogEntryDocument> chunk = new ArrayList<>(streamChunkSize);
+
+        try {
+            try (JsonParser parser = streamFactory(contentType).createParser(body);
+                 MappingIterator<LogEntryRequest> records = logEntryReader.readValues(parser)) {
+                while (records.hasNextValue()) {
+                    LogEntryRequest request;
+                    read++;
+                    try {
+                        request = records.nextValue();
+                    } catch (JsonMappingException e) {
+                        rejected++;
+                        continue;
+                    }
+                    if (request == null || !validator.validate(request).isEmpty()) {
+                        rejected++;
+                        continue;
+                    }
+
+                    chunk.add(mapToDocument(request, project));
+                    if (chunk.size() >= streamChunkSize) {
+                        submit(chunk);
+                        accepted += chunk.size();
+                        processed = read;
+                        chunk = new ArrayList<>(streamChunkSize);
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                log.warn("Stopped reading log stream for project {}: {}", project.name(), e.getOriginalMessage());
+                truncated = true;
+            }
+
+            if (!chunk.isEmpty()) {
+                submit(chunk);
+                accepted += chunk.size();
+            }
+        } catch (IngestionQueueFullException | PayloadTooLargeException e) {
+            if (accepted == 0) {
+                throw e;
+            }
+            log.warn("Log stream for project {} interrupted after {} accepted logs: {}",
+                project.name(), accepted, e.getMessage());
+            throw new StreamIngestionInterruptedException(e, accepted, rejected, processed);
+        }
+        log.info("Ingested {} streamed logs for project: {} (rejected {})", accepted, project.name(), rejected);
+
+        if (truncated) {
+            return LogIngestionResponse.builder()
+                .accepted(accepted)
+                .rejected(rejected)
+                .message("Stream contained malformed or oversized JSON; remaining records were not read")
+                .build();
+        }
+        return rejected > 0 ? LogIngestionResponse.partial(accepted, rejected) : LogIngestionResponse.success(accepted);
     }
 
-    private LogEntryDocument mapToDocument(LogEntryRequest request, Project project) {
-        return LogEntryDocument.builder()
-            .id(UUID.randomUUID().toString())
-            .projectId(project.getId().toString())
-            .tenantId(project.getTenant().getId().toString())
-            .level(request.getLevel().toUpperCase())
-            .logger(request.getLogger())
-            .message(request.getMessage())
-            .stackTrace(request.getStackTrace())
-            .exceptionClass(request.getExceptionClass())
-            .threadName(request.getThreadName())
-            .metadata(request.getMetadata())
-            .timestamp(request.getTimestamp() != null ? request.getTimestamp() : Instant.now())
-            .traceId(request.getTraceId())
-            .spanId(request.getSpanId())
-            .hostName(request.getHostName())
-            .environment(request.getEnvironment())
-            .build();
+    private JsonFactory streamFactory(String contentType) {
+        if (contentType != null) {
+            if (contentType.startsWith(SMILE_CONTENT_TYPE)) {
+                return streamSmileFactory;
+            }
+            if (contentType.startsWith(CBOR_CONTENT_TYPE)) {
+                return streamCborFactory;
+            }
+        }
+        return streamJsonFactory;
     }
 
-    @Async
-    protected void saveAndProcess(LogEntryDocument document) {
-        logEntryRepository.save(document);
-        
-        if (isException(document)) {
-            exceptionDetectorService.processException(document);
+    /**
+     * Drops client retries of events seen within the dedup window, and repeats of an event within the batch.
+     * Event IDs are only remembered once the pipeline has accepted the batch, so a request rejected with 429
+     * can be retried safely. Duplicates still count as accepted: the client's earlier attempt, or the first
+     * copy in the batch, is stored. All documents must belong to the same project. Drop and sampling rules
+     * are applied first; filtered events also count as accepted, and are counted once the batch is admitted.
+     * Surviving documents are scrubbed of PII in place before admission.
+     */
+    public void submit(List<LogEntryDocument> batch) {
+        IngestionRuleEngine.Filtered filtered = ingestionRuleEngine.apply(batch);
+        List<LogEntryDocument> documents = filtered.kept();
+        List<LogEntryDocument> fresh = documents;
+        Set<Long> batchKeys = new HashSet<>();
+        for (int i = 0; i < documents.size(); i++) {
+            LogEntryDocument document = documents.get(i);
+            if (document.getEventId() == null) {
+                continue;
+            }
+            long key = eventKey(document);
+            if (recentEventIds.contains(key) || !batchKeys.add(key)) {
+                Set<Long> kept = new HashSet<>();
+                fresh = documents.stream()
+                    .filter(doc -> doc.getEventId() == null
+                        || (!recentEventIds.contains(eventKey(doc)) && kept.add(eventKey(doc))))
+                    .toList();
+                log.debug("Dropped {} duplicate events for project {}",
+                    documents.size() - fresh.size(), document.getProjectId());
+                break;
+            }
+        }
+
+        piiScrubber.scrub(fresh);
+        ingestionPipeline.submit(fresh);
+        ingestionRuleEngine.recordFiltered(filtered);
+        if (!fresh.isEmpty()) {
+            rateLimiter.recordEvents(fresh.get(0).getProjectId(), fresh.get(0).getTenantId(), fresh.size());
+        }
+        for (LogEntryDocument document : fresh) {
+            if (document.getEventId() != null) {
+                recentEventIds.add(eventKey(document));
+            }
         }
     }
 
-    @Async
-    protected void saveAndProcessBatch(List<LogEntryDocument> documents) {
-        logEntryRepository.saveAll(documents);
-        
-        documents.stream()
-            .filter(this::isException)
-            .forEach(exceptionDetectorService::processException);
+    private static long eventKey(LogEntryDocument document) {
+        return DocumentIds.eventKey(document.getProjectId(), document.getEventId());
     }
 
-    private boolean isException(LogEntryDocument document) {
-        return "ERROR".equalsIgnoreCase(document.getLevel()) 
-            && document.getStackTrace() != null 
-            && !document.getStackTrace().isBlank();
+    private LogEntryDocument mapToDocument(LogEntryRequest request, ProjectContext project) {
+        return LogEntryDocuments.from(request, project, maxMessageLength, maxStackTraceLength);
     }
 }
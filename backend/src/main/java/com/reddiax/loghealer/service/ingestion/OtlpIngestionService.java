@@ -0,0 +1,289 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import com.reddiax.loghealer.document.LogEntryDocument;
+import io.opentelemetry.proto.collector.logs.v1.ExportLogsServiceRequest;
+import io.opentelemetry.proto.collector.trace.v1.ExportTraceServiceRequest;
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.logs.v1.LogRecord;
+import io.opentelemetry.proto.logs.v1.ResourceLogs;
+import io.opentelemetry.proto.logs.v1.ScopeLogs;
+import io.opentelemetry.proto.resource.v1.Resource;
+import io.opentelemetry.proto.trace.v1.ResourceSpans;
+import io.opentelemetry.proto.trace.v1.ScopeSpans;
+import io.opentelemetry.proto.trace.v1.Span;
+import io.opentelemetry.proto.trace.v1.Status;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OTLP/HTTP receiver for logs and traces. Export requests (binary protobuf or OTLP JSON) are mapped to
+ * {@link LogEntryDocument}s and submitted through the same path as native log batches. Spans become one
+ * document each, carrying span/parent IDs and duration, so they appear in trace timelines next to logs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OtlpIngestionService {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final JsonFormat.Parser JSON_PARSER = JsonFormat.parser().ignoringUnknownFields();
+
+    private final ProjectContextCache projectContextCache;
+    private final LogIngestionService logIngestionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${loghealer.ingestion.max-message-length:32768}")
+    private int maxMessageLength;
+
+    @Value("${loghealer.ingestion.max-stack-trace-length:65536}")
+    private int maxStackTraceLength;
+
+    public int ingestLogs(String apiKey, byte[] body, boolean json) {
+        ProjectContext project = projectContextCache.resolve(apiKey);
+        ExportLogsServiceRequest request;
+        try {
+            request = json
+                ? parseJson(body, ExportLogsServiceRequest.newBuilder()).build()
+                : ExportLogsServiceRequest.parseFrom(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed OTLP logs payload: " + e.getMessage());
+        }
+
+        List<LogEntryDocument> documents = new ArrayList<>();
+        for (ResourceLogs resourceLogs : request.getResourceLogsList()) {
+            Map<String, Object> resource = attributes(resourceLogs.getResource());
+            for (ScopeLogs scopeLogs : resourceLogs.getScopeLogsList()) {
+                String scope = emptyToNull(scopeLogs.getScope().getName());
+                for (LogRecord record : scopeLogs.getLogRecordsList()) {
+                    documents.add(mapLogRecord(record, scope, resource, project));
+                }
+            }
+        }
+
+        logIngestionService.submit(documents);
+        log.debug("Ingested {} OTLP logs for project: {}", documents.size(), project.name());
+        return documents.size();
+    }
+
+    public int ingestTraces(String apiKey, byte[] body, boolean json) {
+        ProjectContext project = projectContextCache.resolve(apiKey);
+        ExportTraceServiceRequest request;
+        try {
+            request = json
+                ? parseJson(body, ExportTraceServiceRequest.newBuilder()).build()
+                : ExportTraceServiceRequest.parseFrom(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed OTLP traces payload: " + e.getMessage());
+        }
+
+        List<LogEntryDocument> documents = new ArrayList<>();
+        for (ResourceSpans resourceSpans : request.getResourceSpansList()) {
+            Map<String, Object> resource = attributes(resourceSpans.getResource());
+            for (ScopeSpans scopeSpans : resourceSpans.getScopeSpansList()) {
+                String scope = emptyToNull(scopeSpans.getScope().getName());
+                for (Span span : scopeSpans.getSpansList()) {
+                    documents.add(mapSpan(span, scope, resource, project));
+                }
+            }
+        }
+
+        logIngestionService.submit(documents);
+        log.debug("Ingested {} OTLP spans for project: {}", documents.size(), project.name());
+        return documents.size();
+    }
+
+    private LogEntryDocument mapLogRecord(LogRecord record, String scope, Map<String, Object> resource,
+                                          ProjectContext project) {
+        Map<String, Object> attributes = attributes(record.getAttributesList());
+        long nanos = record.getTimeUnixNano() != 0 ? record.getTimeUnixNano() : record.getObservedTimeUnixNano();
+        Instant timestamp = nanos != 0 ? Instant.ofEpochSecond(0, nanos) : Instant.now();
+
+        String message = record.hasBody() ? asString(record.getBody()) : null;
+        Object exceptionMessage = attributes.remove("exception.message");
+        if ((message == null || message.isEmpty()) && exceptionMessage != null) {
+            message = exceptionMessage.toString();
+        }
+
+        return LogEntryDocument.builder()
+            .id(DocumentIds.random(timestamp))
+            .projectId(project.projectId())
+            .tenantId(project.tenantId())
+            .level(level(record))
+            .logger(scope)
+            .message(LogEntryDocuments.truncate(message, maxMessageLength))
+            .stackTrace(LogEntryDocuments.truncate(stringAttribute(attributes, "exception.stacktrace"),
+                maxStackTraceLength))
+            .exceptionClass(stringAttribute(attributes, "exception.type"))
+            .threadName(stringAttribute(attributes, "thread.name"))
+            .metadata(attributes.isEmpty() ? null : attributes)
+            .timestamp(timestamp)
+            .traceId(hex(record.getTraceId()))
+            .spanId(hex(record.getSpanId()))
+            .serviceName(stringValue(resource, "service.name"))
+            .hostName(stringValue(resource, "host.name"))
+            .environment(environment(resource))
+            .build();
+    }
+
+    private LogEntryDocument mapSpan(Span span, String scope, Map<String, Object> resource, ProjectContext project) {
+        Map<String, Object> metadata = attributes(span.getAttributesList());
+        Instant timestamp = span.getStartTimeUnixNano() != 0
+            ? Instant.ofEpochSecond(0, span.getStartTimeUnixNano())
+            : Instant.now();
+        metadata.put("otel.signal", "span");
+        metadata.put("span.kind", span.getKind().name());
+        metadata.put("durationMs", Math.max(0, span.getEndTimeUnixNano() - span.getStartTimeUnixNano()) / 1_000_000);
+        if (!span.getStatus().getMessage().isEmpty()) {
+            metadata.put("status.message", span.getStatus().getMessage());
+        }
+
+        String exceptionClass = null;
+        String stackTrace = null;
+        for (Span.Event event : span.getEventsList()) {
+            if ("exception".equals(event.getName())) {
+                Map<String, Object> exception = attributes(event.getAttributesList());
+                exceptionClass = stringAttribute(exception, "exception.type");
+                stackTrace = stringAttribute(exception, "exception.stacktrace");
+                break;
+            }
+        }
+
+        String traceId = hex(span.getTraceId());
+        String spanId = hex(span.getSpanId());
+        boolean error = span.getStatus().getCode() == Status.StatusCode.STATUS_CODE_ERROR;
+        return LogEntryDocument.builder()
+            .id(traceId != null && spanId != null
+                ? DocumentIds.forEvent(project.projectId(), traceId + spanId, timestamp)
+                : DocumentIds.random(timestamp))
+            .eventId(traceId != null && spanId != null ? traceId + spanId : null)
+            .projectId(project.projectId())
+            .tenantId(project.tenantId())
+            .level(error ? "ERROR" : "INFO")
+            .logger(scope)
+            .message(LogEntryDocuments.truncate(span.getName(), maxMessageLength))
+            .stackTrace(LogEntryDocuments.truncate(stackTrace, maxStackTraceLength))
+            .exceptionClass(exceptionClass)
+            .metadata(metadata)
+            .timestamp(timestamp)
+            .traceId(traceId)
+            .spanId(spanId)
+            .parentSpanId(hex(span.getParentSpanId()))
+            .serviceName(stringValue(resource, "service.name"))
+            .hostName(stringValue(resource, "host.name"))
+            .environment(environment(resource))
+            .build();
+    }
+
+    /**
+     * OTLP JSON encodes trace and span IDs as hex, while the protobuf JSON mapping expects base64 for
+     * bytes fields, so IDs are rewritten before handing the tree to {@link JsonFormat}.
+     */
+    private <B extends Message.Builder> B parseJson(byte[] body, B builder) throws IOException {
+        JsonNode tree = objectMapper.readTree(body);
+        rewriteIds(tree);
+        JSON_PARSER.merge(objectMapper.writeValueAsString(tree), builder);
+        return builder;
+    }
+
+    private void rewriteIds(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            for (String field : List.of("traceId", "spanId", "parentSpanId")) {
+                JsonNode value = object.get(field);
+                if (value != null && value.isTextual() && !value.asText().isEmpty()) {
+                    object.put(field, Base64.getEncoder().encodeToString(HEX.parseHex(value.asText())));
+                }
+            }
+        }
+        for (Iterator<JsonNode> children = node.elements(); children.hasNext(); ) {
+            rewriteIds(children.next());
+        }
+    }
+
+    private static String level(LogRecord record) {
+        int severity = record.getSeverityNumberValue();
+        if (severity >= 17) {
+            return "ERROR";
+        } else if (severity >= 13) {
+            return "WARN";
+        } else if (severity >= 9) {
+            return "INFO";
+        } else if (severity >= 5) {
+            return "DEBUG";
+        } else if (severity >= 1) {
+            return "TRACE";
+        }
+        return record.getSeverityText().isEmpty() ? "INFO" : record.getSeverityText().toUpperCase();
+    }
+
+    private static String environment(Map<String, Object> resource) {
+        String environment = stringValue(resource, "deployment.environment.name");
+        return environment != null ? environment : stringValue(resource, "deployment.environment");
+    }
+
+    private static Map<String, Object> attributes(Resource resource) {
+        return attributes(resource.getAttributesList());
+    }
+
+    private static Map<String, Object> attributes(List<KeyValue> keyValues) {
+        Map<String, Object> map = new HashMap<>(keyValues.size() * 2);
+        for (KeyValue keyValue : keyValues) {
+            map.put(keyValue.getKey(), toJava(keyValue.getValue()));
+        }
+        return map;
+    }
+
+    private static Object toJava(AnyValue value) {
+        return switch (value.getValueCase()) {
+            case STRING_VALUE -> value.getStringValue();
+            case BOOL_VALUE -> value.getBoolValue();
+            case INT_VALUE -> value.getIntValue();
+            case DOUBLE_VALUE -> value.getDoubleValue();
+            case BYTES_VALUE -> Base64.getEncoder().encodeToString(value.getBytesValue().toByteArray());
+            case ARRAY_VALUE -> value.getArrayValue().getValuesList().stream().map(OtlpIngestionService::toJava).toList();
+            case KVLIST_VALUE -> attributes(value.getKvlistValue().getValuesList());
+            case VALUE_NOT_SET -> null;
+        };
+    }
+
+    private static String asString(AnyValue value) {
+        Object java = toJava(value);
+        return java != null ? java.toString() : null;
+    }
+
+    private static String stringAttribute(Map<String, Object> attributes, String key) {
+        Object value = attributes.remove(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private static String stringValue(Map<String, Object> attributes, String key) {
+        Object value = attributes.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private static String hex(ByteString bytes) {
+        return bytes.isEmpty() ? null : HEX.formatHex(bytes.toByteArray());
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,156 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.entity.Project;
+import com.reddiax.loghealer.repository.jpa.ProjectRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches API key -> {@link ProjectContext} lookups for ingestion, including negative entries for
+ * unknown keys. Negative entries live in their own LRU map, so a flood of invalid keys only evicts other
+ * invalid keys. Invalidations are broadcast over Redis so every backend node drops stale entries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectContextCache implements MessageListener {
+
+    private final ProjectRepository projectRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${loghealer.ingestion.project-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${loghealer.ingestion.project-cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    @Value("${loghealer.ingestion.project-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${loghealer.ingestion.project-cache.negative-max-size:10000}")
+    private int negativeMaxSize;
+
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> unknownUntil = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > negativeMaxSize;
+        }
+    };
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(ProjectContext.INVALIDATION_CHANNEL));
+    }
+
+    public ProjectContext resolve(String apiKey) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalArgumentException("Invalid or inactive API key");
+        }
+
+        long now = System.nanoTime();
+        CacheEntry entry = entries.get(apiKey);
+        if (entry == null || entry.expiresAtNanos() - now <= 0) {
+            if (isKnownUnknown(apiKey, now)) {
+                throw new IllegalArgumentException("Invalid or inactive API key");
+            }
+            entry = load(apiKey, now);
+        }
+
+        ProjectContext context = entry.context();
+        if (context == null || !context.active()) {
+            throw new IllegalArgumentException("Invalid or inactive API key");
+        }
+        return context;
+    }
+
+    public void invalidate(String apiKey) {
+        forget(apiKey);
+        try {
+            stringRedisTemplate.convertAndSend(ProjectContext.INVALIDATION_CHANNEL, apiKey);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast project cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        forget(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void forget(String apiKey) {
+        entries.remove(apiKey);
+        synchronized (unknownUntil) {
+            unknownUntil.remove(apiKey);
+        }
+    }
+
+    private boolean isKnownUnknown(String apiKey, long now) {
+        synchronized (unknownUntil) {
+            Long until = unknownUntil.get(apiKey);
+            return until != null && until - now > 0;
+        }
+    }
+
+    private CacheEntry load(String apiKey, long now) {
+        ProjectContext context = projectRepository.findByApiKey(apiKey)
+                .map(ProjectContextCache::toContext)
+                .orElse(null);
+
+        if (context == null) {
+            log.warn("Invalid API key: {}...", apiKey.substring(0, Math.min(8, apiKey.length())));
+            synchronized (unknownUntil) {
+                unknownUntil.put(apiKey, now + TimeUnit.SECONDS.toNanos(negativeTtlSeconds));
+            }
+            return new CacheEntry(null, now);
+        }
+
+        CacheEntry entry = new CacheEntry(context, now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(apiKey, entry);
+        return entry;
+    }
+
+    // Only valid keys get here, so the map is as large as the number of live projects; when it is still full
+    // after dropping expired entries, the entry loaded longest ago goes
+    private void evict(long now) {
+        entries.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+        if (entries.size() < maxSize) {
+            return;
+        }
+        entries.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().expiresAtNanos() - now))
+                .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+    }
+
+    private static ProjectContext toContext(Project project) {
+        return new ProjectContext(
+                project.getId().toString(),
+                project.getTenant().getId().toString(),
+                project.getName(),
+                project.isActive(),
+                project.getPackagePrefix()
+        );
+    }
+
+    private record CacheEntry(ProjectContext context, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Memory-bounded set of recently ingested event keys used to drop client retries before indexing.
+ * Keys live in two generations of open-addressed {@code long} tables per stripe; the older generation
+ * is discarded once the current one is half full or older than the window, so memory stays at a fixed
+ * {@code ~32 bytes * capacity} and a key is remembered for at least one window unless more than
+ * {@code capacity} distinct events arrive within it.
+ */
+@Component
+public class RecentEventIdFilter {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public RecentEventIdFilter(
+            @Value("${loghealer.ingestion.dedup.capacity:262144}") int capacity,
+            @Value("${loghealer.ingestion.dedup.window-seconds:300}") long windowSeconds) {
+        int keysPerStripe = Math.max(512, capacity / STRIPES);
+        int slotsPerStripe = Integer.highestOneBit(keysPerStripe * 4 - 1);
+        long windowNanos = windowSeconds * 1_000_000_000L;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(slotsPerStripe, windowNanos);
+        }
+    }
+
+    public boolean contains(long key) {
+        return stripe(key).contains(nonZero(key));
+    }
+
+    public void add(long key) {
+        stripe(key).add(nonZero(key));
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) (key >>> 60) & (STRIPES - 1)];
+    }
+
+    private static long nonZero(long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    private static final class Stripe {
+
+        private final int slots;
+        private final long windowNanos;
+        private long[] current;
+        private long[] previous;
+        private int size;
+        private long generationStartNanos;
+
+        Stripe(int slots, long windowNanos) {
+            this.slots = slots;
+            this.windowNanos = windowNanos;
+            this.current = new long[slots];
+            this.previous = new long[slots];
+            this.generationStartNanos = System.nanoTime();
+        }
+
+        synchronized boolean contains(long key) {
+            return find(current, key) || find(previous, key);
+        }
+
+        synchronized void add(long key) {
+            if (size >= slots / 2 || System.nanoTime() - generationStartNanos > windowNanos) {
+                long[] recycled = previous;
+                Arrays.fill(recycled, 0L);
+                previous = current;
+                current = recycled;
+                size = 0;
+                generationStartNanos = System.nanoTime();
+            }
+            int mask = slots - 1;
+            int slot = (int) (key ^ (key >>> 32)) & mask;
+            while (current[slot] != 0) {
+                if (current[slot] == key) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            current[slot] = key;
+            size++;
+        }
+
+        private boolean find(long[] table, long key) {
+            int mask = slots - 1;
+            int slot = (int) (key ^ (key >>> 32)) & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == key) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses identical log lines (same project, level, logger and message once numbers and hex IDs are
+ * masked) that arrive within a window. The first occurrence is indexed immediately; later ones are only
+ * counted. When the window closes and repeats were seen, the first document is re-indexed under its own
+ * ID with {@code repeatCount}, {@code firstTimestamp}/{@code lastTimestamp} and a sample of distinct trace
+ * IDs, so each window costs one stored document and two writes however tight the retry loop is.
+ * <p>
+ * Windows are tracked in arrival order, so expiry only inspects the head of the map. Thread-safe via this
+ * object's monitor; hashing happens outside it.
+ */
+final class RepeatCollapser {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long windowMillis;
+    private final int maxWindows;
+    private final int traceSamples;
+    private final Map<Long, Window> windows = new LinkedHashMap<>();
+
+    RepeatCollapser(long windowMillis, int maxWindows, int traceSamples) {
+        this.windowMillis = windowMillis;
+        this.maxWindows = maxWindows;
+        this.traceSamples = traceSamples;
+    }
+
+    /**
+     * Returns the documents that must be indexed now. Documents absorbed as repeats are left out;
+     * {@code index} is remembered for the summary written when their window closes.
+     */
+    List<LogEntryDocument> collapse(String index, List<LogEntryDocument> documents, long nowMillis) {
+        long[] keys = new long[documents.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = collapsible(documents.get(i)) ? key(documents.get(i)) : 0;
+        }
+
+        List<LogEntryDocument> emit = new ArrayList<>(documents.size());
+        synchronized (this) {
+            for (int i = 0; i < keys.length; i++) {
+                LogEntryDocument document = documents.get(i);
+                if (keys[i] == 0) {
+                    emit.add(document);
+                    continue;
+                }
+                Window window = windows.get(keys[i]);
+                if (window != null && window.closesAt > nowMillis) {
+                    window.absorb(document, traceSamples);
+                    continue;
+                }
+                if (window == null && windows.size() >= maxWindows) {
+                    emit.add(document);
+                    continue;
+                }
+                if (window != null) {
+                    windows.remove(keys[i]);
+                    LogEntryDocument summary = window.summary();
+                    if (summary != null) {
+                        emit.add(summary);
+                    }
+                }
+                windows.put(keys[i], new Window(index, document, nowMillis + windowMillis));
+                emit.add(document);
+            }
+        }
+        return emit;
+    }
+
+    /**
+     * Removes windows that have closed and returns summaries for those that absorbed repeats, paired
+     * with the index their first document went to.
+     */
+    synchronized List<Map.Entry<String, LogEntryDocument>> expire(long nowMillis) {
+        List<Map.Entry<String, LogEntryDocument>> summaries = null;
+        for (Iterator<Window> it = windows.values().iterator(); it.hasNext(); ) {
+            Window window = it.next();
+            if (window.closesAt > nowMillis) {
+                break;
+            }
+            it.remove();
+            LogEntryDocument summary = window.summary();
+            if (summary != null) {
+                if (summaries == null) {
+                    summaries = new ArrayList<>();
+                }
+                summaries.add(Map.entry(window.index, summary));
+            }
+        }
+        return summaries != null ? summaries : List.of();
+    }
+
+    // Spans share names by design; collapsing them would break trace timelines
+    private static boolean collapsible(LogEntryDocument document) {
+        return document.getMessage() != null
+            && (document.getMetadata() == null || !document.getMetadata().containsKey("otel.signal"));
+    }
+
+    private static long key(LogEntryDocument document) {
+        long hash = FNV_OFFSET;
+        hash = update(hash, document.getProjectId());
+        hash = update(hash, document.getLevel());
+        hash = update(hash, document.getLogger());
+        hash = updateNormalized(hash, document.getMessage());
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long update(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ 0xff) * FNV_PRIME;
+    }
+
+    /**
+     * Hashes the message with every token that contains a digit (counters, ports, durations, hex and
+     * UUID identifiers) replaced by a single placeholder, without building the normalized string.
+     */
+    private static long updateNormalized(long hash, String message) {
+        int length = message.length();
+        int i = 0;
+        while (i < length) {
+            char c = message.charAt(i);
+            if (!isIdChar(c)) {
+                hash = (hash ^ c) * FNV_PRIME;
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean hasDigit = false;
+            while (i < length && isIdChar(message.charAt(i))) {
+                hasDigit |= Character.isDigit(message.charAt(i));
+                i++;
+            }
+            if (hasDigit) {
+                hash = (hash ^ '#') * FNV_PRIME;
+            } else {
+                for (int j = start; j < i; j++) {
+                    hash = (hash ^ message.charAt(j)) * FNV_PRIME;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static boolean isIdChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.';
+    }
+
+    private static final class Window {
+
+        final String index;
+        final LogEntryDocument first;
+        final long closesAt;
+        final List<String> traceIds = new ArrayList<>(2);
+        int repeats;
+        Instant lastTimestamp;
+
+        Window(String index, LogEntryDocument first, long closesAt) {
+            this.index = index;
+            this.first = first;
+            this.closesAt = closesAt;
+            this.lastTimestamp = first.getTimestamp();
+            if (first.getTraceId() != null) {
+                traceIds.add(first.getTraceId());
+            }
+        }
+
+        void absorb(LogEntryDocument document, int traceSamples) {
+            repeats++;
+            if (document.getTimestamp() != null
+                    && (lastTimestamp == null || document.getTimestamp().isAfter(lastTimestamp))) {
+                lastTimestamp = document.getTimestamp();
+            }
+            String traceId = document.getTraceId();
+            if (traceId != null && traceIds.size() < traceSamples && !traceIds.contains(traceId)) {
+                traceIds.add(traceId);
+            }
+        }
+
+        LogEntryDocument summary() {
+            if (repeats == 0) {
+                return null;
+            }
+            return first.toBuilder()
+                .repeatCount(repeats + 1)
+                .firstTimestamp(first.getTimestamp())
+                .lastTimestamp(lastTimestamp)
+                .repeatTraceIds(traceIds.isEmpty() ? null : List.copyOf(traceIds))
+                .build();
+        }
+    }
+}
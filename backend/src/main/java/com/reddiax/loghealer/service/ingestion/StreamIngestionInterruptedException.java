@@ -0,0 +1,23 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import lombok.Getter;
+
+/**
+ * A log stream that stopped part way, after some chunks were already handed to the pipeline. The cause says
+ * why (a full queue or an oversized body); the counts tell the client which records it must not send again:
+ * the first {@code processedRecords} records of the stream were all read, {@code accepted} of them stored.
+ */
+@Getter
+public class StreamIngestionInterruptedException extends RuntimeException {
+
+    private final int accepted;
+    private final int rejected;
+    private final int processedRecords;
+
+    public StreamIngestionInterruptedException(Exception cause, int accepted, int rejected, int processedRecords) {
+        super(cause.getMessage(), cause);
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.processedRecords = processedRecords;
+    }
+}
@@ -0,0 +1,262 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log made of fixed-size, memory-mapped segment files.
+ * Each record is {@code [int length][int crc32c][payload]}; a zero length marks the end of the data
+ * written to a segment. There is a single writer (serialized by this object's monitor) and a single
+ * reader that never reads past the last fully written record. The reader's committed position is
+ * persisted in a checkpoint file and segments entirely before it are deleted.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+
+    private MappedByteBuffer writeBuffer;
+    private long writeSegment;
+    private int writeOffset;
+    private volatile long published;
+
+    private long readSegment;
+    private int readOffset;
+    private MappedByteBuffer readBuffer;
+    private long readBufferSegment = -1;
+
+    private volatile long checkpointSegment;
+
+    public WriteAheadLog(Path directory, int segmentBytes, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+
+        Files.createDirectories(directory);
+        loadCheckpoint();
+
+        List<Long> segments = listSegments();
+        for (long segment : segments) {
+            if (segment < checkpointSegment) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        segments = listSegments();
+
+        if (segments.isEmpty()) {
+            openWriteSegment(checkpointSegment);
+            writeOffset = 0;
+            readSegment = checkpointSegment;
+            readOffset = 0;
+        } else {
+            if (readSegment < segments.get(0)) {
+                readSegment = segments.get(0);
+                readOffset = 0;
+            }
+            openWriteSegment(segments.get(segments.size() - 1));
+            writeOffset = recover(writeBuffer);
+        }
+        publish();
+        log.info("Write-ahead log opened at {} (read={}:{}, write={}:{})",
+            directory, readSegment, readOffset, writeSegment, writeOffset);
+    }
+
+    public synchronized void append(byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes) {
+            throw new IOException("Record of " + payload.length + " bytes exceeds WAL segment size " + segmentBytes);
+        }
+        if (writeOffset + recordBytes > segmentBytes) {
+            rollSegment();
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        writeBuffer.put(writeOffset + HEADER_BYTES, payload);
+        writeBuffer.putInt(writeOffset + 4, (int) crc.getValue());
+        writeBuffer.putInt(writeOffset, payload.length);
+        if (fsync) {
+            writeBuffer.force(writeOffset, recordBytes);
+        }
+        writeOffset += recordBytes;
+        publish();
+    }
+
+    /**
+     * Returns the next unread record, or {@code null} if the reader has caught up with the writer.
+     * Must only be called from the single reader thread.
+     */
+    public Record readNext() throws IOException {
+        while (true) {
+            long end = published;
+            long endSegment = end >>> 32;
+            int endOffset = (int) end;
+            if (readSegment > endSegment || (readSegment == endSegment && readOffset >= endOffset)) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = readBuffer(readSegment);
+            int length = readOffset + HEADER_BYTES <= segmentBytes ? buffer.getInt(readOffset) : 0;
+            if (length <= 0) {
+                readSegment++;
+                readOffset = 0;
+                continue;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(readOffset + HEADER_BYTES, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(readOffset + 4)) {
+                log.error("Corrupt WAL record at {}:{}, skipping rest of segment", readSegment, readOffset);
+                readSegment++;
+                readOffset = 0;
+                continue;
+            }
+
+            readOffset += HEADER_BYTES + length;
+            return new Record(readSegment, readOffset, payload);
+        }
+    }
+
+    /**
+     * Marks everything up to and including {@code record} as processed and drops fully consumed segments.
+     */
+    public void commit(Record record) throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        checkpoint.putLong(record.segment()).putInt(record.endOffset()).flip();
+
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(checkpoint);
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (long segment = checkpointSegment; segment < record.segment(); segment++) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        checkpointSegment = record.segment();
+    }
+
+    public long sizeBytes() {
+        return ((published >>> 32) - checkpointSegment + 1) * segmentBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writeBuffer != null) {
+            writeBuffer.force();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        writeBuffer.force();
+        openWriteSegment(writeSegment + 1);
+        writeOffset = 0;
+    }
+
+    private void openWriteSegment(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        writeSegment = segment;
+    }
+
+    private MappedByteBuffer readBuffer(long segment) throws IOException {
+        if (readBufferSegment != segment) {
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                readBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentBytes);
+            }
+            readBufferSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    /**
+     * Finds the end of the last intact record in a segment and wipes any torn write after it.
+     */
+    private int recover(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentBytes) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_BYTES, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("Discarding torn WAL record at {}:{}", writeSegment, offset);
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+
+        if (offset + HEADER_BYTES <= segmentBytes && buffer.getInt(offset) != 0) {
+            byte[] zeros = new byte[8192];
+            for (int pos = offset; pos < segmentBytes; pos += zeros.length) {
+                buffer.put(pos, zeros, 0, Math.min(zeros.length, segmentBytes - pos));
+            }
+            buffer.force();
+        }
+        return offset;
+    }
+
+    private void loadCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+            readSegment = buffer.getLong();
+            readOffset = buffer.getInt();
+        }
+        checkpointSegment = readSegment;
+    }
+
+    private void publish() {
+        published = (writeSegment << 32) | (writeOffset & 0xFFFFFFFFL);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    public record Record(long segment, int endOffset, byte[] payload) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.reddiax.loghealer.service.ingestion.syslog;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Small direct-mapped cache from short byte sequences to strings. Syslog host and app names repeat on
+ * almost every message, so decoding them once per connection avoids a String per field per message.
+ */
+final class AsciiCache {
+
+    private static final int MAX_KEY_BYTES = 64;
+
+    private final byte[][] keys;
+    private final String[] values;
+    private final int mask;
+
+    AsciiCache(int slots) {
+        int size = Integer.highestOneBit(Math.max(16, slots) * 2 - 1);
+        keys = new byte[size][];
+        values = new String[size];
+        mask = size - 1;
+    }
+
+    String get(ByteBuf buf, int start, int end) {
+        if (start < 0 || end <= start) {
+            return null;
+        }
+        int length = end - start;
+        if (length > MAX_KEY_BYTES) {
+            return buf.toString(start, length, StandardCharsets.UTF_8);
+        }
+
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buf.getByte(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        byte[] key = keys[slot];
+        if (key != null && key.length == length && matches(buf, start, key)) {
+            return values[slot];
+        }
+
+        byte[] bytes = new byte[length];
+        buf.getBytes(start, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        keys[slot] = bytes;
+        values[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(ByteBuf buf, int start, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (buf.getByte(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package com.reddiax.loghealer.service.ingestion.syslog;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * Splits a syslog TCP stream into frames (RFC 6587). A frame starting with a digit uses octet counting
+ * ({@code MSG-LEN SP SYSLOG-MSG}); anything else is newline-delimited. Frames are emitted as retained
+ * slices of the cumulation buffer, so no message bytes are copied.
+ */
+class SyslogFrameDecoder extends ByteToMessageDecoder {
+
+    private final int maxFrameBytes;
+    private boolean discarding;
+
+    SyslogFrameDecoder(int maxFrameBytes) {
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        int start = in.readerIndex();
+        int end = in.writerIndex();
+
+        if (discarding) {
+            int lf = in.indexOf(start, end, (byte) '\n');
+            in.readerIndex(lf < 0 ? end : lf + 1);
+            discarding = lf < 0;
+            return;
+        }
+
+        byte first = in.getByte(start);
+        if (first >= '1' && first <= '9') {
+            int length = 0;
+            int i = start;
+            for (; i < end; i++) {
+                byte b = in.getByte(i);
+                if (b == ' ') {
+                    break;
+                }
+                if (b < '0' || b > '9') {
+                    throw new CorruptedFrameException("Invalid syslog octet count");
+                }
+                length = length * 10 + (b - '0');
+                if (length > maxFrameBytes) {
+                    throw new TooLongFrameException("Syslog frame exceeds " + maxFrameBytes + " bytes");
+                }
+            }
+            if (i == end || end - (i + 1) < length) {
+                return;
+            }
+            out.add(in.retainedSlice(i + 1, length));
+            in.readerIndex(i + 1 + length);
+            return;
+        }
+
+        int lf = in.indexOf(start, end, (byte) '\n');
+        if (lf < 0) {
+            if (end - start > maxFrameBytes) {
+                in.readerIndex(end);
+                discarding = true;
+            }
+            return;
+        }
+        int frameEnd = lf > start && in.getByte(lf - 1) == '\r' ? lf - 1 : lf;
+        if (frameEnd > start) {
+            out.add(in.retainedSlice(start, Math.min(frameEnd - start, maxFrameBytes)));
+        }
+        in.readerIndex(lf + 1);
+    }
+}
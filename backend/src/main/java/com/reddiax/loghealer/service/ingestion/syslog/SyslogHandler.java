@@ -0,0 +1,251 @@
+package com.reddiax.loghealer.service.ingestion.syslog;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.service.ingestion.DocumentIds;
+import com.reddiax.loghealer.service.ingestion.ProjectContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses syslog frames (TCP) or datagrams (UDP) and batches the resulting documents per project until
+ * the end of each read burst. One instance per channel, so all state is confined to the channel's
+ * handler executor.
+ */
+@Slf4j
+class SyslogHandler extends ChannelInboundHandlerAdapter {
+
+    private static final String[] LEVELS = {"ERROR", "ERROR", "ERROR", "ERROR", "WARN", "INFO", "INFO", "DEBUG"};
+    private static final String[] FACILITIES = {
+        "kern", "user", "mail", "daemon", "auth", "syslog", "lpr", "news", "uucp", "cron", "authpriv", "ftp",
+        "ntp", "security", "console", "solaris-cron", "local0", "local1", "local2", "local3", "local4",
+        "local5", "local6", "local7"
+    };
+    private static final long RETRY_DELAY_MS = 500;
+    private static final int MAX_CACHED_SENDERS = 4096;
+
+    private final SyslogServer server;
+    private final int batchSize;
+    private final int maxMessageLength;
+    private final boolean stream;
+
+    private final SyslogMessage message = new SyslogMessage();
+    private final AsciiCache strings = new AsciiCache(256);
+    private final Map<InetAddress, String> senderApiKeys = new HashMap<>();
+    private final Map<String, Batch> batches = new HashMap<>();
+    private final List<Batch> blocked = new ArrayList<>();
+
+    private InetAddress remoteAddress;
+
+    SyslogHandler(SyslogServer server, int batchSize, int maxMessageLength, boolean stream) {
+        this.server = server;
+        this.batchSize = batchSize;
+        this.maxMessageLength = maxMessageLength;
+        this.stream = stream;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().remoteAddress() instanceof InetSocketAddress remote) {
+            remoteAddress = remote.getAddress();
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        try {
+            if (msg instanceof DatagramPacket packet) {
+                accept(ctx, packet.content(), packet.sender().getAddress());
+            } else if (msg instanceof ByteBuf frame) {
+                accept(ctx, frame, remoteAddress);
+            }
+        } catch (RuntimeException e) {
+            // One bad frame must not take the connection, or on UDP the whole listener, down with it
+            log.warn("Dropping malformed syslog frame from {}", remoteAddress(msg), e);
+            server.countDropped("malformed", 1);
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        for (Iterator<Batch> it = batches.values().iterator(); it.hasNext(); ) {
+            Batch batch = it.next();
+            it.remove();
+            flush(ctx, batch);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        channelReadComplete(ctx);
+        for (Batch batch : blocked) {
+            server.countDropped("closed", batch.documents.size());
+        }
+        blocked.clear();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        if (!stream) {
+            // The datagram channel is the listener itself, so it stays open
+            log.error("Syslog UDP listener error", cause);
+            return;
+        }
+        log.warn("Closing syslog connection from {}: {}", remoteAddress, cause.getMessage());
+        ctx.close();
+    }
+
+    private InetAddress remoteAddress(Object msg) {
+        return msg instanceof DatagramPacket packet ? packet.sender().getAddress() : remoteAddress;
+    }
+
+    private void accept(ChannelHandlerContext ctx, ByteBuf frame, InetAddress sender) {
+        long now = System.currentTimeMillis();
+        boolean parsed = SyslogParser.parse(frame, message, now);
+        if (!parsed) {
+            message.messageStart = frame.readerIndex();
+            message.messageEnd = frame.writerIndex();
+        }
+        while (message.messageEnd > message.messageStart
+                && (frame.getByte(message.messageEnd - 1) == '\n' || frame.getByte(message.messageEnd - 1) == '\r')) {
+            message.messageEnd--;
+        }
+
+        String host = strings.get(frame, message.hostStart, message.hostEnd);
+        String apiKey = apiKeyFor(sender, host);
+        if (apiKey == null) {
+            server.countDropped("unmapped_source", 1);
+            return;
+        }
+
+        Batch batch = batches.get(apiKey);
+        if (batch == null) {
+            ProjectContext project = server.resolve(apiKey);
+            if (project == null) {
+                server.countDropped("invalid_api_key", 1);
+                return;
+            }
+            batch = new Batch(project, batchSize);
+            batches.put(apiKey, batch);
+        }
+
+        batch.documents.add(toDocument(frame, batch.project, host, parsed, now));
+        if (batch.documents.size() >= batchSize) {
+            batches.remove(apiKey);
+            flush(ctx, batch);
+        }
+    }
+
+    private String apiKeyFor(InetAddress sender, String host) {
+        String apiKey = senderApiKeys.get(sender);
+        if (apiKey == null) {
+            if (senderApiKeys.size() >= MAX_CACHED_SENDERS) {
+                senderApiKeys.clear();
+            }
+            apiKey = server.apiKeyForAddress(sender);
+            senderApiKeys.put(sender, apiKey);
+        }
+        return apiKey.isEmpty() ? server.apiKeyForHost(host) : apiKey;
+    }
+
+    private LogEntryDocument toDocument(ByteBuf frame, ProjectContext project, String host, boolean parsed, long now) {
+        Instant timestamp = Instant.ofEpochMilli(message.timestampMillis >= 0 ? message.timestampMillis : now);
+        String app = strings.get(frame, message.appStart, message.appEnd);
+        int messageLength = Math.max(0, Math.min(message.messageEnd - message.messageStart, maxMessageLength));
+
+        return LogEntryDocument.builder()
+            .id(DocumentIds.random(timestamp))
+            .projectId(project.projectId())
+            .tenantId(project.tenantId())
+            .level(parsed ? LEVELS[message.severity()] : "INFO")
+            .logger(app)
+            .message(frame.toString(message.messageStart, messageLength, StandardCharsets.UTF_8))
+            .metadata(parsed ? metadata(frame) : null)
+            .timestamp(timestamp)
+            .serviceName(app)
+            .hostName(host)
+            .build();
+    }
+
+    private Map<String, Object> metadata(ByteBuf frame) {
+        Map<String, Object> metadata = new HashMap<>(4);
+        metadata.put("facility", FACILITIES[message.facility()]);
+        if (message.procIdStart >= 0) {
+            metadata.put("procId", frame.toString(message.procIdStart,
+                message.procIdEnd - message.procIdStart, StandardCharsets.US_ASCII));
+        }
+        if (message.msgIdStart >= 0) {
+            metadata.put("msgId", strings.get(frame, message.msgIdStart, message.msgIdEnd));
+        }
+        return metadata;
+    }
+
+    private void flush(ChannelHandlerContext ctx, Batch batch) {
+        if (batch.documents.isEmpty()) {
+            return;
+        }
+        if (!blocked.isEmpty() || !server.submit(batch.project, batch.documents)) {
+            if (stream) {
+                blocked.add(batch);
+                pauseAndRetry(ctx);
+            } else {
+                server.countDropped("saturated", batch.documents.size());
+            }
+        }
+    }
+
+    /**
+     * TCP backpressure: stop reading from the socket (the sender's buffers fill and it slows down) and
+     * retry the held batches until the pipeline accepts them.
+     */
+    private void pauseAndRetry(ChannelHandlerContext ctx) {
+        if (!ctx.channel().config().isAutoRead()) {
+            return;
+        }
+        ctx.channel().config().setAutoRead(false);
+        ctx.executor().schedule(() -> retryBlocked(ctx), RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void retryBlocked(ChannelHandlerContext ctx) {
+        while (!blocked.isEmpty()) {
+            Batch batch = blocked.get(0);
+            if (!server.submit(batch.project, batch.documents)) {
+                if (ctx.channel().isActive()) {
+                    ctx.executor().schedule(() -> retryBlocked(ctx), RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            blocked.remove(0);
+        }
+        ctx.channel().config().setAutoRead(true);
+    }
+
+    private static final class Batch {
+
+        final ProjectContext project;
+        final List<LogEntryDocument> documents;
+
+        Batch(ProjectContext project, int capacity) {
+            this.project = project;
+            this.documents = new ArrayList<>(Math.min(capacity, 64));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.reddiax.loghealer.service.ingestion.syslog;
+
+/**
+ * Reusable parse result. Fields are byte offsets into the frame being parsed rather than copies, so a
+ * header can be parsed without allocating; {@code -1} marks an absent (nil) field.
+ */
+final class SyslogMessage {
+
+    int priority;
+    long timestampMillis;
+    int hostStart;
+    int hostEnd;
+    int appStart;
+    int appEnd;
+    int procIdStart;
+    int procIdEnd;
+    int msgIdStart;
+    int msgIdEnd;
+    int messageStart;
+    int messageEnd;
+
+    void reset() {
+        priority = -1;
+        timestampMillis = -1;
+        hostStart = hostEnd = -1;
+        appStart = appEnd = -1;
+        procIdStart = procIdEnd = -1;
+        msgIdStart = msgIdEnd = -1;
+        messageStart = messageEnd = -1;
+    }
+
+    int severity() {
+        return priority & 7;
+    }
+
+    int facility() {
+        return priority >> 3;
+    }
+}
@@ -0,0 +1,305 @@
+package com.reddiax.loghealer.service.ingestion.syslog;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.TimeZone;
+
+/**
+ * Allocation-free parser for RFC 5424 and RFC 3164 (BSD) syslog headers. It only records field offsets
+ * into a {@link SyslogMessage}; callers decide which fields are worth turning into strings.
+ */
+final class SyslogParser {
+
+    private static final byte SP = ' ';
+    private static final byte NIL = '-';
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+    private static final TimeZone LOCAL_ZONE = TimeZone.getDefault();
+
+    private SyslogParser() {
+    }
+
+    /**
+     * Parses the readable bytes of {@code frame}. Returns {@code false} if there is no valid PRI, in which
+     * case the frame should be treated as a bare message.
+     */
+    static boolean parse(ByteBuf frame, SyslogMessage message, long nowMillis) {
+        message.reset();
+        int i = frame.readerIndex();
+        int end = frame.writerIndex();
+        if (i >= end || frame.getByte(i) != '<') {
+            return false;
+        }
+
+        int priority = 0;
+        int digits = 0;
+        for (i++; i < end && frame.getByte(i) != '>'; i++, digits++) {
+            int digit = frame.getByte(i) - '0';
+            if (digit < 0 || digit > 9 || digits == 3) {
+                return false;
+            }
+            priority = priority * 10 + digit;
+        }
+        if (i >= end || digits == 0 || priority > 191) {
+            return false;
+        }
+        message.priority = priority;
+        i++;
+
+        if (i + 1 < end && frame.getByte(i) == '1' && frame.getByte(i + 1) == SP) {
+            parse5424(frame, i + 2, end, message);
+        } else {
+            parse3164(frame, i, end, message, nowMillis);
+        }
+        return true;
+    }
+
+    // TIMESTAMP SP HOSTNAME SP APP-NAME SP PROCID SP MSGID SP STRUCTURED-DATA [SP MSG]
+    private static void parse5424(ByteBuf frame, int i, int end, SyslogMessage message) {
+        int tokenEnd = tokenEnd(frame, i, end);
+        message.timestampMillis = isNil(frame, i, tokenEnd) ? -1 : parseRfc3339(frame, i, tokenEnd);
+        i = Math.min(end, tokenEnd + 1);
+
+        tokenEnd = tokenEnd(frame, i, end);
+        if (isPresent(frame, i, tokenEnd)) {
+            message.hostStart = i;
+            message.hostEnd = tokenEnd;
+        }
+        i = Math.min(end, tokenEnd + 1);
+
+        tokenEnd = tokenEnd(frame, i, end);
+        if (isPresent(frame, i, tokenEnd)) {
+            message.appStart = i;
+            message.appEnd = tokenEnd;
+        }
+        i = Math.min(end, tokenEnd + 1);
+
+        tokenEnd = tokenEnd(frame, i, end);
+        if (isPresent(frame, i, tokenEnd)) {
+            message.procIdStart = i;
+            message.procIdEnd = tokenEnd;
+        }
+        i = Math.min(end, tokenEnd + 1);
+
+        tokenEnd = tokenEnd(frame, i, end);
+        if (isPresent(frame, i, tokenEnd)) {
+            message.msgIdStart = i;
+            message.msgIdEnd = tokenEnd;
+        }
+        i = Math.min(end, tokenEnd + 1);
+
+        i = skipStructuredData(frame, i, end);
+        if (i < end && frame.getByte(i) == SP) {
+            i++;
+        }
+        if (i + 2 < end && frame.getByte(i) == (byte) 0xEF
+                && frame.getByte(i + 1) == (byte) 0xBB && frame.getByte(i + 2) == (byte) 0xBF) {
+            i += 3;
+        }
+        if (i < end) {
+            message.messageStart = i;
+            message.messageEnd = end;
+        }
+    }
+
+    // Mmm dd hh:mm:ss SP HOSTNAME SP TAG[PID]: MSG
+    private static void parse3164(ByteBuf frame, int i, int end, SyslogMessage message, long nowMillis) {
+        long timestamp = parseBsdTimestamp(frame, i, end, nowMillis);
+        if (timestamp >= 0) {
+            message.timestampMillis = timestamp;
+            i += 16;
+
+            int tokenEnd = tokenEnd(frame, i, end);
+            if (tokenEnd > i) {
+                message.hostStart = i;
+                message.hostEnd = tokenEnd;
+            }
+            i = Math.min(end, tokenEnd + 1);
+        }
+
+        int tagEnd = i;
+        while (tagEnd < end && tagEnd - i < 48) {
+            byte b = frame.getByte(tagEnd);
+            if (b == ':' || b == '[' || b == SP) {
+                break;
+            }
+            tagEnd++;
+        }
+        if (tagEnd < end && tagEnd > i && frame.getByte(tagEnd) != SP) {
+            message.appStart = i;
+            message.appEnd = tagEnd;
+            i = tagEnd;
+            if (frame.getByte(i) == '[') {
+                int close = frame.indexOf(i, end, (byte) ']');
+                if (close > 0) {
+                    message.procIdStart = i + 1;
+                    message.procIdEnd = close;
+                    i = close + 1;
+                }
+            }
+            if (i < end && frame.getByte(i) == ':') {
+                i++;
+            }
+            if (i < end && frame.getByte(i) == SP) {
+                i++;
+            }
+        }
+        if (i < end) {
+            message.messageStart = i;
+            message.messageEnd = end;
+        }
+    }
+
+    private static int skipStructuredData(ByteBuf frame, int i, int end) {
+        if (i < end && frame.getByte(i) == NIL) {
+            return i + 1;
+        }
+        while (i < end && frame.getByte(i) == '[') {
+            boolean quoted = false;
+            for (i++; i < end; i++) {
+                byte b = frame.getByte(i);
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == ']' && !quoted) {
+                    i++;
+                    break;
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Parses {@code YYYY-MM-DDThh:mm:ss[.fraction](Z|+hh:mm|-hh:mm)}; returns -1 if malformed.
+     */
+    private static long parseRfc3339(ByteBuf frame, int i, int end) {
+        if (end - i < 20 || frame.getByte(i + 4) != '-' || frame.getByte(i + 10) != 'T') {
+            return -1;
+        }
+        int year = digits(frame, i, 4);
+        int month = digits(frame, i + 5, 2);
+        int day = digits(frame, i + 8, 2);
+        int hour = digits(frame, i + 11, 2);
+        int minute = digits(frame, i + 14, 2);
+        int second = digits(frame, i + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return -1;
+        }
+
+        int p = i + 19;
+        int millis = 0;
+        if (p < end && frame.getByte(p) == '.') {
+            int scale = 100;
+            for (p++; p < end; p++) {
+                int digit = frame.getByte(p) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                millis += digit * scale;
+                scale /= 10;
+            }
+        }
+
+        int offsetSeconds = 0;
+        if (p < end && frame.getByte(p) != 'Z') {
+            if (end - p < 6) {
+                return -1;
+            }
+            int sign = frame.getByte(p) == '-' ? -1 : 1;
+            int offsetHours = digits(frame, p + 1, 2);
+            int offsetMinutes = digits(frame, p + 4, 2);
+            if ((offsetHours | offsetMinutes) < 0) {
+                return -1;
+            }
+            offsetSeconds = sign * (offsetHours * 3600 + offsetMinutes * 60);
+        }
+
+        long epochSeconds = daysFromCivil(year, month, day) * 86400L + hour * 3600L + minute * 60L + second;
+        return (epochSeconds - offsetSeconds) * 1000L + millis;
+    }
+
+    /**
+     * Parses {@code Mmm dd hh:mm:ss } in the server's zone. BSD timestamps carry no year, so the current one
+     * is assumed unless that would put the message more than a day in the future (December logs read in
+     * January). Returns -1 if the frame does not start with a BSD timestamp.
+     */
+    private static long parseBsdTimestamp(ByteBuf frame, int i, int end, long nowMillis) {
+        if (end - i < 16 || frame.getByte(i + 3) != SP || frame.getByte(i + 15) != SP) {
+            return -1;
+        }
+        int month = -1;
+        for (int m = 0; m < 12; m++) {
+            if (frame.getByte(i) == MONTHS.charAt(m * 3)
+                    && frame.getByte(i + 1) == MONTHS.charAt(m * 3 + 1)
+                    && frame.getByte(i + 2) == MONTHS.charAt(m * 3 + 2)) {
+                month = m + 1;
+                break;
+            }
+        }
+        int day = frame.getByte(i + 4) == SP ? digits(frame, i + 5, 1) : digits(frame, i + 4, 2);
+        int hour = digits(frame, i + 7, 2);
+        int minute = digits(frame, i + 10, 2);
+        int second = digits(frame, i + 13, 2);
+        if ((month | day | hour | minute | second) < 0) {
+            return -1;
+        }
+
+        int offsetMillis = LOCAL_ZONE.getOffset(nowMillis);
+        int year = (int) civilYear(Math.floorDiv(nowMillis + offsetMillis, 86_400_000L));
+        long local = (daysFromCivil(year, month, day) * 86400L + hour * 3600L + minute * 60L + second) * 1000L;
+        if (local - offsetMillis > nowMillis + 86_400_000L) {
+            local = (daysFromCivil(year - 1, month, day) * 86400L + hour * 3600L + minute * 60L + second) * 1000L;
+        }
+        return local - offsetMillis;
+    }
+
+    private static int digits(ByteBuf frame, int i, int count) {
+        int value = 0;
+        for (int n = 0; n < count; n++) {
+            int digit = frame.getByte(i + n) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int tokenEnd(ByteBuf frame, int i, int end) {
+        if (i >= end) {
+            return end;
+        }
+        int space = frame.indexOf(i, end, SP);
+        return space < 0 ? end : space;
+    }
+
+    private static boolean isNil(ByteBuf frame, int start, int end) {
+        return end - start == 1 && frame.getByte(start) == NIL;
+    }
+
+    // Truncated headers end in empty tokens, which are as absent as nil ones
+    private static boolean isPresent(ByteBuf frame, int start, int end) {
+        return end > start && !isNil(frame, start, end);
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's algorithm)
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static long civilYear(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        return yearOfEra + era * 400 + (monthIndex >= 10 ? 1 : 0);
+    }
+}
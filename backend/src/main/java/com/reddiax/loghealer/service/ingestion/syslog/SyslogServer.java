@@ -0,0 +1,201 @@
+package com.reddiax.loghealer.service.ingestion.syslog;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.service.ingestion.IngestionQueueFullException;
+import com.reddiax.loghealer.service.ingestion.IngestionRateLimiter;
+import com.reddiax.loghealer.service.ingestion.LogIngestionService;
+import com.reddiax.loghealer.service.ingestion.ProjectContext;
+import com.reddiax.loghealer.service.ingestion.ProjectContextCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Netty syslog listener (RFC 5424 and RFC 3164 over TCP and UDP). Messages are mapped to a project by
+ * sender IP, then by syslog HOSTNAME, then by the default API key, and handed to the same submit path as
+ * {@link LogIngestionService} batches. TCP connections stop reading while the pipeline is saturated;
+ * UDP has no backpressure, so datagrams arriving then are dropped and counted.
+ * <p>
+ * Parsing, API key resolution and submission may block on the project store or the ingestion buffer, so
+ * the handlers run on their own executor group instead of the Netty event loops that do the socket I/O.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "loghealer.syslog.enabled", havingValue = "true", matchIfMissing = false)
+public class SyslogServer {
+
+    private final LogIngestionService logIngestionService;
+    private final ProjectContextCache projectContextCache;
+    private final IngestionRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${loghealer.syslog.tcp-port:1514}")
+    private int tcpPort;
+
+    @Value("${loghealer.syslog.udp-port:1514}")
+    private int udpPort;
+
+    @Value("${loghealer.syslog.worker-threads:0}")
+    private int workerThreads;
+
+    @Value("${loghealer.syslog.handler-threads:4}")
+    private int handlerThreads;
+
+    @Value("${loghealer.syslog.max-frame-bytes:65536}")
+    private int maxFrameBytes;
+
+    @Value("${loghealer.syslog.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${loghealer.syslog.default-api-key:}")
+    private String defaultApiKey;
+
+    // Comma-separated source=apiKey pairs; a source is a sender IP or a syslog HOSTNAME
+    @Value("${loghealer.syslog.sources:}")
+    private String sources;
+
+    @Value("${loghealer.ingestion.max-message-length:32768}")
+    private int maxMessageLength;
+
+    private final Map<String, String> apiKeysBySource = new HashMap<>();
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventExecutorGroup handlerGroup;
+    private Channel tcpChannel;
+    private Channel udpChannel;
+
+    @PostConstruct
+    public void start() throws InterruptedException {
+        for (String entry : sources.split(",")) {
+            int eq = entry.indexOf('=');
+            if (eq > 0) {
+                apiKeysBySource.put(entry.substring(0, eq).trim(), entry.substring(eq + 1).trim());
+            }
+        }
+
+        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("loghealer-syslog-accept", true));
+        workerGroup = new NioEventLoopGroup(workerThreads, new DefaultThreadFactory("loghealer-syslog", true));
+        // Each channel's handler stays on one thread of the group, so handler state is still single-threaded
+        handlerGroup = new DefaultEventExecutorGroup(handlerThreads,
+            new DefaultThreadFactory("loghealer-syslog-handler", true));
+
+        if (tcpPort > 0) {
+            tcpChannel = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                            .addLast(new SyslogFrameDecoder(maxFrameBytes))
+                            .addLast(handlerGroup,
+                                new SyslogHandler(SyslogServer.this, batchSize, maxMessageLength, true));
+                    }
+                })
+                .bind(tcpPort).sync().channel();
+        }
+        if (udpPort > 0) {
+            udpChannel = new Bootstrap()
+                .group(workerGroup)
+                .channel(NioDatagramChannel.class)
+                .option(ChannelOption.SO_RCVBUF, 8 * 1024 * 1024)
+                .handler(new ChannelInitializer<NioDatagramChannel>() {
+                    @Override
+                    protected void initChannel(NioDatagramChannel channel) {
+                        channel.pipeline()
+                            .addLast(handlerGroup,
+                                new SyslogHandler(SyslogServer.this, batchSize, maxMessageLength, false));
+                    }
+                })
+                .bind(udpPort).sync().channel();
+        }
+        log.info("Syslog listener started (tcp={}, udp={}, mapped sources={})", tcpPort, udpPort, apiKeysBySource.size());
+    }
+
+    /**
+     * Returns the API key mapped to a sender IP, or an empty string if the IP is not mapped.
+     */
+    String apiKeyForAddress(InetAddress sender) {
+        return sender != null ? apiKeysBySource.getOrDefault(sender.getHostAddress(), "") : "";
+    }
+
+    /**
+     * Returns the API key mapped to a syslog HOSTNAME, falling back to the default key; {@code null} if neither.
+     */
+    String apiKeyForHost(String hostName) {
+        String apiKey = hostName != null ? apiKeysBySource.get(hostName) : null;
+        if (apiKey == null && !defaultApiKey.isEmpty()) {
+            apiKey = defaultApiKey;
+        }
+        return apiKey;
+    }
+
+    ProjectContext resolve(String apiKey) {
+        try {
+            return projectContextCache.resolve(apiKey);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Submits one project's batch. Returns {@code false} if ingestion is saturated or the project is over
+     * its rate limit; the caller decides whether to retry (TCP) or drop (UDP).
+     */
+    boolean submit(ProjectContext project, List<LogEntryDocument> documents) {
+        if (rateLimiter.admit(project) > 0) {
+            return false;
+        }
+        try {
+            logIngestionService.submit(documents);
+            return true;
+        } catch (IngestionQueueFullException e) {
+            return false;
+        }
+    }
+
+    void countDropped(String reason, int count) {
+        meterRegistry.counter("loghealer.syslog.dropped", "reason", reason).increment(count);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (tcpChannel != null) {
+            tcpChannel.close().syncUninterruptibly();
+        }
+        if (udpChannel != null) {
+            udpChannel.close().syncUninterruptibly();
+        }
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully().syncUninterruptibly();
+        handlerGroup.shutdownGracefully().syncUninterruptibly();
+        log.info("Syslog listener stopped");
+    }
+}
@@ -1,16 +1,24 @@
 package com.reddiax.loghealer.service.search;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.aggregations.*;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.util.NamedValue;
 import com.reddiax.loghealer.document.ExceptionGroupDocument;
 import com.reddiax.loghealer.document.LogEntryDocument;
 import com.reddiax.loghealer.dto.DashboardStatsResponse;
 import com.reddiax.loghealer.dto.LogSearchRequest;
 import com.reddiax.loghealer.dto.LogSearchResponse;
+import com.reddiax.loghealer.service.detection.ExceptionHeavyHitters;
+import com.reddiax.loghealer.service.detection.ExceptionMessages;
+import com.reddiax.loghealer.service.ingestion.IngestionRuleEngine;
+import com.reddiax.loghealer.service.ingestion.PiiScrubber;
+import com.reddiax.loghealer.service.ingestion.StackTraceStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,7 +27,11 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -27,20 +39,36 @@ import java.util.List;
 public class LogSearchService {
 
     private final ElasticsearchClient elasticsearchClient;
+    private final IngestionRuleEngine ingestionRuleEngine;
+    private final StackTraceStore stackTraceStore;
+    private final PiiScrubber piiScrubber;
+    private final ExceptionHeavyHitters exceptionHeavyHitters;
 
     private static final String LOG_INDEX_PATTERN = "loghealer-logs-*";
     private static final String EXCEPTION_INDEX = "loghealer-exception-groups";
+    private static final int MAX_MATCHING_STACK_TRACES = 1000;
 
     public LogSearchResponse search(LogSearchRequest request) {
         try {
             BoolQuery.Builder boolQuery = new BoolQuery.Builder();
 
             if (request.getQuery() != null && !request.getQuery().isBlank()) {
-                boolQuery.must(m -> m.multiMatch(mm -> mm
-                    .query(request.getQuery())
-                    .fields("message", "stackTrace", "logger", "exceptionClass")
-                    .fuzziness("AUTO")
-                ));
+                // Stack traces live in their own index; entries match through the hashes of matching traces
+                List<String> traceHashes = stackTraceStore.search(request.getProjectId(), request.getQuery(),
+                    MAX_MATCHING_STACK_TRACES);
+                boolQuery.must(m -> m.bool(b -> {
+                    b.should(sh -> sh.multiMatch(mm -> mm
+                        .query(request.getQuery())
+                        .fields("message", "stackTrace", "logger", "exceptionClass")
+                        .fuzziness("AUTO")
+                    ));
+                    if (!traceHashes.isEmpty()) {
+                        b.should(sh -> sh.terms(t -> t
+                            .field("stackTraceHash")
+                            .terms(tv -> tv.value(traceHashes.stream().map(FieldValue::of).toList()))));
+                    }
+                    return b;
+                }));
             }
 
             if (request.getLevels() != null && !request.getLevels().isEmpty()) {
@@ -101,6 +129,9 @@ public class LogSearchService {
             List<LogEntryDocument> logs = response.hits().hits().stream()
                 .map(Hit::source)
                 .toList();
+            if (request.isIncludeStackTraces()) {
+                stackTraceStore.resolveInto(logs);
+            }
 
             long totalHits = response.hits().total() != null 
                 ? response.hits().total().value() : 0;
@@ -113,6 +144,13 @@ public class LogSearchService {
         }
     }
 
+    public Map<String, String> getStackTraces(String projectId, List<String> hashes) {
+        if (hashes.size() > MAX_MATCHING_STACK_TRACES) {
+            throw new IllegalArgumentException("At most " + MAX_MATCHING_STACK_TRACES + " hashes per request");
+        }
+        return stackTraceStore.resolve(projectId, hashes);
+    }
+
     public DashboardStatsResponse getDashboardStats(String projectId, String timeRange) {
         try {
             long totalLogs = countAllLogs(projectId);
@@ -120,12 +158,16 @@ public class LogSearchService {
             long totalWarnings = countLogsByLevel(projectId, "WARN");
 
             List<DashboardStatsResponse.LogLevelCount> logsByLevel = getLogsByLevelSimple(projectId);
-            List<DashboardStatsResponse.TopException> topExceptions = getTopExceptions(projectId, 10);
+            List<DashboardStatsResponse.TopException> topExceptions = getTopExceptions(projectId, timeRange, 10);
 
             long totalExceptionGroups = countExceptionGroups(projectId, null);
             long newExceptions = countExceptionGroups(projectId, "NEW");
             long resolvedExceptions = countExceptionGroups(projectId, "RESOLVED");
 
+            Map<String, Map<String, Long>> filtered = ingestionRuleEngine.filteredCounts(projectId);
+            Map<String, Long> filteredByLevel = new TreeMap<>();
+            filtered.values().forEach(byLevel -> byLevel.forEach((level, count) -> filteredByLevel.merge(level, count, Long::sum)));
+
             return DashboardStatsResponse.builder()
                 .totalLogs(totalLogs)
                 .totalErrors(totalErrors)
@@ -133,6 +175,12 @@ public class LogSearchService {
                 .totalExceptionGroups(totalExceptionGroups)
                 .newExceptions(newExceptions)
                 .resolvedExceptions(resolvedExceptions)
+                .droppedLogs(sum(filtered.get("dropped")))
+                .sampledOutLogs(sum(filtered.get("sampled")) + sum(filtered.get("shed")))
+                .filteredByLevel(filteredByLevel.entrySet().stream()
+                    .map(e -> DashboardStatsResponse.LogLevelCount.builder().level(e.getKey()).count(e.getValue()).build())
+                    .toList())
+                .scrubbedByRule(piiScrubber.hitCounts(projectId))
                 .logsByLevel(logsByLevel)
                 .logsOverTime(new ArrayList<>())
                 .topExceptions(topExceptions)
@@ -144,6 +192,10 @@ public class LogSearchService {
         }
     }
 
+    private static long sum(Map<String, Long> counts) {
+        return counts == null ? 0 : counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
     private long countAllLogs(String projectId) throws IOException {
         SearchResponse<Void> response = elasticsearchClient.search(s -> {
             s.index(LOG_INDEX_PATTERN).size(0).trackTotalHits(t -> t.enabled(true));
@@ -364,31 +416,112 @@ public class LogSearchService {
         return result;
     }
 
-    private List<DashboardStatsResponse.TopException> getTopExceptions(String projectId, int limit) throws IOException {
+    private List<DashboardStatsResponse.TopException> getTopExceptions(String projectId, String timeRange, int limit)
+            throws IOException {
+        Optional<List<ExceptionHeavyHitters.HeavyHitter>> top = exceptionHeavyHitters.top(
+            projectId, timeRange, ExceptionHeavyHitters.Dimension.FINGERPRINT, limit);
+        if (top.isEmpty()) {
+            // Ranges the sketches don't keep, or that they haven't seen all of, are counted from the logs
+            return getTopExceptionsFromLogs(projectId, timeRange, limit);
+        }
+
+        Map<String, String> statuses = getGroupStatuses(top.get().stream()
+            .map(ExceptionHeavyHitters.HeavyHitter::key)
+            .toList());
+        return top.get().stream()
+            .map(hitter -> DashboardStatsResponse.TopException.builder()
+                .exceptionClass(hitter.exceptionClass())
+                .message(hitter.message())
+                .count(hitter.count())
+                .lastSeen(hitter.lastSeen().toString())
+                .status(statuses.get(hitter.key()))
+                .build())
+            .toList();
+    }
+
+    // Fingerprints embed the project, so they identify groups on their own
+    private Map<String, String> getGroupStatuses(List<String> keys) throws IOException {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        List<FieldValue> fingerprints = keys.stream().map(FieldValue::of).toList();
+        SearchResponse<ExceptionGroupDocument> response = elasticsearchClient.search(s -> s
+            .index(EXCEPTION_INDEX)
+            .query(q -> q.terms(t -> t.field("fingerprint").terms(tv -> tv.value(fingerprints))))
+            .source(src -> src.filter(f -> f.includes("fingerprint", "status")))
+            .size(fingerprints.size()),
+            ExceptionGroupDocument.class
+        );
+
+        Map<String, String> statuses = new HashMap<>();
+        for (Hit<ExceptionGroupDocument> hit : response.hits().hits()) {
+            ExceptionGroupDocument doc = hit.source();
+            if (doc != null && doc.getFingerprint() != null && doc.getStatus() != null) {
+                statuses.put(doc.getFingerprint(), doc.getStatus().name());
+            }
+        }
+        return statuses;
+    }
+
+    private List<DashboardStatsResponse.TopException> getTopExceptionsFromLogs(
+            String projectId, String timeRange, int limit) throws IOException {
         BoolQuery.Builder boolQuery = new BoolQuery.Builder();
 
         if (projectId != null) {
             boolQuery.filter(f -> f.term(t -> t.field("projectId").value(projectId)));
         }
+        final long fromMs = calculateFromTime(timeRange).toEpochMilli();
+        boolQuery.filter(f -> f.range(r -> r
+            .number(n -> n
+                .field("timestamp")
+                .gte((double) fromMs)
+            )
+        ));
 
-        SearchResponse<ExceptionGroupDocument> response = elasticsearchClient.search(s -> s
-            .index(EXCEPTION_INDEX)
+        SearchResponse<Void> response = elasticsearchClient.search(s -> s
+            .index(LOG_INDEX_PATTERN)
             .query(q -> q.bool(boolQuery.build()))
-            .size(limit)
-            .sort(sort -> sort.field(f -> f.field("count").order(SortOrder.Desc))),
-            ExceptionGroupDocument.class
+            .size(0)
+            .aggregations("by_fingerprint", a -> a
+                // Collapsed repeats are one document carrying the number of occurrences it stands for
+                .terms(t -> t
+                    .field("fingerprint")
+                    .size(limit)
+                    .order(NamedValue.of("occurrences", SortOrder.Desc)))
+                .aggregations("occurrences", sub -> sub.sum(sum -> sum.field("repeatCount").missing(1)))
+                .aggregations("last_seen", sub -> sub.max(m -> m.field("timestamp")))
+                .aggregations("latest", sub -> sub
+                    .topHits(th -> th
+                        .size(1)
+                        .sort(sort -> sort.field(f -> f.field("timestamp").order(SortOrder.Desc)))
+                        .source(src -> src.filter(f -> f.includes("exceptionClass", "message")))
+                    )
+                )
+            ),
+            Void.class
         );
 
-        return response.hits().hits().stream()
-            .map(Hit::source)
-            .map(doc -> DashboardStatsResponse.TopException.builder()
-                .exceptionClass(doc.getExceptionClass())
-                .message(doc.getMessage())
-                .count(doc.getCount())
-                .lastSeen(doc.getLastSeen() != null ? doc.getLastSeen().toString() : null)
-                .status(doc.getStatus() != null ? doc.getStatus().name() : null)
-                .build())
-            .toList();
+        List<StringTermsBucket> buckets = response.aggregations().get("by_fingerprint").sterms().buckets().array();
+        Map<String, String> statuses = getGroupStatuses(buckets.stream()
+            .map(bucket -> bucket.key().stringValue())
+            .toList());
+
+        List<DashboardStatsResponse.TopException> result = new ArrayList<>();
+        for (StringTermsBucket bucket : buckets) {
+            List<Hit<JsonData>> latest = bucket.aggregations().get("latest").topHits().hits().hits();
+            LogEntryDocument sample = latest.isEmpty() || latest.get(0).source() == null
+                ? null
+                : latest.get(0).source().to(LogEntryDocument.class);
+            double lastSeen = bucket.aggregations().get("last_seen").max().value();
+            result.add(DashboardStatsResponse.TopException.builder()
+                .exceptionClass(sample != null ? sample.getExceptionClass() : null)
+                .message(sample != null ? ExceptionMessages.firstLine(sample.getMessage()) : null)
+                .count(Math.round(bucket.aggregations().get("occurrences").sum().value()))
+                .lastSeen(Instant.ofEpochMilli((long) lastSeen).toString())
+                .status(statuses.get(bucket.key().stringValue()))
+                .build());
+        }
+        return result;
     }
 
     public List<ExceptionGroupDocument> getExceptionGroups(String projectId, String status, int page, int size) {
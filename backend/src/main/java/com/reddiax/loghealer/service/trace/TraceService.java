@@ -11,6 +11,7 @@ import com.reddiax.loghealer.entity.Project;
 import com.reddiax.loghealer.entity.ServiceGroup;
 import com.reddiax.loghealer.repository.jpa.ProjectRepository;
 import com.reddiax.loghealer.service.ServiceGroupService;
+import com.reddiax.loghealer.service.ingestion.StackTraceStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,7 @@ public class TraceService {
     private final ElasticsearchClient elasticsearchClient;
     private final ServiceGroupService serviceGroupService;
     private final ProjectRepository projectRepository;
+    private final StackTraceStore stackTraceStore;
 
     private static final String LOG_INDEX_PATTERN = "loghealer-logs-*";
 
@@ -187,6 +189,8 @@ public class TraceService {
                     .build();
         }
 
+        stackTraceStore.resolveInto(logs);
+
         List<TraceTimelineResponse.TraceEvent> events = new ArrayList<>();
         Set<String> services = new LinkedHashSet<>();
         boolean hasError = false;
@@ -196,7 +200,8 @@ public class TraceService {
             String serviceName = log.getServiceName() != null ? log.getServiceName() : log.getProjectId();
             services.add(serviceName);
 
-            boolean isError = "ERROR".equalsIgnoreCase(log.getLevel()) || log.getStackTrace() != null;
+            boolean isError = "ERROR".equalsIgnoreCase(log.getLevel())
+                    || log.getStackTrace() != null || log.getStackTraceHash() != null;
             if (isError && rootCauseService == null) {
                 rootCauseService = serviceName;
                 hasError = true;
@@ -0,0 +1,165 @@
+package com.reddiax.loghealer.benchmark;
+
+import com.reddiax.loghealer.service.detection.StackTraceFingerprints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-exception cost of fingerprinting, against the previous split + {@code replaceAll} + SHA-256
+ * implementation. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.reddiax.loghealer.benchmark.StackTraceFingerprintBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StackTraceFingerprintBenchmark {
+
+    private static final String PROJECT_ID = "3f2b8c1e-7a4d-4e59-9b61-0c8d2e5f7a13";
+
+    /**
+     * {@code spring}: an MVC request failing in a service behind CGLIB and AOP proxies. {@code hibernate}: a
+     * constraint violation surfacing at transaction commit, with its cause chain.
+     */
+    @Param({"spring", "hibernate"})
+    public String trace;
+
+    private String exceptionClass;
+    private String stackTrace;
+
+    @Setup
+    public void setup() {
+        if ("spring".equals(trace)) {
+            exceptionClass = "java.lang.IllegalStateException";
+            stackTrace = springTrace();
+        } else {
+            exceptionClass = "org.springframework.dao.DataIntegrityViolationException";
+            stackTrace = hibernateTrace();
+        }
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return StackTraceFingerprints.of(PROJECT_ID, exceptionClass, stackTrace);
+    }
+
+    @Benchmark
+    public String splitRegexSha256() {
+        return hashString(PROJECT_ID + exceptionClass + normalizeStackTrace(stackTrace));
+    }
+
+    private static String normalizeStackTrace(String stackTrace) {
+        if (stackTrace == null || stackTrace.isBlank()) {
+            return "";
+        }
+        String[] lines = stackTrace.split("\n");
+        StringBuilder normalized = new StringBuilder();
+        for (int i = 0; i < Math.min(5, lines.length); i++) {
+            String line = lines[i].trim();
+            line = line.replaceAll(":\\d+\\)", ":X)");
+            line = line.replaceAll("@[a-f0-9]+", "@X");
+            normalized.append(line);
+        }
+        return normalized.toString();
+    }
+
+    private static String hashString(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash).substring(0, 32);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String springTrace() {
+        return """
+            java.lang.IllegalStateException: Order 48213 cannot be shipped in state CANCELLED (requested by user@example.com)
+            \tat com.example.shop.order.OrderService.ship(OrderService.java:214)
+            \tat com.example.shop.order.OrderService$$SpringCGLIB$$0.ship(<generated>)
+            \tat java.base/jdk.internal.reflect.DirectMethodHandleAccessor.invoke(DirectMethodHandleAccessor.java:103)
+            \tat java.base/java.lang.reflect.Method.invoke(Method.java:580)
+            \tat org.springframework.aop.support.AopUtils.invokeJoinpointUsingReflection(AopUtils.java:355)
+            \tat org.springframework.aop.framework.ReflectiveMethodInvocation.invokeJoinpoint(ReflectiveMethodInvocation.java:196)
+            \tat org.springframework.aop.framework.ReflectiveMethodInvocation.proceed(ReflectiveMethodInvocation.java:163)
+            \tat org.springframework.transaction.interceptor.TransactionInterceptor$1.proceedWithInvocation(TransactionInterceptor.java:123)
+            \tat org.springframework.transaction.interceptor.TransactionAspectSupport.invokeWithinTransaction(TransactionAspectSupport.java:392)
+            \tat org.springframework.transaction.interceptor.TransactionInterceptor.invoke(TransactionInterceptor.java:119)
+            \tat org.springframework.aop.framework.CglibAopProxy$DynamicAdvisedInterceptor.intercept(CglibAopProxy.java:720)
+            \tat com.example.shop.order.OrderController.ship(OrderController.java:88)
+            \tat com.example.shop.order.OrderController$$Lambda/0x000001f2a8c4e230.apply(Unknown Source)
+            \tat org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod.invokeAndHandle(ServletInvocableHandlerMethod.java:118)
+            \tat org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter.invokeHandlerMethod(RequestMappingHandlerAdapter.java:986)
+            \tat org.springframework.web.servlet.DispatcherServlet.doDispatch(DispatcherServlet.java:1089)
+            \tat org.springframework.web.servlet.FrameworkServlet.processRequest(FrameworkServlet.java:1014)
+            \tat jakarta.servlet.http.HttpServlet.service(HttpServlet.java:590)
+            \tat org.apache.catalina.core.ApplicationFilterChain.doFilter(ApplicationFilterChain.java:138)
+            \tat org.springframework.security.web.FilterChainProxy.doFilterInternal(FilterChainProxy.java:227)
+            \tat org.apache.tomcat.util.threads.ThreadPoolExecutor$Worker.run(ThreadPoolExecutor.java:659)
+            \tat java.base/java.lang.Thread.run(Thread.java:1583)
+            """;
+    }
+
+    private static String hibernateTrace() {
+        return """
+            org.springframework.dao.DataIntegrityViolationException: could not execute statement [ERROR: duplicate key value violates unique constraint "uk_customer_email"]; SQL [insert into customer (email,name,id) values (?,?,?)]
+            \tat org.springframework.orm.jpa.vendor.HibernateJpaDialect.convertHibernateAccessException(HibernateJpaDialect.java:290)
+            \tat org.springframework.orm.jpa.vendor.HibernateJpaDialect.translateExceptionIfPossible(HibernateJpaDialect.java:241)
+            \tat org.springframework.orm.jpa.JpaTransactionManager.doCommit(JpaTransactionManager.java:565)
+            \tat org.springframework.transaction.support.AbstractPlatformTransactionManager.processCommit(AbstractPlatformTransactionManager.java:794)
+            \tat org.springframework.transaction.support.AbstractPlatformTransactionManager.commit(AbstractPlatformTransactionManager.java:757)
+            \tat org.springframework.transaction.interceptor.TransactionAspectSupport.commitTransactionAfterReturning(TransactionAspectSupport.java:669)
+            \tat org.springframework.transaction.interceptor.TransactionAspectSupport.invokeWithinTransaction(TransactionAspectSupport.java:419)
+            \tat org.springframework.transaction.interceptor.TransactionInterceptor.invoke(TransactionInterceptor.java:119)
+            \tat org.springframework.aop.framework.ReflectiveMethodInvocation.proceed(ReflectiveMethodInvocation.java:184)
+            \tat org.springframework.aop.framework.CglibAopProxy$DynamicAdvisedInterceptor.intercept(CglibAopProxy.java:720)
+            \tat com.example.crm.customer.CustomerService$$SpringCGLIB$$0.register(<generated>)
+            \tat com.example.crm.customer.CustomerController.register(CustomerController.java:57)
+            \tat org.springframework.web.servlet.DispatcherServlet.doDispatch(DispatcherServlet.java:1089)
+            Caused by: org.hibernate.exception.ConstraintViolationException: could not execute statement [ERROR: duplicate key value violates unique constraint "uk_customer_email"]
+            \tat org.hibernate.exception.internal.SQLStateConversionDelegate.convert(SQLStateConversionDelegate.java:97)
+            \tat org.hibernate.exception.internal.StandardSQLExceptionConverter.convert(StandardSQLExceptionConverter.java:58)
+            \tat org.hibernate.engine.jdbc.spi.SqlExceptionHelper.convert(SqlExceptionHelper.java:108)
+            \tat org.hibernate.engine.jdbc.internal.ResultSetReturnImpl.executeUpdate(ResultSetReturnImpl.java:197)
+            \tat org.hibernate.engine.jdbc.batch.internal.NonBatchingBatch.addToBatch(NonBatchingBatch.java:46)
+            \tat org.hibernate.action.internal.EntityInsertAction.execute(EntityInsertAction.java:113)
+            \tat org.hibernate.engine.spi.ActionQueue.executeActions(ActionQueue.java:635)
+            \tat org.hibernate.event.internal.AbstractFlushingEventListener.performExecutions(AbstractFlushingEventListener.java:359)
+            \tat org.hibernate.internal.SessionImpl.doFlush(SessionImpl.java:1412)
+            \tat com.zaxxer.hikari.pool.HikariProxyPreparedStatement.executeUpdate(HikariProxyPreparedStatement.java)
+            \t... 42 more
+            Caused by: org.postgresql.util.PSQLException: ERROR: duplicate key value violates unique constraint "uk_customer_email"
+              Detail: Key (email)=(jane@example.com) already exists.
+            \tat org.postgresql.core.v3.QueryExecutorImpl.receiveErrorResponse(QueryExecutorImpl.java:2725)
+            \tat org.postgresql.core.v3.QueryExecutorImpl.processResults(QueryExecutorImpl.java:2412)
+            \tat org.postgresql.jdbc.PgPreparedStatement.executeUpdate(PgPreparedStatement.java:152)
+            \tat com.zaxxer.hikari.pool.ProxyPreparedStatement.executeUpdate(ProxyPreparedStatement.java:61)
+            \t... 56 more
+            """;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StackTraceFingerprintBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,61 @@
+package com.reddiax.loghealer.service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+
+    @Test
+    void rejectsWidthThatIsNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new CountMinSketch(4, 100)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void countsExactlyWithoutCollisions() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        for (int i = 0; i < 7; i++) {
+            sketch.add("a".hashCode());
+        }
+
+        assertThat(sketch.estimate("a".hashCode())).isEqualTo(7);
+    }
+
+    @Test
+    void neverUndercountsAndStaysWithinTheErrorBound() {
+        int width = 64;
+        CountMinSketch sketch = new CountMinSketch(4, width);
+        Map<Integer, Integer> actual = new HashMap<>();
+        Random random = new Random(7);
+        int total = 10_000;
+        for (int i = 0; i < total; i++) {
+            int hash = ("k" + random.nextInt(300)).hashCode();
+            sketch.add(hash);
+            actual.merge(hash, 1, Integer::sum);
+        }
+
+        long overBound = actual.entrySet().stream()
+            .filter(entry -> sketch.estimate(entry.getKey()) - entry.getValue() > 2 * total / width)
+            .count();
+        actual.forEach((hash, count) -> assertThat(sketch.estimate(hash)).isGreaterThanOrEqualTo(count));
+        // Each key exceeds the bound with probability at most 2^-depth
+        assertThat(overBound).isLessThanOrEqualTo(actual.size() / 16);
+    }
+
+    @Test
+    void clearResetsAllCounters() {
+        CountMinSketch sketch = new CountMinSketch(2, 16);
+        sketch.add(1);
+        sketch.add(2);
+
+        sketch.clear();
+
+        assertThat(sketch.estimate(1)).isZero();
+        assertThat(sketch.estimate(2)).isZero();
+    }
+}
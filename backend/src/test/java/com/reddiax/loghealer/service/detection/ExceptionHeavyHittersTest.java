@@ -0,0 +1,112 @@
+package com.reddiax.loghealer.service.detection;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExceptionHeavyHittersTest {
+
+    // A 1m window of six panes has 10s panes and a ring of seven
+    private static final long PANE = 10_000;
+    private static final long START = 1_704_067_200_000L;
+
+    private ExceptionHeavyHitters hitters;
+
+    @BeforeEach
+    void setUp() {
+        hitters = new ExceptionHeavyHitters(null);
+        ReflectionTestUtils.setField(hitters, "windowNames", List.of("1m"));
+        ReflectionTestUtils.setField(hitters, "panes", 6);
+        ReflectionTestUtils.setField(hitters, "capacity", 4);
+        ReflectionTestUtils.setField(hitters, "sketchDepth", 4);
+        ReflectionTestUtils.setField(hitters, "sketchWidth", 64);
+        ReflectionTestUtils.setField(hitters, "detailsSize", 16);
+        ReflectionTestUtils.setField(hitters, "maxProjects", 10);
+        ReflectionTestUtils.setField(hitters, "nodeName", "test");
+        hitters.init();
+        // As if this node had always been the only one counting
+        ReflectionTestUtils.setField(hitters, "completeSince", 0L);
+    }
+
+    @Test
+    void sumsTheCurrentAndPreviousPanes() {
+        record("a", 3, START);
+        record("a", 2, START + PANE);
+        record("b", 1, START + 6 * PANE);
+
+        List<ExceptionHeavyHitters.HeavyHitter> top = top(START + 6 * PANE);
+
+        assertThat(top).extracting(ExceptionHeavyHitters.HeavyHitter::key).containsExactly("a", "b");
+        assertThat(top.get(0).count()).isEqualTo(5);
+        assertThat(top.get(1).count()).isEqualTo(1);
+    }
+
+    @Test
+    void skipsPanesThatLeftTheWindow() {
+        record("a", 3, START);
+        record("b", 1, START + PANE);
+
+        assertThat(top(START + 7 * PANE))
+            .singleElement()
+            .satisfies(hitter -> assertThat(hitter.key()).isEqualTo("b"));
+    }
+
+    @Test
+    void recyclesAPaneWhenItsSlotComesRoundAgain() {
+        record("a", 3, START);
+        // Seven panes later the same ring slot is reused
+        record("b", 2, START + 7 * PANE);
+
+        assertThat(top(START + 7 * PANE))
+            .singleElement()
+            .satisfies(hitter -> {
+                assertThat(hitter.key()).isEqualTo("b");
+                assertThat(hitter.count()).isEqualTo(2);
+            });
+    }
+
+    @Test
+    void answersNothingUntilTheSketchesSawTheWholeWindow() {
+        ReflectionTestUtils.setField(hitters, "completeSince", START);
+        record("a", 1, START);
+
+        assertThat(hitters.top("p1", "1m", ExceptionHeavyHitters.Dimension.FINGERPRINT, 10, START + PANE)).isEmpty();
+        assertThat(hitters.top("p1", "1m", ExceptionHeavyHitters.Dimension.FINGERPRINT, 10, START + 6 * PANE))
+            .isPresent();
+        assertThat(hitters.top("p1", "5m", ExceptionHeavyHitters.Dimension.FINGERPRINT, 10, START)).isEmpty();
+    }
+
+    @Test
+    void keepsTheFirstLineOfTheMessage() {
+        hitters.record(LogEntryDocument.builder()
+            .projectId("p1")
+            .fingerprint("a")
+            .exceptionClass("java.lang.IllegalStateException")
+            .message("boom\n\tat com.example.Foo.bar(Foo.java:1)")
+            .build(), START);
+
+        assertThat(top(START)).singleElement().satisfies(hitter -> {
+            assertThat(hitter.message()).isEqualTo("boom");
+            assertThat(hitter.exceptionClass()).isEqualTo("java.lang.IllegalStateException");
+        });
+    }
+
+    private void record(String fingerprint, int times, long now) {
+        for (int i = 0; i < times; i++) {
+            hitters.record(LogEntryDocument.builder()
+                .projectId("p1")
+                .fingerprint(fingerprint)
+                .exceptionClass("java.lang.RuntimeException")
+                .build(), now);
+        }
+    }
+
+    private List<ExceptionHeavyHitters.HeavyHitter> top(long now) {
+        return hitters.top("p1", "1m", ExceptionHeavyHitters.Dimension.FINGERPRINT, 10, now).orElseThrow();
+    }
+}
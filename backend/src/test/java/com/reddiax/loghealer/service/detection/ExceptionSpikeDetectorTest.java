@@ -0,0 +1,188 @@
+package com.reddiax.loghealer.service.detection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ExceptionSpikeDetectorTest {
+
+    // 16 groups get a table of 32 slots, so keys share a home slot when their low five bits match
+    private static final int MAX_GROUPS = 16;
+
+    private final List<Object> events = new ArrayList<>();
+    private ExceptionSpikeDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new ExceptionSpikeDetector(null, events::add);
+        // Disabled while initializing, so no snapshot is read from Redis
+        ReflectionTestUtils.setField(detector, "enabled", false);
+        ReflectionTestUtils.setField(detector, "bucketSeconds", 10);
+        ReflectionTestUtils.setField(detector, "halfLifeMinutes", 60.0);
+        ReflectionTestUtils.setField(detector, "minRatePerMinute", 30.0);
+        ReflectionTestUtils.setField(detector, "ratio", 10.0);
+        ReflectionTestUtils.setField(detector, "zScore", 6.0);
+        ReflectionTestUtils.setField(detector, "warmupMinutes", 30);
+        ReflectionTestUtils.setField(detector, "maxGroups", MAX_GROUPS);
+        ReflectionTestUtils.setField(detector, "nodeName", "test");
+        detector.init();
+    }
+
+    @Test
+    void republishesTheRateOfEveryBucketOfASpike() {
+        int slot = add(1);
+        long bucket = System.currentTimeMillis() / 10_000;
+        ((boolean[]) ReflectionTestUtils.getField(detector, "spiking"))[slot] = true;
+        ((long[]) ReflectionTestUtils.getField(detector, "spikeStarts"))[slot] = bucket - 1;
+        ((long[]) ReflectionTestUtils.getField(detector, "buckets"))[slot] = bucket - 1;
+        ((int[]) ReflectionTestUtils.getField(detector, "counts"))[slot] = 84;
+        ReflectionTestUtils.setField(detector, "enabled", true);
+
+        detector.tick();
+
+        assertThat(events).singleElement().isInstanceOfSatisfying(ExceptionSpikeEvent.class, event -> {
+            assertThat(event.kind()).isEqualTo(ExceptionSpikeEvent.Kind.SPIKE);
+            assertThat(event.ratePerMinute()).isEqualTo(504);
+        });
+    }
+
+    @Test
+    void foldUpdatesExponentiallyWeightedMeanAndVariance() {
+        double alpha = (double) ReflectionTestUtils.getField(detector, "alpha");
+        int slot = add(1);
+
+        detector.fold(slot, 10);
+        assertThat(means()[slot]).isCloseTo(alpha * 10, within(1e-12));
+        assertThat(variances()[slot]).isCloseTo((1 - alpha) * alpha * 100, within(1e-12));
+
+        double mean = means()[slot];
+        double variance = variances()[slot];
+        detector.fold(slot, 4);
+        double diff = 4 - mean;
+        assertThat(means()[slot]).isCloseTo(mean + alpha * diff, within(1e-12));
+        assertThat(variances()[slot]).isCloseTo((1 - alpha) * (variance + alpha * diff * diff), within(1e-12));
+    }
+
+    @Test
+    void foldConvergesToASteadyRate() {
+        int slot = add(1);
+        for (int i = 0; i < 20_000; i++) {
+            detector.fold(slot, 7);
+        }
+
+        assertThat(means()[slot]).isCloseTo(7, within(1e-6));
+        assertThat(variances()[slot]).isCloseTo(0, within(1e-6));
+    }
+
+    @Test
+    void decayEqualsFoldingEmptyBucketsOneByOne() {
+        int folded = add(1);
+        int decayed = add(2);
+        for (int count : new int[]{3, 7, 0, 12, 5}) {
+            detector.fold(folded, count);
+            detector.fold(decayed, count);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            detector.fold(folded, 0);
+        }
+        detector.decay(decayed, 500);
+
+        assertThat(means()[decayed]).isCloseTo(means()[folded], within(1e-12));
+        assertThat(variances()[decayed]).isCloseTo(variances()[folded], within(1e-12));
+    }
+
+    @Test
+    void decayOfNoBucketsChangesNothing() {
+        int slot = add(1);
+        detector.fold(slot, 9);
+        double mean = means()[slot];
+        double variance = variances()[slot];
+
+        detector.decay(slot, 0);
+
+        assertThat(means()[slot]).isEqualTo(mean);
+        assertThat(variances()[slot]).isEqualTo(variance);
+    }
+
+    @Test
+    void removeShiftsTheRestOfTheProbeRunIntoTheHole() {
+        // 0x01, 0x21 and 0x41 share home slot 1; 0x02 is displaced from slot 2 to slot 4
+        assertThat(add(0x01)).isEqualTo(1);
+        assertThat(add(0x21)).isEqualTo(2);
+        assertThat(add(0x41)).isEqualTo(3);
+        assertThat(add(0x02)).isEqualTo(4);
+        detector.fold(3, 30);
+        detector.fold(4, 40);
+
+        detector.remove(slotOf(0x21));
+
+        assertThat(slotOf(0x21)).isNegative();
+        assertThat(slotOf(0x01)).isEqualTo(1);
+        assertThat(slotOf(0x41)).isEqualTo(2);
+        assertThat(slotOf(0x02)).isEqualTo(3);
+        assertThat(keys()[4]).isZero();
+        assertThat(means()[2]).isGreaterThan(0).isLessThan(means()[3]);
+        assertThat(ReflectionTestUtils.getField(detector, "size")).isEqualTo(3);
+    }
+
+    @Test
+    void removeLeavesEntriesAtTheirHomeSlotInPlace() {
+        add(0x01);
+        add(0x02);
+        add(0x03);
+
+        detector.remove(slotOf(0x01));
+
+        assertThat(slotOf(0x02)).isEqualTo(2);
+        assertThat(slotOf(0x03)).isEqualTo(3);
+        assertThat(keys()[1]).isZero();
+    }
+
+    @Test
+    void removeShiftsEntriesAcrossTheEndOfTheTable() {
+        // 0x1f and 0x3f share home slot 31, so 0x3f wraps to slot 0 and pushes 0x20 to slot 1
+        assertThat(add(0x1f)).isEqualTo(31);
+        assertThat(add(0x3f)).isEqualTo(0);
+        assertThat(add(0x20)).isEqualTo(1);
+
+        detector.remove(slotOf(0x1f));
+
+        assertThat(slotOf(0x3f)).isEqualTo(31);
+        assertThat(slotOf(0x20)).isEqualTo(0);
+        assertThat(keys()[1]).isZero();
+    }
+
+    private int add(long key) {
+        int slot = detector.find(key);
+        assertThat(slot).isNegative();
+        return detector.insert(-slot - 1, "project", fingerprint(key), 0);
+    }
+
+    private int slotOf(long key) {
+        return detector.find(ExceptionSpikeDetector.key(fingerprint(key)));
+    }
+
+    // Keys are the first 16 hex digits of the fingerprint
+    private static String fingerprint(long key) {
+        return String.format("%016x", key) + "0".repeat(16);
+    }
+
+    private long[] keys() {
+        return (long[]) ReflectionTestUtils.getField(detector, "keys");
+    }
+
+    private double[] means() {
+        return (double[]) ReflectionTestUtils.getField(detector, "means");
+    }
+
+    private double[] variances() {
+        return (double[]) ReflectionTestUtils.getField(detector, "variances");
+    }
+}
@@ -0,0 +1,92 @@
+package com.reddiax.loghealer.service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyUntilFull() {
+        SpaceSaving summary = new SpaceSaving(4);
+        add(summary, "a", 3);
+        add(summary, "b", 1);
+
+        assertThat(summary.upperBound("a")).isEqualTo(3);
+        assertThat(summary.upperBound("b")).isEqualTo(1);
+        assertThat(summary.upperBound("c")).isZero();
+        assertThat(keys(summary)).containsExactly("a", "b");
+    }
+
+    @Test
+    void newKeyTakesOverTheSmallestCounter() {
+        SpaceSaving summary = new SpaceSaving(2);
+        add(summary, "a", 5);
+        add(summary, "b", 2);
+
+        summary.add("c");
+
+        assertThat(keys(summary)).containsExactlyInAnyOrder("a", "c");
+        assertThat(summary.upperBound("c")).isEqualTo(3);
+        assertThat(summary.upperBound("a")).isEqualTo(5);
+        // An evicted key may have occurred as often as the smallest count
+        assertThat(summary.upperBound("b")).isEqualTo(3);
+    }
+
+    @Test
+    void neverUndercountsAndKeepsFrequentKeys() {
+        int capacity = 16;
+        SpaceSaving summary = new SpaceSaving(capacity);
+        Map<String, Long> actual = new HashMap<>();
+        Random random = new Random(42);
+        int total = 20_000;
+        for (int i = 0; i < total; i++) {
+            // Skewed: a few keys make up most of the stream, the tail has hundreds of rare keys
+            String key = "k" + (int) Math.floor(Math.pow(random.nextDouble(), 4) * 500);
+            summary.add(key);
+            actual.merge(key, 1L, Long::sum);
+        }
+
+        List<String> kept = keys(summary);
+        actual.forEach((key, count) -> {
+            assertThat(summary.upperBound(key)).isGreaterThanOrEqualTo(count);
+            if (count > total / capacity) {
+                assertThat(kept).contains(key);
+            }
+        });
+    }
+
+    @Test
+    void clearForgetsAllKeys() {
+        SpaceSaving summary = new SpaceSaving(2);
+        add(summary, "a", 2);
+        add(summary, "b", 1);
+        summary.add("c");
+
+        summary.clear();
+
+        assertThat(summary.isEmpty()).isTrue();
+        assertThat(summary.upperBound("a")).isZero();
+        summary.add("d");
+        assertThat(summary.upperBound("d")).isEqualTo(1);
+        assertThat(keys(summary)).containsExactly("d");
+    }
+
+    private static void add(SpaceSaving summary, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            summary.add(key);
+        }
+    }
+
+    private static List<String> keys(SpaceSaving summary) {
+        List<String> keys = new ArrayList<>();
+        summary.forEachKey(keys::add);
+        return keys;
+    }
+}
@@ -0,0 +1,155 @@
+package com.reddiax.loghealer.service.detection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StackTraceParserTest {
+
+    private static final String WRAPPED = """
+        org.springframework.web.util.NestedServletException: Request processing failed
+        \tat org.springframework.web.servlet.FrameworkServlet.processRequest(FrameworkServlet.java:1014)
+        \tat com.acme.shop.web.OrderController.place(OrderController.java:42)
+        \tat com.acme.shop.web.OrderController$$SpringCGLIB$$0.place(<generated>)
+        Caused by: java.lang.IllegalStateException: Order 42 has no items
+        \tat com.acme.shop.order.OrderService.lambda$place$0(OrderService.java:88)
+        \tat java.base/java.util.Optional.orElseThrow(Optional.java:403)
+        \tat com.acme.shop.order.OrderService.place(OrderService.java:87)
+        \t... 3 more
+        """;
+
+    private StackTraceParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new StackTraceParser();
+        ReflectionTestUtils.setField(parser, "inAppFrames", 5);
+        ReflectionTestUtils.setField(parser, "cacheSize", 16);
+    }
+
+    @Test
+    void takesRootCauseAndItsFramesBeforeTheWrappers() {
+        StackTraceParser.Signature signature = parser.signature(WRAPPED, null).orElseThrow();
+
+        assertThat(signature.rootCauseClass()).isEqualTo("java.lang.IllegalStateException");
+        assertThat(signature.frames()).containsExactly(
+            frame("com.acme.shop.order.OrderService", "lambda$place"),
+            frame("com.acme.shop.order.OrderService", "place"),
+            frame("com.acme.shop.web.OrderController", "place"));
+    }
+
+    @Test
+    void parsesCauseChainAndSkipsMoreMarkers() {
+        List<StackTraceParser.Cause> causes = StackTraceParser.parse(WRAPPED);
+
+        assertThat(causes).extracting(StackTraceParser.Cause::exceptionClass).containsExactly(
+            "org.springframework.web.util.NestedServletException", "java.lang.IllegalStateException");
+        assertThat(causes.get(0).frames()).hasSize(3);
+        assertThat(causes.get(1).frames()).hasSize(3);
+    }
+
+    @Test
+    void skipsSuppressedExceptionsAndTheirCauses() {
+        String trace = """
+            java.io.UncheckedIOException: Could not write export
+            \tat com.acme.shop.export.Exporter.write(Exporter.java:31)
+            \tSuppressed: java.io.IOException: Close failed
+            \t\tat com.acme.shop.export.Sink.close(Sink.java:12)
+            \tCaused by: java.net.SocketException: Broken pipe
+            \t\tat com.acme.shop.export.Socket.flush(Socket.java:7)
+            \t\t... 4 more
+            Caused by: java.net.ConnectException: Connection refused
+            \tat com.acme.shop.export.Client.connect(Client.java:20)
+            """;
+
+        List<StackTraceParser.Cause> causes = StackTraceParser.parse(trace);
+
+        assertThat(causes).extracting(StackTraceParser.Cause::exceptionClass)
+            .containsExactly("java.io.UncheckedIOException", "java.net.ConnectException");
+        assertThat(causes.get(0).frames()).containsExactly(frame("com.acme.shop.export.Exporter", "write"));
+        assertThat(causes.get(1).frames()).containsExactly(frame("com.acme.shop.export.Client", "connect"));
+    }
+
+    @Test
+    void stripsProxyLambdaAndSyntheticSuffixes() {
+        String trace = """
+            java.lang.NullPointerException: null
+            \tat com.acme.shop.order.OrderService$$Lambda$412/0x0000000800c0b040.apply(Unknown Source)
+            \tat com.acme.shop.order.Order$HibernateProxy$Ab12Cd.getItems(Unknown Source)
+            \tat com.acme.shop.order.OrderRepository$MockitoMock$1234.find(Unknown Source)
+            \tat jdk.proxy2.$Proxy123.save(Unknown Source)
+            \tat com.acme.shop.order.Outer.access$000(Outer.java:5)
+            """;
+
+        List<StackTraceParser.Frame> frames = StackTraceParser.parse(trace).get(0).frames();
+
+        assertThat(frames).containsExactly(
+            frame("com.acme.shop.order.OrderService", "apply"),
+            frame("com.acme.shop.order.Order", "getItems"),
+            frame("com.acme.shop.order.OrderRepository", "find"),
+            frame("jdk.proxy2.$Proxy", "save"),
+            frame("com.acme.shop.order.Outer", "access"));
+    }
+
+    @Test
+    void collapsesProxyFramesIntoTheMethodTheyWrap() {
+        String trace = """
+            java.lang.IllegalArgumentException: bad id
+            \tat com.acme.shop.order.OrderService.cancel(OrderService.java:10)
+            \tat com.acme.shop.order.OrderService$$SpringCGLIB$$0.cancel(<generated>)
+            """;
+
+        assertThat(parser.signature(trace, null).orElseThrow().frames())
+            .containsExactly(frame("com.acme.shop.order.OrderService", "cancel"));
+    }
+
+    @Test
+    void ignoresMessageAndLineNumbers() {
+        String other = WRAPPED.replace("Order 42 has no items", "Order 7 has no items")
+            .replace("OrderService.java:88", "OrderService.java:90");
+
+        assertThat(parser.signature(other, null)).isEqualTo(parser.signature(WRAPPED, null));
+    }
+
+    @Test
+    void prefersFramesUnderThePackagePrefix() {
+        StackTraceParser.Signature signature = parser.signature(WRAPPED, "com.acme.shop.order").orElseThrow();
+
+        assertThat(signature.frames()).containsExactly(
+            frame("com.acme.shop.order.OrderService", "lambda$place"),
+            frame("com.acme.shop.order.OrderService", "place"));
+    }
+
+    @Test
+    void fallsBackToNonFrameworkFramesWhenNoneMatchThePrefix() {
+        assertThat(parser.signature(WRAPPED, "com.other"))
+            .isEqualTo(parser.signature(WRAPPED, null));
+    }
+
+    @Test
+    void usesRootCauseFramesWhenAllAreFrameworkFrames() {
+        String trace = """
+            java.lang.NumberFormatException: For input string: "x"
+            \tat java.base/java.lang.Integer.parseInt(Integer.java:652)
+            \tat org.springframework.core.convert.support.StringToNumberConverterFactory.convert(Unknown Source)
+            """;
+
+        assertThat(parser.signature(trace, null).orElseThrow().frames()).containsExactly(
+            frame("java.lang.Integer", "parseInt"),
+            frame("org.springframework.core.convert.support.StringToNumberConverterFactory", "convert"));
+    }
+
+    @Test
+    void hasNoSignatureWithoutJavaFrames() {
+        assertThat(parser.signature("Traceback (most recent call last):\n  File \"app.py\", line 3", null))
+            .isEmpty();
+    }
+
+    private static StackTraceParser.Frame frame(String className, String method) {
+        return new StackTraceParser.Frame(className, method);
+    }
+}
@@ -0,0 +1,75 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.dto.LogEntryRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogEntryDocumentsTest {
+
+    private static final ProjectContext PROJECT = new ProjectContext("p1", "t1", "project", true, null);
+    private static final long CREATED = 1_704_067_200_123L;
+
+    @Test
+    void takesTheTimeOfAnEventWithoutTimestampFromItsUuidV7() {
+        String eventId = uuidV7(CREATED);
+
+        LogEntryDocument first = from(eventId, null);
+        LogEntryDocument retry = from(eventId, null);
+
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(first.getId()).startsWith(prefix(CREATED));
+        assertThat(first.getTimestamp()).isEqualTo(Instant.ofEpochMilli(CREATED));
+    }
+
+    @Test
+    void keepsTheIdOfOtherEventIdsWithoutTimestampStable() {
+        LogEntryDocument first = from("order-42", null);
+        LogEntryDocument retry = from("order-42", null);
+
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(first.getId()).startsWith("000000000000");
+        assertThat(first.getTimestamp()).isNotNull();
+    }
+
+    @Test
+    void prefersTheClientTimestamp() {
+        Instant timestamp = Instant.ofEpochMilli(CREATED + 5_000);
+
+        LogEntryDocument document = from(uuidV7(CREATED), timestamp);
+
+        assertThat(document.getId()).startsWith(prefix(CREATED + 5_000));
+        assertThat(document.getTimestamp()).isEqualTo(timestamp);
+    }
+
+    @Test
+    void readsTheTimeOnlyFromUuidV7() {
+        assertThat(DocumentIds.eventTime(uuidV7(CREATED))).isEqualTo(Instant.ofEpochMilli(CREATED));
+        assertThat(DocumentIds.eventTime(UUID.randomUUID().toString())).isNull();
+        assertThat(DocumentIds.eventTime("not-a-uuid")).isNull();
+        assertThat(DocumentIds.eventTime("1-2-3-4-5")).isNull();
+    }
+
+    private static LogEntryDocument from(String eventId, Instant timestamp) {
+        LogEntryRequest request = LogEntryRequest.builder()
+            .level("error")
+            .message("boom")
+            .eventId(eventId)
+            .timestamp(timestamp)
+            .build();
+        return LogEntryDocuments.from(request, PROJECT, 1000, 1000);
+    }
+
+    private static String prefix(long millis) {
+        return String.format("%012x", millis);
+    }
+
+    // Same layout as the logback appender's event IDs
+    private static String uuidV7(long millis) {
+        return new UUID((millis << 16) | 0x7123L, 0x8000000000000042L).toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+
+    // Two 20-byte records (8 header + 20 payload bytes each) fit in a segment, the third rolls over
+    private static final int SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rollsOverToNewSegmentsAndDeletesCommittedOnes() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_BYTES, false);
+        for (int i = 0; i < 5; i++) {
+            wal.append(payload(i));
+        }
+
+        assertThat(segment(0)).exists();
+        assertThat(segment(1)).exists();
+        assertThat(segment(2)).exists();
+
+        WriteAheadLog.Record last = null;
+        for (int i = 0; i < 5; i++) {
+            last = wal.readNext();
+            assertThat(text(last)).isEqualTo(text(payload(i)));
+        }
+        assertThat(last.segment()).isEqualTo(2);
+        assertThat(wal.readNext()).isNull();
+
+        wal.commit(last);
+        assertThat(segment(0)).doesNotExist();
+        assertThat(segment(1)).doesNotExist();
+        assertThat(segment(2)).exists();
+    }
+
+    @Test
+    void skipsRestOfSegmentOnCrcMismatch() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_BYTES, false);
+        for (int i = 0; i < 3; i++) {
+            wal.append(payload(i));
+        }
+        // Second record of segment 0: header at 28, payload from 36
+        corrupt(segment(0), 36);
+
+        assertThat(text(wal.readNext())).isEqualTo(text(payload(0)));
+        WriteAheadLog.Record next = wal.readNext();
+        assertThat(next.segment()).isEqualTo(1);
+        assertThat(text(next)).isEqualTo(text(payload(2)));
+        assertThat(wal.readNext()).isNull();
+    }
+
+    @Test
+    void discardsTornTailOfLastSegmentOnRestart() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_BYTES, false);
+        wal.append(payload(0));
+        wal.append(payload(1));
+        wal.close();
+        corrupt(segment(0), 36);
+
+        WriteAheadLog reopened = new WriteAheadLog(directory, SEGMENT_BYTES, false);
+        reopened.append(payload(2));
+
+        assertThat(text(reopened.readNext())).isEqualTo(text(payload(0)));
+        assertThat(text(reopened.readNext())).isEqualTo(text(payload(2)));
+        assertThat(reopened.readNext()).isNull();
+    }
+
+    @Test
+    void replaysUncommittedRecordsAfterRestart() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_BYTES, true);
+        for (int i = 0; i < 3; i++) {
+            wal.append(payload(i));
+        }
+        WriteAheadLog.Record first = wal.readNext();
+        wal.readNext();
+        wal.commit(first);
+        wal.close();
+
+        WriteAheadLog reopened = new WriteAheadLog(directory, SEGMENT_BYTES, true);
+        assertThat(text(reopened.readNext())).isEqualTo(text(payload(1)));
+        assertThat(text(reopened.readNext())).isEqualTo(text(payload(2)));
+        assertThat(reopened.readNext()).isNull();
+
+        reopened.append(payload(3));
+        assertThat(text(reopened.readNext())).isEqualTo(text(payload(3)));
+    }
+
+    @Test
+    void startsEmptyWhenEverythingWasCommitted() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_BYTES, false);
+        wal.append(payload(0));
+        wal.commit(wal.readNext());
+        wal.close();
+
+        WriteAheadLog reopened = new WriteAheadLog(directory, SEGMENT_BYTES, false);
+        assertThat(reopened.readNext()).isNull();
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("record-%013d", i).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String text(WriteAheadLog.Record record) {
+        assertThat(record).isNotNull();
+        return text(record.payload());
+    }
+
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.US_ASCII);
+    }
+
+    private Path segment(long segment) {
+        return directory.resolve(String.format("wal-%020d.log", segment));
+    }
+
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer original = ByteBuffer.allocate(1);
+            channel.read(original, position);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) (original.get(0) ^ 0x5a)}), position);
+        }
+        assertThat(Files.size(file)).isEqualTo(SEGMENT_BYTES);
+    }
+}
@@ -0,0 +1,106 @@
+package com.reddiax.loghealer.service.ingestion.syslog;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyslogParserTest {
+
+    private static final long NOW = 1_704_067_200_000L;
+
+    private final SyslogMessage message = new SyslogMessage();
+    private final AsciiCache strings = new AsciiCache(16);
+
+    @Test
+    void parsesRfc5424Header() {
+        ByteBuf frame = frame("<34>1 2024-01-01T00:00:00Z host app 42 ID7 - started");
+
+        assertThat(SyslogParser.parse(frame, message, NOW)).isTrue();
+
+        assertThat(message.priority).isEqualTo(34);
+        assertThat(message.timestampMillis).isEqualTo(NOW);
+        assertThat(strings.get(frame, message.hostStart, message.hostEnd)).isEqualTo("host");
+        assertThat(strings.get(frame, message.appStart, message.appEnd)).isEqualTo("app");
+        assertThat(strings.get(frame, message.procIdStart, message.procIdEnd)).isEqualTo("42");
+        assertThat(strings.get(frame, message.msgIdStart, message.msgIdEnd)).isEqualTo("ID7");
+        assertThat(strings.get(frame, message.messageStart, message.messageEnd)).isEqualTo("started");
+    }
+
+    @Test
+    void keepsFieldsInsideTheFrameWhenTheHeaderIsTruncated() {
+        ByteBuf frame = frame("<34>1 2024-01-01T00:00:00Z");
+
+        assertThat(SyslogParser.parse(frame, message, NOW)).isTrue();
+
+        assertThat(message.timestampMillis).isEqualTo(NOW);
+        assertWithinFrame(frame);
+        assertThat(strings.get(frame, message.hostStart, message.hostEnd)).isNull();
+        assertThat(strings.get(frame, message.appStart, message.appEnd)).isNull();
+        assertThat(strings.get(frame, message.procIdStart, message.procIdEnd)).isNull();
+        assertThat(strings.get(frame, message.msgIdStart, message.msgIdEnd)).isNull();
+        assertThat(strings.get(frame, message.messageStart, message.messageEnd)).isNull();
+    }
+
+    @Test
+    void keepsFieldsInsideTheFrameWhenTheHeaderStopsAfterAField() {
+        ByteBuf frame = frame("<34>1 2024-01-01T00:00:00Z host ");
+
+        assertThat(SyslogParser.parse(frame, message, NOW)).isTrue();
+
+        assertWithinFrame(frame);
+        assertThat(strings.get(frame, message.hostStart, message.hostEnd)).isEqualTo("host");
+        assertThat(strings.get(frame, message.appStart, message.appEnd)).isNull();
+    }
+
+    @Test
+    void parsesEmptyRfc5424Header() {
+        ByteBuf frame = frame("<34>1 ");
+
+        assertThat(SyslogParser.parse(frame, message, NOW)).isTrue();
+
+        assertThat(message.timestampMillis).isEqualTo(-1);
+        assertWithinFrame(frame);
+        assertThat(strings.get(frame, message.hostStart, message.hostEnd)).isNull();
+        assertThat(strings.get(frame, message.messageStart, message.messageEnd)).isNull();
+    }
+
+    @Test
+    void rejectsFramesWithoutPriority() {
+        assertThat(SyslogParser.parse(frame(""), message, NOW)).isFalse();
+        assertThat(SyslogParser.parse(frame("<34"), message, NOW)).isFalse();
+        assertThat(SyslogParser.parse(frame("<>1 "), message, NOW)).isFalse();
+    }
+
+    @Test
+    void returnsNoStringForEmptyOrInvertedRanges() {
+        ByteBuf frame = frame("host");
+
+        assertThat(strings.get(frame, 2, 2)).isNull();
+        assertThat(strings.get(frame, 3, 2)).isNull();
+        assertThat(strings.get(frame, -1, -1)).isNull();
+    }
+
+    private void assertWithinFrame(ByteBuf frame) {
+        int[][] fields = {
+            {message.hostStart, message.hostEnd},
+            {message.appStart, message.appEnd},
+            {message.procIdStart, message.procIdEnd},
+            {message.msgIdStart, message.msgIdEnd},
+            {message.messageStart, message.messageEnd}
+        };
+        for (int[] field : fields) {
+            if (field[0] >= 0) {
+                assertThat(field[0]).isLessThan(field[1]);
+                assertThat(field[1]).isLessThanOrEqualTo(frame.writerIndex());
+            }
+        }
+    }
+
+    private static ByteBuf frame(String text) {
+        return Unpooled.copiedBuffer(text, StandardCharsets.UTF_8);
+    }
+}
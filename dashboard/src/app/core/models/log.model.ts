@@ -6,6 +6,7 @@ export interface LogEntry {
   logger: string;
   message: string;
   stackTrace: string | null;
+  stackTraceHash: string | null;
   exceptionClass: string | null;
   fingerprint: string | null;
   threadName: string | null;
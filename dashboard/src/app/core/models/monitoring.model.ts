@@ -1,5 +1,5 @@
 export type ServiceStatus = 'UP' | 'DOWN' | 'DEGRADED' | 'UNKNOWN';
-export type AlertRuleType = 'DOWNTIME' | 'SLOW_RESPONSE' | 'ERROR_RATE';
+export type AlertRuleType = 'DOWNTIME' | 'SLOW_RESPONSE' | 'ERROR_RATE' | 'EXCEPTION_SPIKE';
 
 export interface MonitoredService {
   id: number;
@@ -43,6 +43,7 @@ export interface AlertRule {
   id: number;
   serviceId: number;
   serviceName: string;
+  projectId: string | null;
   name: string;
   ruleType: AlertRuleType;
   thresholdValue: number;
@@ -56,6 +57,7 @@ export interface AlertRule {
 
 export interface AlertRuleCreateDto {
   serviceId: number;
+  projectId?: string | null;
   name: string;
   ruleType: AlertRuleType;
   thresholdValue: number;
@@ -59,6 +59,11 @@ export class ApiService {
     return this.http.get<LogSearchResponse>(`${this.baseUrl}/logs/search`, { params });
   }
 
+  getStackTraces(projectId: string, hashes: string[]): Observable<Record<string, string>> {
+    const params = new HttpParams().set('projectId', projectId);
+    return this.http.post<Record<string, string>>(`${this.baseUrl}/logs/stack-traces`, hashes, { params });
+  }
+
   getExceptions(projectId?: string, status?: string, page = 0, size = 20): Observable<ExceptionGroup[]> {
     let params = new HttpParams()
       .set('page', String(page))
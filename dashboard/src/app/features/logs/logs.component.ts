@@ -99,6 +99,23 @@ export class LogsComponent implements OnInit {
 
   toggleExpand(logId: string): void {
     this.expandedLogId = this.expandedLogId === logId ? null : logId;
+    const log = this.logs.find(l => l.id === this.expandedLogId);
+    if (log) {
+      this.loadStackTrace(log);
+    }
+  }
+
+  // Search results only carry the trace's hash; the trace itself is fetched when its entry is opened
+  private loadStackTrace(log: LogEntry): void {
+    if (log.stackTrace || !log.stackTraceHash || !log.projectId) {
+      return;
+    }
+    this.apiService.getStackTraces(log.projectId, [log.stackTraceHash]).subscribe({
+      next: (traces) => {
+        log.stackTrace = traces[log.stackTraceHash!] ?? null;
+      },
+      error: (err) => console.error(err)
+    });
   }
 
   isExpanded(logId: string): boolean {
@@ -4,6 +4,7 @@ import { RouterLink } from '@angular/router';
 import { FormsModule } from '@angular/forms';
 import { ApiService } from '../../core/services/api.service';
 import { AlertRule, AlertRuleCreateDto, AlertHistory, MonitoredService, Page, AlertRuleType } from '../../core/models/monitoring.model';
+import { Project } from '../../core/models/service-group.model';
 
 @Component({
   selector: 'app-monitoring-alerts',
@@ -227,8 +228,21 @@ import { AlertRule, AlertRuleCreateDto, AlertHistory, MonitoredService, Page, Al
                   <option value="DOWNTIME">Downtime</option>
                   <option value="SLOW_RESPONSE">Slow Response</option>
                   <option value="ERROR_RATE">Error Rate</option>
+                  <option value="EXCEPTION_SPIKE">Exception Spike</option>
                 </select>
               </div>
+
+              @if (formData.ruleType === 'EXCEPTION_SPIKE') {
+                <div class="form-group">
+                  <label>Project</label>
+                  <select class="select" [(ngModel)]="formData.projectId" name="projectId" required>
+                    <option [ngValue]="null">Select a project</option>
+                    @for (project of projects; track project.id) {
+                      <option [ngValue]="project.id">{{ project.name }}</option>
+                    }
+                  </select>
+                </div>
+              }
               
               <div class="form-group">
                 <label>Threshold Value</label>
@@ -238,6 +252,7 @@ import { AlertRule, AlertRuleCreateDto, AlertHistory, MonitoredService, Page, Al
                     @case ('DOWNTIME') { Number of consecutive failures }
                     @case ('SLOW_RESPONSE') { Response time in milliseconds }
                     @case ('ERROR_RATE') { Error rate percentage }
+                    @case ('EXCEPTION_SPIKE') { Minimum exceptions per minute for a spike to alert }
                   }
                 </small>
               </div>
@@ -546,6 +561,7 @@ export class MonitoringAlertsComponent implements OnInit {
   showModal = false;
   saving = false;
   emailsInput = '';
+  projects: Project[] = [];
   
   formData: AlertRuleCreateDto = {
     serviceId: 0,
@@ -560,6 +576,7 @@ export class MonitoringAlertsComponent implements OnInit {
   ngOnInit(): void {
     this.loadRules();
     this.loadServices();
+    this.loadProjects();
     this.loadActiveAlerts();
   }
 
@@ -583,6 +600,12 @@ export class MonitoringAlertsComponent implements OnInit {
     });
   }
 
+  loadProjects(): void {
+    this.apiService.getProjects().subscribe({
+      next: (data) => this.projects = data
+    });
+  }
+
   loadHistory(page = 0): void {
     this.loadingHistory = true;
     this.currentPage = page;
@@ -616,6 +639,7 @@ export class MonitoringAlertsComponent implements OnInit {
   openAddRuleModal(): void {
     this.formData = {
       serviceId: 0,
+      projectId: null,
       name: '',
       ruleType: 'DOWNTIME',
       thresholdValue: 1,
@@ -669,6 +693,7 @@ export class MonitoringAlertsComponent implements OnInit {
       case 'DOWNTIME': return 'Downtime';
       case 'SLOW_RESPONSE': return 'Slow Response';
       case 'ERROR_RATE': return 'Error Rate';
+      case 'EXCEPTION_SPIKE': return 'Exception Spike';
       default: return type;
     }
   }
@@ -678,6 +703,7 @@ export class MonitoringAlertsComponent implements OnInit {
       case 'DOWNTIME': return `${rule.thresholdValue} failures`;
       case 'SLOW_RESPONSE': return `${rule.thresholdValue}ms`;
       case 'ERROR_RATE': return `${rule.thresholdValue}%`;
+      case 'EXCEPTION_SPIKE': return `${rule.thresholdValue}/min`;
       default: return String(rule.thresholdValue);
     }
   }
@@ -687,6 +713,7 @@ export class MonitoringAlertsComponent implements OnInit {
       case 'DOWNTIME': return '!';
       case 'SLOW_RESPONSE': return '~';
       case 'ERROR_RATE': return '%';
+      case 'EXCEPTION_SPIKE': return '^';
       default: return '*';
     }
   }
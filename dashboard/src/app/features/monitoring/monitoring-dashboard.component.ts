@@ -653,6 +653,7 @@ export class MonitoringDashboardComponent implements OnInit, OnDestroy {
       case 'DOWNTIME': return '!';
       case 'SLOW_RESPONSE': return '~';
       case 'ERROR_RATE': return '%';
+      case 'EXCEPTION_SPIKE': return '^';
       default: return '*';
     }
   }
@@ -6,6 +6,8 @@ import ch.qos.logback.classic.spi.StackTraceElementProxy;
 import ch.qos.logback.core.AppenderBase;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -14,6 +16,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.zip.GZIPOutputStream;
 
 public class LogHealerAppender extends AppenderBase<ILoggingEvent> {
 
@@ -25,9 +28,12 @@ public class LogHealerAppender extends AppenderBase<ILoggingEvent> {
     private String serviceName;
     private int batchSize = 50;
     private int flushIntervalMs = 5000;
+    private int compressionThreshold = 8192; // bytes; batches above are gzipped, negative disables
+    private String encoding = "json"; // json or smile (binary JSON, smaller and cheaper to parse)
 
     private final BlockingQueue<Map<String, Object>> buffer = new LinkedBlockingQueue<>(10000);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private String contentType = "application/json";
     private HttpClient httpClient;
     private ScheduledExecutorService scheduler;
     private volatile boolean started = false;
@@ -43,6 +49,16 @@ public class LogHealerAppender extends AppenderBase<ILoggingEvent> {
             return;
         }
 
+        if ("smile".equalsIgnoreCase(encoding)) {
+            if (!SmileEncoding.isAvailable()) {
+                addError("LogHealer encoding is smile but com.fasterxml.jackson.dataformat:jackson-dataformat-smile "
+                        + "is not on the classpath; add it or use encoding json. Appender disabled");
+                return;
+            }
+            objectMapper = SmileEncoding.objectMapper();
+            contentType = SmileEncoding.CONTENT_TYPE;
+        }
+
         httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
@@ -80,6 +96,7 @@ public class LogHealerAppender extends AppenderBase<ILoggingEvent> {
 
         try {
             Map<String, Object> logEntry = new HashMap<>();
+            logEntry.put("eventId", newEventId(event.getTimeStamp()));
             logEntry.put("timestamp", event.getTimeStamp());
             logEntry.put("level", event.getLevel().toString());
             logEntry.put("logger", event.getLoggerName());
@@ -158,14 +175,22 @@ public class LogHealerAppender extends AppenderBase<ILoggingEvent> {
             Map<String, Object> payload = new HashMap<>();
             payload.put("logs", batch);
 
-            String json = objectMapper.writeValueAsString(payload);
+            byte[] body = objectMapper.writeValueAsBytes(payload);
 
-            HttpRequest request = HttpRequest.newBuilder()
+            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                     .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/json")
+                    .header("Content-Type", contentType)
                     .header("X-API-Key", apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(json))
-                    .timeout(Duration.ofSeconds(30))
+                    .timeout(Duration.ofSeconds(30));
+
+            // Compress larger batches; log payloads typically shrink ~10x
+            if (compressionThreshold >= 0 && body.length > compressionThreshold) {
+                body = gzip(body);
+                requestBuilder.header("Content-Encoding", "gzip");
+            }
+
+            HttpRequest request = requestBuilder
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
                     .build();
 
             httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
@@ -184,6 +209,22 @@ public class LogHealerAppender extends AppenderBase<ILoggingEvent> {
         }
     }
 
+    // UUIDv7 layout: 48-bit millis, version, random bits; lets the server dedupe retries with local IDs
+    private static String newEventId(long timestamp) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (timestamp << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(512, data.length / 8));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
     // Setters for Logback XML configuration
     public void setEndpoint(String endpoint) {
         this.endpoint = endpoint;
@@ -216,4 +257,12 @@ public class LogHealerAppender extends AppenderBase<ILoggingEvent> {
     public void setFlushIntervalMs(int flushIntervalMs) {
         this.flushIntervalMs = flushIntervalMs;
     }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
 }
@@ -0,0 +1,30 @@
+package com.reddiax.loghealer.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Smile support, kept out of {@link LogHealerAppender} so the appender loads without the optional
+ * jackson-dataformat-smile dependency.
+ */
+final class SmileEncoding {
+
+    static final String CONTENT_TYPE = "application/x-jackson-smile";
+
+    private SmileEncoding() {
+    }
+
+    static boolean isAvailable() {
+        try {
+            Class.forName("com.fasterxml.jackson.dataformat.smile.SmileFactory", false,
+                    SmileEncoding.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper(new SmileFactory());
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.*;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 @Document(indexName = "loghealer-logs-#{T(java.time.LocalDate).now().format(T(java.time.format.DateTimeFormatter).ofPattern('yyyy-MM'))}", createIndex = false)
@@ -14,12 +15,15 @@ import java.util.Map;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class LogEntryDocument {
 
     @Id
     private String id;
 
+    @Field(type = FieldType.Keyword)
+    private String eventId;
+
     @Field(type = FieldType.Keyword)
     private String projectId;
 
@@ -38,6 +42,9 @@ public class LogEntryDocument {
     @Field(type = FieldType.Text)
     private String stackTrace;
 
+    @Field(type = FieldType.Keyword)
+    private String stackTraceHash;
+
     @Field(type = FieldType.Keyword)
     private String exceptionClass;
 
@@ -70,4 +77,16 @@ public class LogEntryDocument {
 
     @Field(type = FieldType.Keyword)
     private String environment;
+
+    @Field(type = FieldType.Integer)
+    private Integer repeatCount;
+
+    @Field(type = FieldType.Date, format = DateFormat.epoch_millis)
+    private Instant firstTimestamp;
+
+    @Field(type = FieldType.Date, format = DateFormat.epoch_millis)
+    private Instant lastTimestamp;
+
+    @Field(type = FieldType.Keyword)
+    private List<String> repeatTraceIds;
 }
@@ -0,0 +1,41 @@
+package com.reddiax.loghealer.document;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.*;
+
+import java.time.Instant;
+
+/**
+ * A raw stack trace stored once per project, keyed by the hash of the project and the trace. Log entries
+ * reference it through {@link LogEntryDocument#getStackTraceHash()}. {@code lastSeen} is refreshed at most
+ * once a day while the trace keeps occurring and drives its retention.
+ */
+@Document(indexName = "loghealer-stack-traces", createIndex = false)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StackTraceDocument {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String projectId;
+
+    @Field(type = FieldType.Keyword)
+    private String tenantId;
+
+    @Field(type = FieldType.Text)
+    private String stackTrace;
+
+    @Field(type = FieldType.Keyword)
+    private String exceptionClass;
+
+    @Field(type = FieldType.Date, format = DateFormat.epoch_millis)
+    private Instant lastSeen;
+}
@@ -3,6 +3,7 @@ package com.reddiax.loghealer.dto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonSetter;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.*;
 
 import java.time.Instant;
@@ -22,6 +23,9 @@ public class LogEntryRequest {
     @NotBlank(message = "Message is required")
     private String message;
 
+    @Size(max = 128, message = "Event ID must be at most 128 characters")
+    private String eventId;
+
     private String logger;
 
     private String stackTrace;
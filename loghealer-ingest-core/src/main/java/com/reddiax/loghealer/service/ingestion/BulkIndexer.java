@@ -0,0 +1,385 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.util.BinaryData;
+import co.elastic.clients.util.ContentType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Coalesces documents from every ingestion path into {@code _bulk} requests. A batch is flushed
+ * when it reaches max-actions or max-bytes, or when its oldest document has lingered for linger-ms.
+ * Items rejected with a retryable status (429 or 5xx) are resubmitted with exponential backoff; items
+ * rejected with any other status fail with {@link BulkItemRejectedException}.
+ * <p>
+ * Each {@link IngestionLane} has its own buffer. Exception and ERROR/WARN lanes use the shorter
+ * {@code priority} linger and batch size and have their own in-flight request slots, so they are
+ * flushed within tens of milliseconds even while INFO bulk requests saturate the regular slots.
+ * <p>
+ * Full buffers wait in a queue per class of slots and are sent as slots free up, so flushing never blocks.
+ * Only callers adding documents wait, and only while as many requests of their lane's class are queued as
+ * it has slots.
+ */
+@Component
+@Slf4j
+public class BulkIndexer {
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${loghealer.elasticsearch.bulk.max-actions:1000}")
+    private int maxActions;
+
+    @Value("${loghealer.elasticsearch.bulk.max-bytes:5242880}")
+    private long maxBytes;
+
+    @Value("${loghealer.elasticsearch.bulk.linger-ms:1000}")
+    private long lingerMs;
+
+    @Value("${loghealer.elasticsearch.bulk.concurrent-requests:2}")
+    private int concurrentRequests;
+
+    @Value("${loghealer.elasticsearch.bulk.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${loghealer.elasticsearch.bulk.initial-backoff-ms:200}")
+    private long initialBackoffMs;
+
+    @Value("${loghealer.elasticsearch.bulk.priority.max-actions:200}")
+    private int priorityMaxActions;
+
+    @Value("${loghealer.elasticsearch.bulk.priority.linger-ms:50}")
+    private long priorityLingerMs;
+
+    @Value("${loghealer.elasticsearch.bulk.priority.concurrent-requests:1}")
+    private int priorityConcurrentRequests;
+
+    private final Object lock = new Object();
+    private final Buffer[] buffers = new Buffer[IngestionLane.values().length];
+
+    private Dispatcher regular;
+    private Dispatcher priority;
+    private ExecutorService flushExecutor;
+    private ScheduledExecutorService scheduler;
+
+    public BulkIndexer(ElasticsearchClient elasticsearchClient, ObjectMapper objectMapper) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (IngestionLane lane : IngestionLane.values()) {
+            buffers[lane.ordinal()] = lane.isPriority()
+                ? new Buffer(priorityMaxActions, priorityLingerMs)
+                : new Buffer(maxActions, lingerMs);
+        }
+        regular = new Dispatcher(concurrentRequests);
+        priority = new Dispatcher(priorityConcurrentRequests);
+        flushExecutor = Executors.newFixedThreadPool(concurrentRequests + priorityConcurrentRequests,
+            IngestionThreads.named("loghealer-bulk"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(IngestionThreads.named("loghealer-bulk-linger"));
+        long period = Math.max(10, Math.min(lingerMs, priorityLingerMs) / 2);
+        scheduler.scheduleAtFixedRate(this::flushIfLingering, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public CompletableFuture<Void> add(String index, String id, Object document) {
+        return add(index, id, document, IngestionLane.INFO);
+    }
+
+    public CompletableFuture<Void> add(String index, String id, Object document, IngestionLane lane) {
+        byte[] source;
+        try {
+            source = objectMapper.writeValueAsBytes(document);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        BulkItem item = new BulkItem(index, id, source, lane, new CompletableFuture<>(), 0);
+        dispatcher(lane).awaitCapacity();
+        enqueue(item);
+        return item.future();
+    }
+
+    /**
+     * Adds a group of documents bound for the same index under a single lock acquisition. The documents
+     * get Elasticsearch-generated IDs, which lets the append-only path skip the per-document ID lookup.
+     */
+    public CompletableFuture<Void> addAll(String index, List<?> documents) {
+        List<BulkItem> items = new ArrayList<>(documents.size());
+        CompletableFuture<?>[] results = new CompletableFuture<?>[documents.size()];
+        for (int i = 0; i < documents.size(); i++) {
+            try {
+                BulkItem item = new BulkItem(index, null, objectMapper.writeValueAsBytes(documents.get(i)),
+                    IngestionLane.INFO, new CompletableFuture<>(), 0);
+                items.add(item);
+                results[i] = item.future();
+            } catch (JsonProcessingException e) {
+                results[i] = CompletableFuture.failedFuture(e);
+            }
+        }
+        regular.awaitCapacity();
+        enqueueAll(items);
+        return CompletableFuture.allOf(results);
+    }
+
+    public void flush() {
+        List<List<BulkItem>> ready = new ArrayList<>(buffers.length);
+        synchronized (lock) {
+            for (Buffer buffer : buffers) {
+                if (!buffer.pending.isEmpty()) {
+                    ready.add(buffer.swap());
+                }
+            }
+        }
+        ready.forEach(this::dispatch);
+    }
+
+    private void enqueue(BulkItem item) {
+        enqueueAll(List.of(item));
+    }
+
+    private void enqueueAll(List<BulkItem> items) {
+        List<List<BulkItem>> ready = null;
+        synchronized (lock) {
+            for (BulkItem item : items) {
+                Buffer buffer = buffers[item.lane().ordinal()];
+                if (buffer.add(item, maxBytes)) {
+                    if (ready == null) {
+                        ready = new ArrayList<>(1);
+                    }
+                    ready.add(buffer.swap());
+                }
+            }
+        }
+        if (ready != null) {
+            ready.forEach(this::dispatch);
+        }
+    }
+
+    private void flushIfLingering() {
+        List<List<BulkItem>> ready = null;
+        long now = System.nanoTime();
+        synchronized (lock) {
+            for (Buffer buffer : buffers) {
+                if (buffer.lingering(now)) {
+                    if (ready == null) {
+                        ready = new ArrayList<>(buffers.length);
+                    }
+                    ready.add(buffer.swap());
+                }
+            }
+        }
+        if (ready != null) {
+            ready.forEach(this::dispatch);
+        }
+    }
+
+    // A buffer only holds one lane, so the first item decides which in-flight slots the request uses
+    private void dispatch(List<BulkItem> items) {
+        Dispatcher dispatcher = dispatcher(items.get(0).lane());
+        dispatcher.waiting.add(items);
+        dispatcher.drain();
+    }
+
+    private Dispatcher dispatcher(IngestionLane lane) {
+        return lane.isPriority() ? priority : regular;
+    }
+
+    private void execute(List<BulkItem> items) {
+        BulkRequest.Builder request = new BulkRequest.Builder();
+        for (BulkItem item : items) {
+            BinaryData data = BinaryData.of(item.source(), ContentType.APPLICATION_JSON);
+            request.operations(op -> op.index(idx -> idx
+                .index(item.index())
+                .id(item.id())
+                .document(data)));
+        }
+
+        BulkResponse response;
+        try {
+            response = elasticsearchClient.bulk(request.build());
+        } catch (Exception e) {
+            log.warn("Bulk request of {} documents failed: {}", items.size(), e.getMessage());
+            retryOrFail(items, e);
+            return;
+        }
+
+        if (!response.errors()) {
+            items.forEach(item -> item.future().complete(null));
+            return;
+        }
+
+        List<BulkItem> retryable = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BulkItem item = items.get(i);
+            BulkResponseItem result = response.items().get(i);
+            if (result.error() == null) {
+                item.future().complete(null);
+            } else if (isRetryable(result.status())) {
+                retryable.add(item);
+            } else {
+                failed++;
+                item.future().completeExceptionally(new BulkItemRejectedException(result.status(),
+                    result.error().type() + ": " + result.error().reason()));
+            }
+        }
+        if (failed > 0) {
+            log.error("Bulk request rejected {} of {} documents", failed, items.size());
+        }
+        if (!retryable.isEmpty()) {
+            retryOrFail(retryable, new IllegalStateException("Bulk items rejected with retryable status"));
+        }
+    }
+
+    private void retryOrFail(List<BulkItem> items, Exception cause) {
+        int dropped = 0;
+        for (BulkItem item : items) {
+            if (item.attempt() >= maxRetries) {
+                dropped++;
+                item.future().completeExceptionally(cause);
+                continue;
+            }
+            long backoff = initialBackoffMs << item.attempt();
+            BulkItem retry = new BulkItem(item.index(), item.id(), item.source(), item.lane(), item.future(),
+                item.attempt() + 1);
+            try {
+                scheduler.schedule(() -> enqueue(retry), backoff, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                dropped++;
+                item.future().completeExceptionally(cause);
+            }
+        }
+        if (dropped > 0) {
+            log.error("Dropped {} documents after {} bulk retries", dropped, maxRetries);
+        }
+    }
+
+    private boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        flush();
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record BulkItem(String index, String id, byte[] source, IngestionLane lane,
+                            CompletableFuture<Void> future, int attempt) {
+    }
+
+    // In-flight request slots of one class of lanes and the requests waiting for them
+    private final class Dispatcher {
+
+        final Semaphore slots;
+        final int maxWaiting;
+        final Queue<List<BulkItem>> waiting = new ConcurrentLinkedQueue<>();
+
+        Dispatcher(int slots) {
+            this.slots = new Semaphore(slots);
+            this.maxWaiting = slots;
+        }
+
+        // Every enqueue and every release drains, so a waiting request is never left without a slot
+        void drain() {
+            while (!waiting.isEmpty() && slots.tryAcquire()) {
+                List<BulkItem> items = waiting.poll();
+                if (items == null) {
+                    slots.release();
+                    continue;
+                }
+                synchronized (this) {
+                    notifyAll();
+                }
+                try {
+                    flushExecutor.execute(() -> {
+                        try {
+                            execute(items);
+                        } finally {
+                            slots.release();
+                            drain();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    try {
+                        execute(items);
+                    } finally {
+                        slots.release();
+                    }
+                }
+            }
+        }
+
+        void awaitCapacity() {
+            synchronized (this) {
+                while (waiting.size() >= maxWaiting) {
+                    try {
+                        wait(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Buffer {
+
+        final int maxActions;
+        final long lingerNanos;
+        List<BulkItem> pending = new ArrayList<>();
+        long pendingBytes;
+        long oldestPendingNanos;
+
+        Buffer(int maxActions, long lingerMs) {
+            this.maxActions = maxActions;
+            this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        }
+
+        // Returns true when the buffer is full and should be swapped out
+        boolean add(BulkItem item, long maxBytes) {
+            if (pending.isEmpty()) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            pending.add(item);
+            pendingBytes += item.source().length;
+            return pending.size() >= maxActions || pendingBytes >= maxBytes;
+        }
+
+        boolean lingering(long now) {
+            return !pending.isEmpty() && now - oldestPendingNanos >= lingerNanos;
+        }
+
+        List<BulkItem> swap() {
+            List<BulkItem> ready = pending;
+            pending = new ArrayList<>(Math.min(maxActions, Math.max(16, ready.size())));
+            pendingBytes = 0;
+            return ready;
+        }
+    }
+}
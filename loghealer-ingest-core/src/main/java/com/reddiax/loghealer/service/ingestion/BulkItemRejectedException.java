@@ -0,0 +1,18 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import lombok.Getter;
+
+/**
+ * A document Elasticsearch refused with a status that retrying will not change, such as a mapping
+ * conflict (400). Transport failures and retryable statuses that outlast the retries fail with other exceptions.
+ */
+@Getter
+public class BulkItemRejectedException extends IllegalStateException {
+
+    private final int status;
+
+    public BulkItemRejectedException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
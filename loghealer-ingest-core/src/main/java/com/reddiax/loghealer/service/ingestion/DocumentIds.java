@@ -0,0 +1,85 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-prefixed document IDs: 12 hex digits of epoch millis followed by 16 hex digits of either a
+ * hash of (projectId, eventId) or random bits. IDs for the same client event are deterministic, and
+ * consecutive documents share prefixes, which keeps Elasticsearch's ID lookups segment-local.
+ * <p>
+ * An event sent without a timestamp takes its time from the event ID when that is a UUIDv7, and a zero
+ * prefix otherwise, so retries of the same event still get the same ID.
+ */
+public final class DocumentIds {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private DocumentIds() {
+    }
+
+    public static String forEvent(String projectId, String eventId, Instant timestamp) {
+        return format(timestamp != null ? timestamp.toEpochMilli() : 0, eventKey(projectId, eventId));
+    }
+
+    /**
+     * The creation time embedded in a UUIDv7 event ID, or null for any other ID.
+     */
+    public static Instant eventTime(String eventId) {
+        if (eventId.length() != 36) {
+            return null;
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(eventId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return uuid.version() == 7 && uuid.variant() == 2
+            ? Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16)
+            : null;
+    }
+
+    public static String random(Instant timestamp) {
+        return format(timestamp.toEpochMilli(), ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the project and client event ID with a final avalanche step.
+     */
+    public static long eventKey(String projectId, String eventId) {
+        long hash = FNV_OFFSET;
+        hash = update(hash, projectId);
+        hash = (hash ^ 0xff) * FNV_PRIME;
+        hash = update(hash, eventId);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long update(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String format(long millis, long suffix) {
+        char[] id = new char[28];
+        writeHex(id, 0, millis, 12);
+        writeHex(id, 12, suffix, 16);
+        return new String(id);
+    }
+
+    private static void writeHex(char[] target, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            target[offset + i] = Character.forDigit((int) (value & 0xf), 16);
+            value >>>= 4;
+        }
+    }
+}
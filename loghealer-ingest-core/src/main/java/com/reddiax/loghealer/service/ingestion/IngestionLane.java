@@ -0,0 +1,39 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+
+/**
+ * Priority classes for ingestion, highest first. Each lane has its own accept queue and bulk buffer, so
+ * exceptions and errors are not queued behind INFO/DEBUG volume on their way to detection and indexing.
+ */
+public enum IngestionLane {
+
+    EXCEPTION,
+    ERROR_WARN,
+    INFO,
+    DEBUG;
+
+    private static final IngestionLane[] VALUES = values();
+
+    public static IngestionLane of(LogEntryDocument document) {
+        String level = document.getLevel();
+        if ("ERROR".equals(level) || "FATAL".equals(level)) {
+            return document.getStackTrace() != null && !document.getStackTrace().isBlank() ? EXCEPTION : ERROR_WARN;
+        }
+        if ("WARN".equals(level)) {
+            return ERROR_WARN;
+        }
+        if ("DEBUG".equals(level) || "TRACE".equals(level)) {
+            return DEBUG;
+        }
+        return INFO;
+    }
+
+    static IngestionLane at(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    boolean isPriority() {
+        return this == EXCEPTION || this == ERROR_WARN;
+    }
+}
@@ -0,0 +1,14 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import lombok.Getter;
+
+@Getter
+public class IngestionQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public IngestionQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
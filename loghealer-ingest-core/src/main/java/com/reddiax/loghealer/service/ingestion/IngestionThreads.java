@@ -0,0 +1,19 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class IngestionThreads {
+
+    private IngestionThreads() {
+    }
+
+    public static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.dto.LogEntryRequest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Maps client log requests to stored documents, so every ingestion server produces identical documents
+ * and IDs for the same request.
+ */
+public final class LogEntryDocuments {
+
+    private static final DateTimeFormatter INDEX_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private LogEntryDocuments() {
+    }
+
+    public static LogEntryDocument from(LogEntryRequest request, ProjectContext project,
+                                        int maxMessageLength, int maxStackTraceLength) {
+        String eventId = request.getEventId() != null && !request.getEventId().isBlank() ? request.getEventId() : null;
+        Instant timestamp = request.getTimestamp();
+        String id;
+        if (eventId != null) {
+            // Retries must get the same ID, so without a timestamp the time comes from the event ID, not the clock
+            if (timestamp == null) {
+                timestamp = DocumentIds.eventTime(eventId);
+            }
+            id = DocumentIds.forEvent(project.projectId(), eventId, timestamp);
+        } else {
+            timestamp = timestamp != null ? timestamp : Instant.now();
+            id = DocumentIds.random(timestamp);
+        }
+        return LogEntryDocument.builder()
+            .id(id)
+            .eventId(eventId)
+            .projectId(project.projectId())
+            .tenantId(project.tenantId())
+            .level(request.getLevel().toUpperCase())
+            .logger(request.getLogger())
+            .message(truncate(request.getMessage(), maxMessageLength))
+            .stackTrace(truncate(request.getStackTrace(), maxStackTraceLength))
+            .exceptionClass(request.getExceptionClass())
+            .threadName(request.getThreadName())
+            .metadata(request.getMetadata())
+            .timestamp(timestamp != null ? timestamp : Instant.now())
+            .traceId(request.getTraceId())
+            .spanId(request.getSpanId())
+            .hostName(request.getHostName())
+            .environment(request.getEnvironment())
+            .build();
+    }
+
+    /**
+     * Monthly logs index that newly ingested documents are written to.
+     */
+    public static String currentIndex() {
+        return "loghealer-logs-" + LocalDate.now().format(INDEX_MONTH);
+    }
+
+    public static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,443 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled PII matchers. Every literal trigger (the {@code @} of an email address, the {@code eyJ} header
+ * of a JWT, known API key prefixes) is part of a single Aho-Corasick automaton, so a field is scanned once
+ * however many rules are enabled. A trigger only marks a candidate; an anchored regex or character check
+ * then validates it and finds its extent. Card numbers have no literal and are picked up in the same pass
+ * from digit runs with a known issuer prefix and a valid Luhn checksum. Plain digit runs starting with 4 or 6
+ * are too common in IDs and amounts for that to be enough, so those also need card-style grouping or a word
+ * like "card" shortly before them.
+ * <p>
+ * Matches are replaced by {@code [REDACTED:rule]}. Immutable and thread-safe.
+ */
+public final class PiiPatterns {
+
+    public static final List<String> RULES = List.of("email", "card", "jwt", "api-key");
+
+    static final int EMAIL = 0;
+    static final int CARD = 1;
+    static final int JWT = 2;
+    static final int API_KEY = 3;
+
+    private static final Pattern EMAIL_DOMAIN = Pattern.compile(
+        "@[A-Za-z0-9-]{1,63}(?:\\.[A-Za-z0-9-]{1,63})*\\.[A-Za-z]{2,24}(?![A-Za-z0-9-])");
+    private static final Pattern JWT_TOKEN = Pattern.compile(
+        "eyJ[A-Za-z0-9_-]{4,}\\.[A-Za-z0-9_-]{4,}\\.[A-Za-z0-9_-]{8,}(?![A-Za-z0-9_.-])");
+    private static final int MAX_LOCAL_PART = 64;
+    private static final int MAX_DOMAIN = 255;
+    private static final int MAX_JWT = 16384;
+    private static final int CARD_CONTEXT_CHARS = 32;
+    private static final List<String> CARD_KEYWORDS = List.of("card", "credit", "debit", "visa", "discover",
+        "unionpay");
+
+    private final boolean[] enabled = new boolean[RULES.size()];
+    private final int minKeyLength;
+
+    // Dense automaton over ASCII; any other character returns to the root
+    private final int[][] next;
+    private final int[][] outputs;
+    private final int[] triggerRule;
+    private final int[] triggerLength;
+
+    private PiiPatterns(Collection<String> rules, Collection<String> apiKeyPrefixes, int minKeyLength) {
+        for (String rule : rules) {
+            int index = RULES.indexOf(rule.trim().toLowerCase());
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown scrub rule: " + rule + " (expected one of " + RULES + ")");
+            }
+            enabled[index] = true;
+        }
+        this.minKeyLength = minKeyLength;
+
+        List<String> triggers = new ArrayList<>();
+        List<Integer> rulesOfTriggers = new ArrayList<>();
+        if (enabled[EMAIL]) {
+            triggers.add("@");
+            rulesOfTriggers.add(EMAIL);
+        }
+        if (enabled[JWT]) {
+            triggers.add("eyJ");
+            rulesOfTriggers.add(JWT);
+        }
+        if (enabled[API_KEY]) {
+            for (String prefix : apiKeyPrefixes) {
+                if (!prefix.isBlank()) {
+                    triggers.add(prefix.trim());
+                    rulesOfTriggers.add(API_KEY);
+                }
+            }
+        }
+        triggerRule = rulesOfTriggers.stream().mapToInt(Integer::intValue).toArray();
+        triggerLength = triggers.stream().mapToInt(String::length).toArray();
+
+        List<int[]> transitions = new ArrayList<>();
+        List<int[]> matches = new ArrayList<>();
+        transitions.add(newState());
+        matches.add(null);
+        for (int t = 0; t < triggers.size(); t++) {
+            int state = 0;
+            for (char c : triggers.get(t).toCharArray()) {
+                if (c >= 128) {
+                    throw new IllegalArgumentException("Scrub prefixes must be ASCII: " + triggers.get(t));
+                }
+                if (transitions.get(state)[c] < 0) {
+                    transitions.get(state)[c] = transitions.size();
+                    transitions.add(newState());
+                    matches.add(null);
+                }
+                state = transitions.get(state)[c];
+            }
+            matches.set(state, append(matches.get(state), t));
+        }
+
+        // Breadth-first, so a state's failure target is complete before the state itself is finished
+        int[] fail = new int[transitions.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = transitions.get(0);
+        for (int c = 0; c < 128; c++) {
+            if (root[c] < 0) {
+                root[c] = 0;
+            } else {
+                queue.add(root[c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = transitions.get(state);
+            int[] inherited = matches.get(fail[state]);
+            if (inherited != null) {
+                for (int t : inherited) {
+                    matches.set(state, append(matches.get(state), t));
+                }
+            }
+            for (int c = 0; c < 128; c++) {
+                int target = row[c];
+                if (target < 0) {
+                    row[c] = transitions.get(fail[state])[c];
+                } else {
+                    fail[target] = transitions.get(fail[state])[c];
+                    queue.add(target);
+                }
+            }
+        }
+        next = transitions.toArray(int[][]::new);
+        outputs = matches.toArray(int[][]::new);
+    }
+
+    public static PiiPatterns compile(Collection<String> rules, Collection<String> apiKeyPrefixes, int minKeyLength) {
+        return new PiiPatterns(rules, apiKeyPrefixes, minKeyLength);
+    }
+
+    /**
+     * Scrubs {@code message}, {@code stackTrace} and string values anywhere in {@code metadata} in place.
+     * {@code hits[rule]} is incremented for every match, indexed like {@link #RULES}.
+     */
+    public void scrub(LogEntryDocument document, int[] hits) {
+        document.setMessage(scrub(document.getMessage(), hits));
+        document.setStackTrace(scrub(document.getStackTrace(), hits));
+        if (document.getMetadata() != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> metadata = (Map<String, Object>) scrubValue(document.getMetadata(), hits);
+            document.setMetadata(metadata);
+        }
+    }
+
+    /**
+     * Returns {@code value} with every match masked, or {@code value} itself when nothing matched.
+     */
+    public String scrub(String value, int[] hits) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        int length = value.length();
+        // Triples of (start, end, rule), in increasing order and never overlapping
+        int[] spans = null;
+        int spanCount = 0;
+        int lastEnd = 0;
+        int state = 0;
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (enabled[CARD] && c >= '0' && c <= '9' && (i == 0 || !Character.isLetterOrDigit(value.charAt(i - 1)))) {
+                int end = cardEnd(value, i);
+                if (end > 0) {
+                    spans = addSpan(spans, spanCount++, i, end, CARD);
+                    hits[CARD]++;
+                    i = lastEnd = end;
+                    state = 0;
+                    continue;
+                }
+            }
+            state = c < 128 ? next[state][c] : 0;
+            int[] triggers = outputs[state];
+            long match = -1;
+            int rule = -1;
+            if (triggers != null) {
+                for (int trigger : triggers) {
+                    rule = triggerRule[trigger];
+                    match = match(value, rule, i + 1 - triggerLength[trigger], i + 1, lastEnd);
+                    if (match >= 0) {
+                        break;
+                    }
+                }
+            }
+            if (match < 0) {
+                i++;
+                continue;
+            }
+            int start = (int) (match >>> 32);
+            int end = (int) match;
+            spans = addSpan(spans, spanCount++, start, end, rule);
+            hits[rule]++;
+            i = lastEnd = end;
+            state = 0;
+        }
+        if (spanCount == 0) {
+            return value;
+        }
+
+        StringBuilder scrubbed = new StringBuilder(length);
+        int copied = 0;
+        for (int s = 0; s < spanCount; s++) {
+            scrubbed.append(value, copied, spans[s * 3])
+                .append("[REDACTED:").append(RULES.get(spans[s * 3 + 2])).append(']');
+            copied = spans[s * 3 + 1];
+        }
+        return scrubbed.append(value, copied, length).toString();
+    }
+
+    // Returns the same object when nothing inside it changed
+    private Object scrubValue(Object value, int[] hits) {
+        if (value instanceof String text) {
+            return scrub(text, hits);
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = null;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object scrubbed = scrubValue(entry.getValue(), hits);
+                if (scrubbed != entry.getValue()) {
+                    if (copy == null) {
+                        copy = new LinkedHashMap<>(map);
+                    }
+                    copy.put(entry.getKey(), scrubbed);
+                }
+            }
+            return copy != null ? copy : map;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = null;
+            for (int i = 0; i < list.size(); i++) {
+                Object scrubbed = scrubValue(list.get(i), hits);
+                if (scrubbed != list.get(i)) {
+                    if (copy == null) {
+                        copy = new ArrayList<>(list);
+                    }
+                    copy.set(i, scrubbed);
+                }
+            }
+            return copy != null ? copy : list;
+        }
+        return value;
+    }
+
+    /**
+     * Validates a trigger found at [start, end) and returns the masked span packed as
+     * {@code start << 32 | end}, or -1. {@code floor} is the end of the previous match, which an email's
+     * local part may not extend past.
+     */
+    private long match(String value, int rule, int start, int end, int floor) {
+        switch (rule) {
+            case EMAIL -> {
+                int from = start;
+                while (from > floor && start - from < MAX_LOCAL_PART && isLocalPartChar(value.charAt(from - 1))) {
+                    from--;
+                }
+                if (from == start) {
+                    return -1;
+                }
+                int domainEnd = regionEnd(EMAIL_DOMAIN, value, start, MAX_DOMAIN);
+                return domainEnd < 0 ? -1 : pack(from, domainEnd);
+            }
+            case JWT -> {
+                if (start > 0 && (isKeyChar(value.charAt(start - 1)) || value.charAt(start - 1) == '.')) {
+                    return -1;
+                }
+                int tokenEnd = regionEnd(JWT_TOKEN, value, start, MAX_JWT);
+                return tokenEnd < 0 ? -1 : pack(start, tokenEnd);
+            }
+            case API_KEY -> {
+                if (start > 0 && isKeyChar(value.charAt(start - 1))) {
+                    return -1;
+                }
+                int keyEnd = end;
+                while (keyEnd < value.length() && isKeyChar(value.charAt(keyEnd))) {
+                    keyEnd++;
+                }
+                return keyEnd - end < minKeyLength ? -1 : pack(start, keyEnd);
+            }
+            default -> {
+                return -1;
+            }
+        }
+    }
+
+    private static int regionEnd(Pattern pattern, String value, int start, int maxLength) {
+        Matcher matcher = pattern.matcher(value)
+            .region(start, Math.min(value.length(), start + maxLength))
+            .useTransparentBounds(true);
+        return matcher.lookingAt() ? matcher.end() : -1;
+    }
+
+    /**
+     * End of a card number starting at {@code start}, or -1. Digits may be grouped by single spaces or
+     * dashes after groups of four (or six, for the middle group of an Amex number).
+     */
+    private static int cardEnd(String value, int start) {
+        int length = value.length();
+        int[] digits = new int[19];
+        int count = 0;
+        int group = 0;
+        char separator = 0;
+        int i = start;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (count == digits.length) {
+                    return -1;
+                }
+                digits[count++] = c - '0';
+                group++;
+                i++;
+            } else if ((c == ' ' || c == '-') && (separator == 0 || separator == c) && (group == 4 || group == 6)
+                    && i + 1 < length && value.charAt(i + 1) >= '0' && value.charAt(i + 1) <= '9') {
+                separator = c;
+                group = 0;
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (count < 13 || (i < length && Character.isLetterOrDigit(value.charAt(i)))) {
+            return -1;
+        }
+        if (!knownIssuer(digits) || !luhn(digits, count)) {
+            return -1;
+        }
+        if ((digits[0] == 4 || digits[0] == 6) && separator == 0 && !hasCardContext(value, start)) {
+            return -1;
+        }
+        return i;
+    }
+
+    /**
+     * Whether a word naming a card ({@code cardNumber}, {@code credit}, {@code visa}, {@code cc_num},
+     * {@code pan}) appears in the few characters before {@code start}.
+     */
+    private static boolean hasCardContext(String value, int start) {
+        String before = value.substring(Math.max(0, start - CARD_CONTEXT_CHARS), start).toLowerCase(Locale.ROOT);
+        int wordEnd = before.length();
+        while (wordEnd > 0) {
+            while (wordEnd > 0 && !Character.isLetter(before.charAt(wordEnd - 1))) {
+                wordEnd--;
+            }
+            int wordStart = wordEnd;
+            while (wordStart > 0 && Character.isLetter(before.charAt(wordStart - 1))) {
+                wordStart--;
+            }
+            String word = before.substring(wordStart, wordEnd);
+            if (word.equals("pan") || word.startsWith("cc")) {
+                return true;
+            }
+            for (String keyword : CARD_KEYWORDS) {
+                if (word.contains(keyword)) {
+                    return true;
+                }
+            }
+            wordEnd = wordStart;
+        }
+        return false;
+    }
+
+    // Visa, Mastercard (51-55, 2221-2720), Amex, Diners and Discover/UnionPay ranges
+    private static boolean knownIssuer(int[] d) {
+        return switch (d[0]) {
+            case 4, 6 -> true;
+            case 5 -> d[1] >= 1 && d[1] <= 5;
+            case 3 -> d[1] == 0 || d[1] == 4 || d[1] == 6 || d[1] == 7 || d[1] == 8;
+            case 2 -> {
+                int prefix = d[0] * 1000 + d[1] * 100 + d[2] * 10 + d[3];
+                yield prefix >= 2221 && prefix <= 2720;
+            }
+            default -> false;
+        };
+    }
+
+    private static boolean luhn(int[] digits, int count) {
+        int sum = 0;
+        for (int i = count - 1, position = 0; i >= 0; i--, position++) {
+            int digit = digits[i];
+            if ((position & 1) == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isKeyChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+
+    private static long pack(int start, int end) {
+        return (long) start << 32 | end;
+    }
+
+    private static int[] addSpan(int[] spans, int index, int start, int end, int rule) {
+        if (spans == null) {
+            spans = new int[12];
+        } else if (index * 3 + 3 > spans.length) {
+            spans = Arrays.copyOf(spans, spans.length * 2);
+        }
+        spans[index * 3] = start;
+        spans[index * 3 + 1] = end;
+        spans[index * 3 + 2] = rule;
+        return spans;
+    }
+
+    private static int[] newState() {
+        int[] row = new int[128];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] append(int[] values, int value) {
+        if (values == null) {
+            return new int[] {value};
+        }
+        int[] grown = Arrays.copyOf(values, values.length + 1);
+        grown[values.length] = value;
+        return grown;
+    }
+}
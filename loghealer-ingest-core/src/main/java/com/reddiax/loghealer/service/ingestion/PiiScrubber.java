@@ -0,0 +1,103 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import com.reddiax.loghealer.document.LogEntryDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Masks emails, card numbers, JWTs and API keys in {@code message}, {@code stackTrace} and metadata
+ * before documents are admitted for indexing, by the backend and the ingest server alike, so they never
+ * reach Elasticsearch, exception detection or AI prompts. See {@link PiiPatterns} for how fields are matched.
+ * Hits are counted per project and rule on this node and exported as {@code loghealer.ingestion.scrubbed}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PiiScrubber {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${loghealer.ingestion.scrub.enabled:true}")
+    private boolean enabled;
+
+    @Value("${loghealer.ingestion.scrub.rules:email,card,jwt,api-key}")
+    private List<String> rules;
+
+    @Value("${loghealer.ingestion.scrub.api-key-prefixes:AKIA,ASIA,ghp_,gho_,ghs_,ghu_,github_pat_,glpat-,xoxb-,xoxp-,sk_live_,sk_test_,rk_live_,sk-,AIza}")
+    private List<String> apiKeyPrefixes;
+
+    @Value("${loghealer.ingestion.scrub.min-key-length:16}")
+    private int minKeyLength;
+
+    private PiiPatterns patterns;
+
+    private final Map<String, LongAdder[]> hitsByProject = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        patterns = PiiPatterns.compile(rules, apiKeyPrefixes, minKeyLength);
+        log.info("PII scrubbing {} (rules={}, apiKeyPrefixes={})", enabled ? "enabled" : "disabled", rules,
+            apiKeyPrefixes.size());
+    }
+
+    /**
+     * Scrubs the documents in place. All documents must belong to the same project.
+     */
+    public void scrub(List<LogEntryDocument> documents) {
+        if (!enabled || documents.isEmpty()) {
+            return;
+        }
+        int[] hits = new int[PiiPatterns.RULES.size()];
+        for (LogEntryDocument document : documents) {
+            patterns.scrub(document, hits);
+        }
+        String projectId = documents.get(0).getProjectId();
+        for (int rule = 0; rule < hits.length; rule++) {
+            if (hits[rule] > 0) {
+                record(projectId, rule, hits[rule]);
+            }
+        }
+    }
+
+    private void record(String projectId, int rule, int count) {
+        hitsByProject.computeIfAbsent(projectId, k -> newCounters())[rule].add(count);
+        meterRegistry.counter("loghealer.ingestion.scrubbed", "project", projectId, "rule", PiiPatterns.RULES.get(rule))
+            .increment(count);
+    }
+
+    /**
+     * Values masked on this node since startup, keyed by rule. A {@code null} project sums all projects.
+     */
+    public Map<String, Long> hitCounts(String projectId) {
+        Map<String, Long> counts = new TreeMap<>();
+        hitsByProject.forEach((project, hits) -> {
+            if (projectId == null || projectId.equals(project)) {
+                for (int rule = 0; rule < hits.length; rule++) {
+                    long count = hits[rule].sum();
+                    if (count > 0) {
+                        counts.merge(PiiPatterns.RULES.get(rule), count, Long::sum);
+                    }
+                }
+            }
+        });
+        return counts;
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[PiiPatterns.RULES.size()];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
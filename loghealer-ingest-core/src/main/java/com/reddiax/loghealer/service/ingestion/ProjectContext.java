@@ -0,0 +1,16 @@
+package com.reddiax.loghealer.service.ingestion;
+
+/**
+ * Immutable snapshot of the project fields the ingestion hot path needs, safe to share across threads.
+ * Caches of these snapshots drop an API key when it is published on {@link #INVALIDATION_CHANNEL}.
+ */
+public record ProjectContext(
+        String projectId,
+        String tenantId,
+        String name,
+        boolean active,
+        String packagePrefix
+) {
+
+    public static final String INVALIDATION_CHANNEL = "loghealer:project-context:invalidate";
+}
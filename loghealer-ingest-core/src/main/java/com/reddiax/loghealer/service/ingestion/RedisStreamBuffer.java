@@ -0,0 +1,219 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis Stream used as the ingestion buffer between accepting nodes and indexing workers. Each entry is
+ * one accepted batch serialized as JSON. Workers read through a consumer group and acknowledge and delete
+ * an entry only after it has been indexed, so {@code XLEN} is the backlog and entries held by a worker that
+ * died are claimed by another once they have been idle long enough.
+ * <p>
+ * A live worker keeps resetting the idle time of the entries it is still working on ({@link #touch}), so
+ * only entries of dead workers go idle and get claimed. An entry delivered max-deliveries times without
+ * being completed is moved to the dead-letter stream instead of being handed out again, so a batch that
+ * keeps crashing its workers does not circulate forever.
+ */
+@Slf4j
+public class RedisStreamBuffer {
+
+    private static final String BATCH_FIELD = "batch";
+    private static final long LENGTH_REFRESH_NANOS = 500_000_000L;
+
+    private static final String SOURCE_ID_FIELD = "sourceId";
+    private static final String DELIVERIES_FIELD = "deliveries";
+    private static final long DEAD_LETTER_MAX_LENGTH = 10_000;
+
+    private final StringRedisTemplate redis;
+    private final StreamOperations<String, String, String> stream;
+    private final String key;
+    private final String group;
+    private final Consumer consumer;
+    private final String deadLetterKey;
+    private final int maxDeliveries;
+
+    private volatile long cachedLength;
+    private volatile long lengthCheckedAt = System.nanoTime() - LENGTH_REFRESH_NANOS;
+
+    public RedisStreamBuffer(StringRedisTemplate redis, String key, String group, String consumerName) {
+        this(redis, key, group, consumerName, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A buffer whose entries are dead-lettered to {@code <key>:dead} after {@code maxDeliveries} deliveries.
+     */
+    public RedisStreamBuffer(StringRedisTemplate redis, String key, String group, String consumerName,
+                             int maxDeliveries) {
+        this.redis = redis;
+        this.stream = redis.opsForStream();
+        this.key = key;
+        this.group = group;
+        this.consumer = Consumer.from(group, consumerName);
+        this.deadLetterKey = key + ":dead";
+        this.maxDeliveries = maxDeliveries;
+    }
+
+    /**
+     * Creates the stream and consumer group if needed. New groups start from the beginning of the stream,
+     * so batches appended before the first worker started are not skipped.
+     */
+    public void ensureGroup() {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            redis.execute((RedisCallback<String>) (RedisConnection connection) ->
+                connection.streamCommands().xGroupCreate(rawKey, group, ReadOffset.from("0"), true));
+            log.info("Created consumer group {} on stream {}", group, key);
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message == null || !message.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    public void append(String batchJson) {
+        stream.add(key, Map.of(BATCH_FIELD, batchJson));
+        cachedLength++;
+    }
+
+    /**
+     * Stream length, refreshed at most every 500 ms so admission checks do not cost a round trip each;
+     * the last known value is kept while Redis is unreachable.
+     */
+    public long length() {
+        long now = System.nanoTime();
+        if (now - lengthCheckedAt >= LENGTH_REFRESH_NANOS) {
+            lengthCheckedAt = now;
+            try {
+                Long size = stream.size(key);
+                cachedLength = size != null ? size : 0;
+            } catch (DataAccessException e) {
+                log.debug("Could not read length of stream {}: {}", key, e.getMessage());
+            }
+        }
+        return cachedLength;
+    }
+
+    /**
+     * Entries delivered to this consumer earlier but never acknowledged, e.g. before a restart. Entries
+     * already delivered max-deliveries times are dead-lettered instead.
+     */
+    public List<MapRecord<String, String, String>> readOwnPending(int count) {
+        PendingMessages pending = stream.pending(key, consumer, Range.unbounded(), count);
+        List<RecordId> exhausted = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getTotalDeliveryCount() >= maxDeliveries) {
+                exhausted.add(message.getId());
+            }
+        }
+        if (!exhausted.isEmpty()) {
+            deadLetter(stream.claim(key, group, consumer.getName(), Duration.ZERO, exhausted.toArray(RecordId[]::new)));
+        }
+        return read(StreamReadOptions.empty().count(count), ReadOffset.from("0"));
+    }
+
+    public List<MapRecord<String, String, String>> readNew(int count, long blockMillis) {
+        return read(StreamReadOptions.empty().count(count).block(Duration.ofMillis(blockMillis)),
+            ReadOffset.lastConsumed());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MapRecord<String, String, String>> read(StreamReadOptions options, ReadOffset offset) {
+        List<MapRecord<String, String, String>> records =
+            stream.read(consumer, options, StreamOffset.create(key, offset));
+        return records != null ? records : List.of();
+    }
+
+    /**
+     * Takes over entries another consumer has held for longer than {@code minIdle} without acknowledging or
+     * touching them, i.e. entries of a consumer that died. Entries already delivered max-deliveries times
+     * are dead-lettered instead of returned. The claim only succeeds for entries still idle that long, so
+     * an owner that touched them in the meantime keeps them.
+     */
+    public List<MapRecord<String, String, String>> claimStale(Duration minIdle, int count) {
+        PendingMessages pending = stream.pending(key, group, Range.unbounded(), count);
+        List<RecordId> stale = new ArrayList<>();
+        List<RecordId> exhausted = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0
+                    && !message.getConsumerName().equals(consumer.getName())) {
+                (message.getTotalDeliveryCount() >= maxDeliveries ? exhausted : stale).add(message.getId());
+            }
+        }
+        if (!exhausted.isEmpty()) {
+            deadLetter(stream.claim(key, group, consumer.getName(), minIdle, exhausted.toArray(RecordId[]::new)));
+        }
+        if (stale.isEmpty()) {
+            return List.of();
+        }
+        List<MapRecord<String, String, String>> claimed =
+            stream.claim(key, group, consumer.getName(), minIdle, stale.toArray(RecordId[]::new));
+        if (!claimed.isEmpty()) {
+            log.info("Claimed {} stale ingestion batches from stream {}", claimed.size(), key);
+        }
+        return claimed;
+    }
+
+    /**
+     * Resets the idle time of entries this consumer is still working on, so that no other consumer claims
+     * them. Unlike a claim it does not count as a delivery.
+     */
+    public void touch(Collection<RecordId> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        XClaimOptions options = XClaimOptions.minIdle(Duration.ZERO).ids(ids.toArray(RecordId[]::new));
+        redis.execute((RedisCallback<List<RecordId>>) (RedisConnection connection) ->
+            connection.streamCommands().xClaimJustId(rawKey, group, consumer.getName(), options));
+    }
+
+    private void deadLetter(List<MapRecord<String, String, String>> records) {
+        for (MapRecord<String, String, String> record : records) {
+            String id = record.getId().getValue();
+            Map<String, String> entry = new HashMap<>(record.getValue());
+            entry.put(SOURCE_ID_FIELD, id);
+            entry.put(DELIVERIES_FIELD, String.valueOf(maxDeliveries));
+            stream.add(deadLetterKey, entry);
+            stream.acknowledge(key, group, id);
+            stream.delete(key, id);
+        }
+        if (!records.isEmpty()) {
+            stream.trim(deadLetterKey, DEAD_LETTER_MAX_LENGTH, true);
+            log.error("Moved {} batches of stream {} to {} after {} deliveries", records.size(), key,
+                deadLetterKey, maxDeliveries);
+        }
+    }
+
+    public static String batch(MapRecord<String, String, String> record) {
+        return record.getValue().get(BATCH_FIELD);
+    }
+
+    public void complete(MapRecord<String, String, String> record) {
+        String id = record.getId().getValue();
+        stream.acknowledge(key, group, id);
+        stream.delete(key, id);
+    }
+}
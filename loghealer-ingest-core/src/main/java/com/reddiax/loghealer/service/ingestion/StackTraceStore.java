@@ -0,0 +1,286 @@
+package com.reddiax.loghealer.service.ingestion;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch.core.DeleteByQueryResponse;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.get.GetResult;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.document.StackTraceDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Content-addressed stack trace storage. At index time each trace is written once per project to
+ * {@code loghealer-stack-traces} under the hash of the project and the trace's raw text, and log entries
+ * keep only the hash, so the logs index no longer carries the same multi-KB trace thousands of times.
+ * Readers resolve hashes in one multi-get per page and only see traces of the project they ask for.
+ * Traces are immutable, so resolved ones are cached without expiry.
+ * <p>
+ * A node rewrites a trace the first time it sees it on a new day, which refreshes {@code lastSeen};
+ * traces not seen for longer than the retention period, and so referenced by no retained log, are purged.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StackTraceStore {
+
+    public static final String INDEX = "loghealer-stack-traces";
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final BulkIndexer bulkIndexer;
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${loghealer.elasticsearch.stack-traces.remembered-hashes:100000}")
+    private int rememberedHashes;
+
+    @Value("${loghealer.elasticsearch.stack-traces.cache-size:512}")
+    private int cacheSize;
+
+    @Value("${loghealer.elasticsearch.stack-traces.retention-days:${loghealer.elasticsearch.default-retention-days:90}}")
+    private int retentionDays;
+
+    // Hashes this node has written and the day of the write; bounded LRU, an evicted hash is simply written again
+    private final Map<String, TraceWrite> written = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TraceWrite> eldest) {
+            return size() > rememberedHashes;
+        }
+    };
+
+    private final Map<String, StackTraceDocument> resolved = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StackTraceDocument> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * The documents to put in the logs index and, per document, the write of its trace; a log entry is only
+     * durable once both have been acknowledged.
+     */
+    public record Externalized(List<LogEntryDocument> documents, List<CompletableFuture<Void>> traceWrites) {
+    }
+
+    /**
+     * Returns the documents to put in the logs index: those with a stack trace are replaced by copies
+     * carrying only {@code stackTraceHash}, and traces not yet written by this node today are queued for
+     * the stack trace index. The input documents are left untouched for exception detection.
+     */
+    public Externalized externalize(List<LogEntryDocument> documents) {
+        List<LogEntryDocument> result = null;
+        List<CompletableFuture<Void>> traceWrites = new ArrayList<>(documents.size());
+        long today = Math.floorDiv(System.currentTimeMillis(), MILLIS_PER_DAY);
+        for (int i = 0; i < documents.size(); i++) {
+            LogEntryDocument document = documents.get(i);
+            String stackTrace = document.getStackTrace();
+            if (stackTrace == null || stackTrace.isBlank()) {
+                if (result != null) {
+                    result.add(document);
+                }
+                traceWrites.add(DONE);
+                continue;
+            }
+            if (result == null) {
+                result = new ArrayList<>(documents.subList(0, i));
+            }
+            String hash = hash(document.getProjectId(), stackTrace);
+            traceWrites.add(writeOnce(hash, document, today));
+            result.add(document.toBuilder().stackTrace(null).stackTraceHash(hash).build());
+        }
+        return new Externalized(result != null ? result : documents, traceWrites);
+    }
+
+    private CompletableFuture<Void> writeOnce(String hash, LogEntryDocument document, long today) {
+        CompletableFuture<Void> future;
+        synchronized (written) {
+            TraceWrite previous = written.get(hash);
+            if (previous != null && previous.day() == today) {
+                return previous.future();
+            }
+            future = new CompletableFuture<>();
+            written.put(hash, new TraceWrite(today, future));
+        }
+        StackTraceDocument trace = StackTraceDocument.builder()
+            .id(hash)
+            .projectId(document.getProjectId())
+            .tenantId(document.getTenantId())
+            .stackTrace(document.getStackTrace())
+            .exceptionClass(document.getExceptionClass())
+            .lastSeen(Instant.now())
+            .build();
+        // Traces belong to exceptions, so they don't wait behind INFO requests either
+        bulkIndexer.add(INDEX, hash, trace, IngestionLane.EXCEPTION).whenComplete((ignored, error) -> {
+            if (error != null) {
+                synchronized (written) {
+                    written.remove(hash, new TraceWrite(today, future));
+                }
+                future.completeExceptionally(error);
+            } else {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Fills in {@code stackTrace} on documents that only carry a hash, with one multi-get for all
+     * uncached hashes. Documents indexed before traces were externalized already have their trace, and
+     * a trace only resolves for documents of its own project.
+     */
+    public void resolveInto(Collection<LogEntryDocument> documents) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (LogEntryDocument document : documents) {
+            if (document != null && document.getStackTrace() == null && document.getStackTraceHash() != null) {
+                hashes.add(document.getStackTraceHash());
+            }
+        }
+        if (hashes.isEmpty()) {
+            return;
+        }
+        Map<String, StackTraceDocument> traces = fetch(hashes);
+        for (LogEntryDocument document : documents) {
+            if (document != null && document.getStackTrace() == null && document.getStackTraceHash() != null) {
+                StackTraceDocument trace = traces.get(document.getStackTraceHash());
+                if (trace != null && trace.getProjectId().equals(document.getProjectId())) {
+                    document.setStackTrace(trace.getStackTrace());
+                }
+            }
+        }
+    }
+
+    /**
+     * The traces of {@code projectId} among {@code hashes}, by hash; hashes of other projects' traces are
+     * left out as if they did not exist.
+     */
+    public Map<String, String> resolve(String projectId, Collection<String> hashes) {
+        Map<String, String> traces = new HashMap<>();
+        fetch(hashes).forEach((hash, trace) -> {
+            if (projectId.equals(trace.getProjectId())) {
+                traces.put(hash, trace.getStackTrace());
+            }
+        });
+        return traces;
+    }
+
+    private Map<String, StackTraceDocument> fetch(Collection<String> hashes) {
+        Map<String, StackTraceDocument> traces = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (resolved) {
+            for (String hash : hashes) {
+                StackTraceDocument trace = resolved.get(hash);
+                if (trace != null) {
+                    traces.put(hash, trace);
+                } else {
+                    missing.add(hash);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return traces;
+        }
+
+        try {
+            MgetResponse<StackTraceDocument> response = elasticsearchClient.mget(m -> m
+                .index(INDEX)
+                .ids(missing), StackTraceDocument.class);
+            for (MultiGetResponseItem<StackTraceDocument> item : response.docs()) {
+                if (!item.isResult()) {
+                    continue;
+                }
+                GetResult<StackTraceDocument> result = item.result();
+                if (result.found() && result.source() != null) {
+                    traces.put(result.id(), result.source());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to resolve {} stack traces: {}", missing.size(), e.getMessage());
+            return traces;
+        }
+
+        synchronized (resolved) {
+            for (String hash : missing) {
+                StackTraceDocument trace = traces.get(hash);
+                if (trace != null) {
+                    resolved.put(hash, trace);
+                }
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * Hashes of stored traces matching a full-text query, for searches that used to match the
+     * {@code stackTrace} field of log entries directly; limited to one project unless it is {@code null}.
+     */
+    public List<String> search(String projectId, String query, int limit) throws IOException {
+        SearchResponse<Void> response = elasticsearchClient.search(s -> s
+            .index(INDEX)
+            .query(q -> q.bool(b -> {
+                b.must(m -> m.match(mt -> mt.field("stackTrace").query(query)));
+                if (projectId != null) {
+                    b.filter(f -> f.term(t -> t.field("projectId").value(projectId)));
+                }
+                return b;
+            }))
+            .size(limit)
+            .source(src -> src.fetch(false)), Void.class);
+        return response.hits().hits().stream().map(Hit::id).toList();
+    }
+
+    /**
+     * Deletes traces no retained log can reference: those not seen for longer than the retention period.
+     */
+    @Scheduled(cron = "${loghealer.elasticsearch.stack-traces.purge-cron:0 30 3 * * ?}")
+    public void purgeExpired() {
+        double cutoff = System.currentTimeMillis() - retentionDays * MILLIS_PER_DAY;
+        try {
+            DeleteByQueryResponse response = elasticsearchClient.deleteByQuery(d -> d
+                .index(INDEX)
+                .conflicts(Conflicts.Proceed)
+                .query(q -> q.range(r -> r.number(n -> n.field("lastSeen").lt(cutoff)))));
+            log.info("Purged {} stack traces not seen for {} days", response.deleted(), retentionDays);
+        } catch (IOException e) {
+            log.warn("Failed to purge expired stack traces: {}", e.getMessage());
+        }
+    }
+
+    static String hash(String projectId, String stackTrace) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(projectId).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            byte[] hash = digest.digest(stackTrace.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record TraceWrite(long day, CompletableFuture<Void> future) {
+    }
+}
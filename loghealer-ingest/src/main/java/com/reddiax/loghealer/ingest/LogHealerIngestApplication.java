@@ -0,0 +1,30 @@
+package com.reddiax.loghealer.ingest;
+
+import com.reddiax.loghealer.config.JacksonConfig;
+import com.reddiax.loghealer.service.ingestion.BulkIndexer;
+import com.reddiax.loghealer.service.ingestion.PiiScrubber;
+import com.reddiax.loghealer.service.ingestion.StackTraceStore;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Standalone ingestion server: accepts logs over reactive Netty and bulk-writes them to Elasticsearch
+ * with the same document model and bulk writer as the backend. It has no JPA, security or AI services,
+ * so it starts quickly and can be scaled separately from the dashboard API. Exceptions are handed to the
+ * backend over a Redis stream for grouping and alerting.
+ * <p>
+ * Not deployed yet: filter rules and load shedding, rate limits and quotas, event-ID dedup, repeat
+ * collapsing, request decompression and Smile/CBOR bodies still only run in the backend's ingestion path,
+ * and the server is only built and shipped once they have moved to the core module.
+ */
+@SpringBootApplication
+@EnableScheduling
+@Import({JacksonConfig.class, BulkIndexer.class, PiiScrubber.class, StackTraceStore.class})
+public class LogHealerIngestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(LogHealerIngestApplication.class, args);
+    }
+}
@@ -0,0 +1,38 @@
+package com.reddiax.loghealer.ingest.config;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class IngestConfig {
+
+    @Value("${spring.elasticsearch.uris}")
+    private String elasticsearchUri;
+
+    @Bean
+    public RestClient restClient() {
+        return RestClient.builder(HttpHost.create(elasticsearchUri)).build();
+    }
+
+    @Bean
+    public ElasticsearchClient elasticsearchClient(RestClient restClient, ObjectMapper objectMapper) {
+        RestClientTransport transport = new RestClientTransport(restClient, new JacksonJsonpMapper(objectMapper));
+        return new ElasticsearchClient(transport);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
@@ -0,0 +1,83 @@
+package com.reddiax.loghealer.ingest.controller;
+
+import com.reddiax.loghealer.dto.BatchLogRequest;
+import com.reddiax.loghealer.dto.LogEntryRequest;
+import com.reddiax.loghealer.dto.LogIngestionResponse;
+import com.reddiax.loghealer.ingest.service.IngestService;
+import com.reddiax.loghealer.ingest.service.ProjectSnapshot;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Same contract as the backend's {@code /api/v1/logs} ingestion endpoints, so clients can be pointed at
+ * either. The stream endpoint reads newline-delimited JSON.
+ */
+@RestController
+@RequestMapping("/api/v1/logs")
+@RequiredArgsConstructor
+public class LogIngestController {
+
+    private final ProjectSnapshot projectSnapshot;
+    private final IngestService ingestService;
+    private final Validator validator;
+
+    @Value("${loghealer.ingestion.stream.chunk-size:500}")
+    private int streamChunkSize;
+
+    @PostMapping
+    public Mono<ResponseEntity<LogIngestionResponse>> ingestSingleLog(
+            @RequestHeader("X-API-Key") String apiKey,
+            @Valid @RequestBody Mono<LogEntryRequest> request) {
+
+        return projectSnapshot.resolve(apiKey)
+            .flatMap(project -> request.flatMap(entry -> ingestService.ingest(project, List.of(entry))))
+            .map(count -> ResponseEntity.accepted().body(LogIngestionResponse.success(count)));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<LogIngestionResponse>> ingestBatchLogs(
+            @RequestHeader("X-API-Key") String apiKey,
+            @Valid @RequestBody Mono<BatchLogRequest> request) {
+
+        return projectSnapshot.resolve(apiKey)
+            .flatMap(project -> request.flatMap(batch -> ingestService.ingest(project, batch.getLogs())))
+            .map(count -> ResponseEntity.accepted().body(LogIngestionResponse.success(count)));
+    }
+
+    @PostMapping(value = "/stream", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<LogIngestionResponse>> ingestLogStream(
+            @RequestHeader("X-API-Key") String apiKey,
+            @RequestBody Flux<LogEntryRequest> requests) {
+
+        return projectSnapshot.resolve(apiKey).flatMap(project -> {
+            int[] rejected = new int[1];
+            return requests
+                .filter(entry -> {
+                    boolean valid = validator.validate(entry).isEmpty();
+                    if (!valid) {
+                        rejected[0]++;
+                    }
+                    return valid;
+                })
+                .buffer(streamChunkSize)
+                .concatMap(chunk -> ingestService.ingest(project, chunk))
+                .reduce(0, Integer::sum)
+                .map(accepted -> ResponseEntity.accepted().body(rejected[0] > 0
+                    ? LogIngestionResponse.partial(accepted, rejected[0])
+                    : LogIngestionResponse.success(accepted)));
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package com.reddiax.loghealer.ingest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reddiax.loghealer.document.LogEntryDocument;
+import com.reddiax.loghealer.dto.LogEntryRequest;
+import com.reddiax.loghealer.service.ingestion.BulkIndexer;
+import com.reddiax.loghealer.service.ingestion.BulkItemRejectedException;
+import com.reddiax.loghealer.service.ingestion.IngestionLane;
+import com.reddiax.loghealer.service.ingestion.IngestionQueueFullException;
+import com.reddiax.loghealer.service.ingestion.LogEntryDocuments;
+import com.reddiax.loghealer.service.ingestion.PiiScrubber;
+import com.reddiax.loghealer.service.ingestion.ProjectContext;
+import com.reddiax.loghealer.service.ingestion.RedisStreamBuffer;
+import com.reddiax.loghealer.service.ingestion.StackTraceStore;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps, scrubs and bulk-indexes accepted logs. Admission is bounded by the number of documents not yet
+ * acknowledged by Elasticsearch; beyond that requests are rejected with 429 so clients back off. Mapping and
+ * indexing run off the event loop because the bulk writer blocks when all its request slots are busy.
+ * <p>
+ * Requests are answered before indexing finishes, so a document that fails with a retryable error is indexed
+ * again after a backoff and keeps its admission permit meanwhile: while Elasticsearch is unavailable the
+ * budget fills up and new requests get 429 instead of being accepted and lost. Documents Elasticsearch
+ * rejected outright are logged and dropped. Retried documents are only held in memory and are lost if the
+ * server stops before they are indexed.
+ * <p>
+ * Documents carrying a stack trace are appended to the detection stream once they are indexed, where the
+ * backend groups them and raises alerts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestService {
+
+    private final BulkIndexer bulkIndexer;
+    private final StackTraceStore stackTraceStore;
+    private final PiiScrubber piiScrubber;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${loghealer.ingestion.max-message-length:32768}")
+    private int maxMessageLength;
+
+    @Value("${loghealer.ingestion.max-stack-trace-length:65536}")
+    private int maxStackTraceLength;
+
+    @Value("${loghealer.ingestion.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${loghealer.ingest.max-in-flight:20000}")
+    private int maxInFlight;
+
+    @Value("${loghealer.ingest.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${loghealer.ingestion.detection-stream.key:loghealer:ingest:exceptions}")
+    private String detectionStreamKey;
+
+    @Value("${loghealer.ingestion.detection-stream.group:loghealer-detectors}")
+    private String detectionStreamGroup;
+
+    // Bounds the hand-off while no backend consumes it
+    @Value("${loghealer.ingestion.detection-stream.max-length:100000}")
+    private long detectionStreamMaxLength;
+
+    private Semaphore inFlight;
+    private RedisStreamBuffer detectionStream;
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+        detectionStream = new RedisStreamBuffer(stringRedisTemplate, detectionStreamKey, detectionStreamGroup, "ingest");
+    }
+
+    /**
+     * Accepts already validated requests for one project and returns how many were accepted.
+     */
+    public Mono<Integer> ingest(ProjectContext project, List<LogEntryRequest> requests) {
+        if (requests.isEmpty()) {
+            return Mono.just(0);
+        }
+        return Mono.fromCallable(() -> submit(project, requests)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private int submit(ProjectContext project, List<LogEntryRequest> requests) {
+        if (!inFlight.tryAcquire(requests.size())) {
+            throw new IngestionQueueFullException("Ingestion queue is full, retry later", retryAfterSeconds);
+        }
+        List<LogEntryDocument> documents = new ArrayList<>(requests.size());
+        try {
+            for (LogEntryRequest request : requests) {
+                documents.add(LogEntryDocuments.from(request, project, maxMessageLength, maxStackTraceLength));
+            }
+            piiScrubber.scrub(documents);
+            indexUntilDone(project, documents);
+        } catch (RuntimeException e) {
+            inFlight.release(requests.size());
+            throw e;
+        }
+        return documents.size();
+    }
+
+    /**
+     * Indexes {@code documents} and releases the admission permit of each one once it is settled: indexed
+     * documents are handed to detection, rejected ones dropped, and the rest indexed again after a backoff.
+     */
+    private void indexUntilDone(ProjectContext project, List<LogEntryDocument> documents) {
+        List<CompletableFuture<Void>> results = index(documents);
+        CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).whenComplete((ignored, error) -> {
+            List<LogEntryDocument> indexed = new ArrayList<>(documents.size());
+            List<LogEntryDocument> retry = new ArrayList<>();
+            int rejected = 0;
+            Throwable retryCause = null;
+            for (int i = 0; i < documents.size(); i++) {
+                Throwable failure = failure(results.get(i));
+                if (failure == null) {
+                    indexed.add(documents.get(i));
+                } else if (failure instanceof BulkItemRejectedException) {
+                    rejected++;
+                    log.error("Dropping log {} of project {}: {}", documents.get(i).getId(), project.name(),
+                        failure.getMessage());
+                } else {
+                    retry.add(documents.get(i));
+                    retryCause = failure;
+                }
+            }
+            inFlight.release(indexed.size() + rejected);
+            handOffExceptions(indexed);
+            if (!retry.isEmpty()) {
+                log.warn("Indexing {} logs for project {} failed, retrying in {} ms: {}", retry.size(),
+                    project.name(), retryBackoffMs, retryCause.getMessage());
+                CompletableFuture.delayedExecutor(retryBackoffMs, TimeUnit.MILLISECONDS)
+                    .execute(() -> indexUntilDone(project, retry));
+            }
+        });
+    }
+
+    private static Throwable failure(CompletableFuture<Void> result) {
+        if (!result.isCompletedExceptionally()) {
+            return null;
+        }
+        Throwable failure = result.exceptionNow();
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    // Each future covers the log entry and the write of its stack trace
+    private List<CompletableFuture<Void>> index(List<LogEntryDocument> documents) {
+        String indexName = LogEntryDocuments.currentIndex();
+        StackTraceStore.Externalized externalized = stackTraceStore.externalize(documents);
+        List<LogEntryDocument> stored = externalized.documents();
+        List<CompletableFuture<Void>> results = new ArrayList<>(stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            LogEntryDocument document = stored.get(i);
+            results.add(bulkIndexer.add(indexName, document.getId(), document, IngestionLane.of(documents.get(i)))
+                .thenCombine(externalized.traceWrites().get(i), (indexed, traced) -> null));
+        }
+        return results;
+    }
+
+    private void handOffExceptions(List<LogEntryDocument> documents) {
+        List<LogEntryDocument> exceptions = documents.stream()
+            .filter(document -> IngestionLane.of(document) == IngestionLane.EXCEPTION)
+            .toList();
+        if (exceptions.isEmpty()) {
+            return;
+        }
+        try {
+            if (detectionStream.length() >= detectionStreamMaxLength) {
+                log.warn("Detection stream {} is full, skipping detection for {} exceptions",
+                    detectionStreamKey, exceptions.size());
+                return;
+            }
+            detectionStream.append(objectMapper.writeValueAsString(exceptions));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Could not hand {} exceptions to detection: {}", exceptions.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.reddiax.loghealer.ingest.service;
+
+import com.reddiax.loghealer.service.ingestion.ProjectContext;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory API key -> {@link ProjectContext} snapshot, read from the backend's {@code project} table with
+ * plain JDBC. The whole table is reloaded periodically, starting right after startup in the background, so
+ * the server does not wait for Postgres to come up. Keys missing from the snapshot are looked up one at a
+ * time off the event loop, with a short negative cache. Invalidations the backend publishes over Redis drop
+ * the key here as well.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectSnapshot implements MessageListener {
+
+    private static final String SELECT = "SELECT id, tenant_id, name, is_active, package_prefix, api_key FROM project";
+    private static final RowMapper<ProjectContext> CONTEXT = (rs, row) -> new ProjectContext(
+        rs.getString("id"),
+        rs.getString("tenant_id"),
+        rs.getString("name"),
+        rs.getBoolean("is_active"),
+        rs.getString("package_prefix"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${loghealer.ingest.projects.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    @Value("${loghealer.ingest.projects.negative-max-size:10000}")
+    private int negativeMaxSize;
+
+    private volatile Map<String, ProjectContext> byApiKey = new ConcurrentHashMap<>();
+    // LRU, so a flood of invalid keys stays bounded
+    private final Map<String, Long> unknownUntil = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > negativeMaxSize;
+        }
+    };
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(ProjectContext.INVALIDATION_CHANNEL));
+    }
+
+    public Mono<ProjectContext> resolve(String apiKey) {
+        if (apiKey == null || apiKey.isBlank()) {
+            return Mono.error(invalidKey());
+        }
+        ProjectContext context = byApiKey.get(apiKey);
+        if (context != null) {
+            return context.active() ? Mono.just(context) : Mono.error(invalidKey());
+        }
+        return Mono.fromCallable(() -> load(apiKey)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private ProjectContext load(String apiKey) {
+        Long until;
+        synchronized (unknownUntil) {
+            until = unknownUntil.get(apiKey);
+        }
+        if (until != null && until - System.nanoTime() > 0) {
+            throw invalidKey();
+        }
+        List<ProjectContext> found = jdbcTemplate.query(SELECT + " WHERE api_key = ?", CONTEXT, apiKey);
+        if (found.isEmpty()) {
+            log.warn("Invalid API key: {}...", apiKey.substring(0, Math.min(8, apiKey.length())));
+            synchronized (unknownUntil) {
+                unknownUntil.put(apiKey, System.nanoTime() + TimeUnit.SECONDS.toNanos(negativeTtlSeconds));
+            }
+            throw invalidKey();
+        }
+        ProjectContext context = found.get(0);
+        byApiKey.put(apiKey, context);
+        if (!context.active()) {
+            throw invalidKey();
+        }
+        return context;
+    }
+
+    @Scheduled(fixedDelayString = "${loghealer.ingest.projects.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            Map<String, ProjectContext> snapshot = new ConcurrentHashMap<>();
+            jdbcTemplate.query(SELECT, (RowCallbackHandler) rs ->
+                snapshot.put(rs.getString("api_key"), CONTEXT.mapRow(rs, rs.getRow())));
+            byApiKey = snapshot;
+            synchronized (unknownUntil) {
+                unknownUntil.clear();
+            }
+            log.debug("Loaded {} projects", snapshot.size());
+        } catch (Exception e) {
+            log.warn("Could not refresh project snapshot, keeping {} cached projects: {}",
+                byApiKey.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String apiKey = new String(message.getBody(), StandardCharsets.UTF_8);
+        byApiKey.remove(apiKey);
+        synchronized (unknownUntil) {
+            unknownUntil.remove(apiKey);
+        }
+    }
+
+    private static IllegalArgumentException invalidKey() {
+        return new IllegalArgumentException("Invalid or inactive API key");
+    }
+}